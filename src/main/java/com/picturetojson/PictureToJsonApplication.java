@@ -1,14 +1,29 @@
 package com.picturetojson;
 
+import com.picturetojson.cli.BatchConverter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import java.util.Arrays;
+
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableAsync
 public class PictureToJsonApplication {
 
+    // Startup steps kept for the actuator startup endpoint
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(PictureToJsonApplication.class, args);
+        if (args.length > 0 && args[0].equals(BatchConverter.COMMAND)) {
+            System.exit(BatchConverter.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        
+        SpringApplication application = new SpringApplication(PictureToJsonApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,371 @@
+package com.picturetojson.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.service.ExtractedField;
+import com.picturetojson.service.FieldAccumulator;
+import com.picturetojson.service.JsonGenerationService;
+import com.picturetojson.service.OcrResult;
+import com.picturetojson.service.PageRecognitionService;
+import com.picturetojson.service.PageSource;
+import com.picturetojson.service.ProcessingControl;
+import com.picturetojson.service.ZonalOcrService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Converts a directory tree of scans to NDJSON without the REST API or the database:
+ * {@code java -jar picture-to-json.jar convert --input=DIR [--output=FILE] [--manifest=FILE] [--threads=N]
+ * [--form-type=NAME]}.
+ * <p>
+ * Files are recognized in parallel, by default on one thread per core, and each result is
+ * appended to the output as one JSON line. Every converted file is also appended to the
+ * manifest; a second run with the same manifest skips those files, so an interrupted backfill
+ * resumes where it stopped. Failed files get an output line with an {@code error} and are tried
+ * again by the next run, and a file finished just before an interruption may appear twice.
+ * With {@code --form-type}, every file is read with zonal OCR of that form layout; otherwise
+ * files whose first page matches a layout template are.
+ * Any other {@code --spring.*} or {@code --app.*} argument configures the services.
+ */
+public class BatchConverter {
+    
+    public static final String COMMAND = "convert";
+    
+    private static final String USAGE =
+        "Usage: convert --input=DIR [--output=FILE] [--manifest=FILE] [--threads=N] [--form-type=NAME]";
+    
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "png", "image/png",
+        "jpg", "image/jpeg",
+        "jpeg", "image/jpeg",
+        "tif", PageSource.TIFF,
+        "tiff", PageSource.TIFF,
+        "pdf", PageSource.PDF);
+    
+    private final Options options;
+    private final PageRecognitionService pageRecognitionService;
+    private final ZonalOcrService zonalOcrService;
+    private final JsonGenerationService jsonGenerationService;
+    private final ProcessingProperties processingProperties;
+    private final ObjectMapper objectMapper;
+    
+    private final AtomicInteger converted = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicLong pages = new AtomicLong();
+    private long startNanos;
+    private long lastProgressNanos;
+    
+    private BufferedWriter output;
+    private BufferedWriter manifest;
+    
+    public BatchConverter(Options options, PageRecognitionService pageRecognitionService,
+                          ZonalOcrService zonalOcrService, JsonGenerationService jsonGenerationService,
+                          ProcessingProperties processingProperties, ObjectMapper objectMapper) {
+        this.options = options;
+        this.pageRecognitionService = pageRecognitionService;
+        this.zonalOcrService = zonalOcrService;
+        this.jsonGenerationService = jsonGenerationService;
+        this.processingProperties = processingProperties;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Run the converter and return the process exit code: 0 when every file converted, 1 when
+     * some failed, 2 for invalid arguments
+     */
+    public static int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        
+        List<String> applicationArgs = new ArrayList<>(List.of(
+            "--spring.main.banner-mode=off",
+            "--logging.level.com.picturetojson=WARN"));
+        applicationArgs.addAll(options.applicationArgs);
+        
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ConversionConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(applicationArgs.toArray(String[]::new))) {
+            ZonalOcrService zonalOcrService = context.getBean(ZonalOcrService.class);
+            if (options.formType != null && !zonalOcrService.hasLayout(options.formType)) {
+                System.err.println("Unknown form type: " + options.formType);
+                System.err.println(USAGE);
+                return 2;
+            }
+            BatchConverter converter = new BatchConverter(options,
+                context.getBean(PageRecognitionService.class),
+                zonalOcrService,
+                context.getBean(JsonGenerationService.class),
+                context.getBean(ProcessingProperties.class),
+                context.getBean(ObjectMapper.class));
+            return converter.convert();
+        } catch (IOException e) {
+            System.err.println("Conversion failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+    
+    public int convert() throws IOException, InterruptedException {
+        Set<String> done = readManifest();
+        Files.createDirectories(options.output.toAbsolutePath().getParent());
+        Files.createDirectories(options.manifest.toAbsolutePath().getParent());
+        
+        System.out.printf(Locale.ROOT, "Converting %s to %s on %d threads (%d files done in earlier runs)%n",
+            options.input, options.output, options.threads, done.size());
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads, runnable -> {
+            Thread thread = new Thread(runnable, "Convert-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounds the submitted-but-not-started files, so the walk never runs far ahead of OCR
+        Semaphore slots = new Semaphore(options.threads * 2);
+        
+        startNanos = System.nanoTime();
+        lastProgressNanos = startNanos;
+        try (BufferedWriter outputWriter = Files.newBufferedWriter(options.output, StandardCharsets.UTF_8,
+                 StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             BufferedWriter manifestWriter = Files.newBufferedWriter(options.manifest, StandardCharsets.UTF_8,
+                 StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             Stream<Path> files = Files.walk(options.input)) {
+            output = outputWriter;
+            manifest = manifestWriter;
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).filter(BatchConverter::isSupported)::iterator) {
+                String relativePath = options.input.relativize(file).toString().replace('\\', '/');
+                if (done.contains(relativePath)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                slots.acquire();
+                executor.execute(() -> {
+                    try {
+                        convertFile(file, relativePath);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf(Locale.ROOT, "Converted %d files (%d pages) in %.1f s: %.2f files/s, %.2f pages/s; "
+                + "%d failed, %d skipped as already done%n",
+            converted.get(), pages.get(), seconds, converted.get() / seconds, pages.get() / seconds,
+            failed.get(), skipped.get());
+        return failed.get() > 0 ? 1 : 0;
+    }
+    
+    private void convertFile(Path file, String relativePath) {
+        long start = System.nanoTime();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", relativePath);
+        try {
+            FieldAccumulator accumulator = new FieldAccumulator();
+            List<OcrResult.Line> lines = new ArrayList<>();
+            long size = Files.size(file);
+            ProcessingControl control = new ProcessingControl(processingProperties.documentDeadline(size, 1),
+                processingProperties.getPageTimeout());
+            
+            String contentType = contentType(file);
+            String formType = options.formType;
+            if (PageSource.isPaged(contentType)) {
+                try (PageSource source = PageSource.open(file.toFile(), contentType)) {
+                    int pageCount = source.getPageCount();
+                    control.setDocumentTimeout(processingProperties.documentDeadline(size, pageCount));
+                    if (formType == null) {
+                        formType = pageRecognitionService.classifyPage(source, control);
+                    }
+                    for (int page = 0; page < pageCount; page++) {
+                        control.startPage();
+                        OcrResult result = pageRecognitionService.recognizePage(source, page, formType, control);
+                        accumulator.addPage(page + 1, extractFields(formType, page + 1, result), result);
+                        lines.addAll(result.getLines());
+                    }
+                }
+            } else {
+                control.startPage();
+                if (formType == null) {
+                    formType = pageRecognitionService.classifyImage(file.toFile(), control);
+                }
+                OcrResult result = pageRecognitionService.recognizeImage(file.toFile(), formType, control);
+                accumulator.addPage(1, extractFields(formType, 1, result), result);
+                lines.addAll(result.getLines());
+            }
+            if (formType != null) {
+                record.put("formType", formType);
+            }
+            
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (ExtractedField field : accumulator.getFields()) {
+                fields.put(field.getName(), field.getValue());
+            }
+            record.put("pages", accumulator.getPages());
+            record.put("confidence", new OcrResult(lines, 0).getConfidence());
+            record.put("fields", fields);
+            record.put("millis", (System.nanoTime() - start) / 1_000_000);
+            write(relativePath, record, true);
+            converted.incrementAndGet();
+            pages.addAndGet(accumulator.getPages());
+        } catch (Exception | LinkageError e) {
+            record.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            record.put("millis", (System.nanoTime() - start) / 1_000_000);
+            try {
+                write(relativePath, record, false);
+            } catch (IOException writeError) {
+                System.err.println("Could not write result for " + relativePath + ": " + writeError.getMessage());
+            }
+            failed.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Append the result, then for a converted file the manifest entry; both are flushed so a crash
+     * loses at most the files in progress
+     */
+    private synchronized void write(String relativePath, Map<String, Object> record, boolean done) throws IOException {
+        output.write(objectMapper.writeValueAsString(record));
+        output.newLine();
+        output.flush();
+        if (done) {
+            manifest.write(relativePath);
+            manifest.newLine();
+            manifest.flush();
+        }
+        
+        long now = System.nanoTime();
+        if (now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+            lastProgressNanos = now;
+            double seconds = (now - startNanos) / 1e9;
+            System.out.printf(Locale.ROOT, "%d converted, %d failed, %d skipped (%.2f files/s)%n",
+                converted.get(), failed.get(), skipped.get(), converted.get() / seconds);
+        }
+    }
+    
+    private Set<String> readManifest() throws IOException {
+        Set<String> done = new HashSet<>();
+        if (Files.exists(options.manifest)) {
+            try (Stream<String> entries = Files.lines(options.manifest, StandardCharsets.UTF_8)) {
+                entries.filter(entry -> !entry.isBlank()).forEach(done::add);
+            }
+        }
+        return done;
+    }
+    
+    private static boolean isSupported(Path file) {
+        return contentType(file) != null;
+    }
+    
+    private List<ExtractedField> extractFields(String formType, int pageNumber, OcrResult page) {
+        return formType != null
+            ? zonalOcrService.extractFields(formType, pageNumber, page)
+            : jsonGenerationService.extractFields(page.getText());
+    }
+    
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1));
+    }
+    
+    public static class Options {
+        
+        Path input;
+        Path output = Paths.get("conversions.ndjson");
+        Path manifest;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String formType;
+        List<String> applicationArgs = new ArrayList<>();
+        
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "input":
+                        options.input = Paths.get(value);
+                        break;
+                    case "output":
+                        options.output = Paths.get(value);
+                        break;
+                    case "manifest":
+                        options.manifest = Paths.get(value);
+                        break;
+                    case "threads":
+                        try {
+                            options.threads = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("--threads must be a number, got: " + value);
+                        }
+                        break;
+                    case "form-type":
+                        options.formType = value;
+                        break;
+                    default:
+                        // Anything else is a typo rather than silently ignored configuration
+                        if (!name.startsWith("spring.") && !name.startsWith("app.")) {
+                            throw new IllegalArgumentException("Unknown option: --" + name);
+                        }
+                        options.applicationArgs.add(arg);
+                }
+            }
+            
+            if (options.input == null || !Files.isDirectory(options.input)) {
+                throw new IllegalArgumentException("--input must name a directory");
+            }
+            if (options.formType != null && options.formType.isBlank()) {
+                throw new IllegalArgumentException("--form-type must not be empty");
+            }
+            if (options.threads < 1) {
+                throw new IllegalArgumentException("--threads must be at least 1");
+            }
+            if (options.manifest == null) {
+                options.manifest = Paths.get(options.output + ".manifest");
+            }
+            return options;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.picturetojson.cli;
+
+import com.picturetojson.config.FormProperties;
+import com.picturetojson.config.OcrProperties;
+import com.picturetojson.config.PreprocessingProperties;
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.service.FormAligner;
+import com.picturetojson.service.FormClassifier;
+import com.picturetojson.service.ImageProcessingService;
+import com.picturetojson.service.JsonGenerationService;
+import com.picturetojson.service.OcrService;
+import com.picturetojson.service.PageOcrCache;
+import com.picturetojson.service.PageRecognitionService;
+import com.picturetojson.service.ZonalOcrService;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Context for the batch converter: the OCR and extraction services and their settings from
+ * application.yml, without the web server, the database or auto-configuration.
+ */
+@SpringBootConfiguration(proxyBeanMethods = false)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties({OcrProperties.class, PreprocessingProperties.class, ProcessingProperties.class,
+    FormProperties.class})
+@Import({OcrService.class, ImageProcessingService.class, PageOcrCache.class, FormAligner.class, ZonalOcrService.class,
+    FormClassifier.class, PageRecognitionService.class, JsonGenerationService.class})
+public class ConversionConfiguration {
+}
\ No newline at end of file
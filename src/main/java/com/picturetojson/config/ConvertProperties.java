@@ -0,0 +1,41 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Synchronous in-memory conversion: limits for requests answered with the extracted JSON directly.
+ */
+@ConfigurationProperties(prefix = "app.convert")
+public class ConvertProperties {
+    
+    private int maxConcurrent = 0;
+    private Duration queueTimeout = Duration.ofSeconds(2);
+    private Duration timeout = Duration.ofSeconds(30);
+    private long maxSize = 20 * 1024 * 1024;
+    
+    /**
+     * Conversions allowed at once; 0 means one per processor
+     */
+    public int effectiveMaxConcurrent() {
+        return maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+    }
+    
+    // Getters and Setters
+    /** Conversions running at once; 0 uses the number of processors. */
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+    
+    /** How long a request waits for a free slot before it is refused with 503. */
+    public Duration getQueueTimeout() { return queueTimeout; }
+    public void setQueueTimeout(Duration queueTimeout) { this.queueTimeout = queueTimeout; }
+    
+    /** Limit for the whole conversion once started; exceeding it answers 504. */
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(Duration timeout) { this.timeout = timeout; }
+    
+    /** Largest request body in bytes; the body is held in memory. */
+    public long getMaxSize() { return maxSize; }
+    public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+}
\ No newline at end of file
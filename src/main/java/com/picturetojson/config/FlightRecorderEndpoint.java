@@ -0,0 +1,182 @@
+package com.picturetojson.config;
+
+import com.picturetojson.service.ProcessingEvents;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Actuator endpoint to control Java Flight Recorder recordings in production.
+ * <ul>
+ *   <li>{@code GET /actuator/flightrecorder} lists the recordings of this JVM</li>
+ *   <li>{@code POST /actuator/flightrecorder} starts one; optional {@code settings} ({@code default} or
+ *       {@code profile}), {@code name}, {@code duration}, {@code maxAge} and {@code maxSize}</li>
+ *   <li>{@code GET /actuator/flightrecorder/{id}} downloads its data as a {@code .jfr} file, also while running</li>
+ *   <li>{@code POST /actuator/flightrecorder/{id}} stops it, keeping the data for download</li>
+ *   <li>{@code DELETE /actuator/flightrecorder/{id}} stops and discards it</li>
+ * </ul>
+ * Recordings started here always include the {@link ProcessingEvents}.
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+    
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    private static final long DEFAULT_MAX_SIZE = 250L * 1024 * 1024;
+    
+    @ReadOperation
+    public List<Map<String, Object>> recordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+            .map(FlightRecorderEndpoint::describe)
+            .toList();
+    }
+    
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable String settings, @Nullable String name,
+                                                          @Nullable Duration duration, @Nullable Duration maxAge,
+                                                          @Nullable Long maxSize) {
+        if (!FlightRecorder.isAvailable()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+        
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : "default");
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(Map.of("error", "Unknown settings: " + settings),
+                WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        
+        Recording recording = new Recording(configuration);
+        for (Class<? extends Event> type : ProcessingEvents.TYPES) {
+            recording.enable(type);
+        }
+        recording.setName(name != null ? name : "picture-to-json");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge != null ? maxAge : DEFAULT_MAX_AGE);
+        recording.setMaxSize(maxSize != null ? maxSize : DEFAULT_MAX_SIZE);
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        logger.info("Started flight recording {} ({}) with {} settings", recording.getId(), recording.getName(),
+            configuration.getName());
+        return new WebEndpointResponse<>(describe(recording));
+    }
+    
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) throws IOException {
+        Optional<Recording> recording = find(id);
+        if (recording.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.get().getState() == RecordingState.NEW || recording.get().getState() == RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        
+        Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+        try {
+            recording.get().dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+    
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Optional<Recording> recording = find(id);
+        if (recording.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.get().getState() == RecordingState.RUNNING) {
+            recording.get().stop();
+            logger.info("Stopped flight recording {}", id);
+        }
+        return new WebEndpointResponse<>(describe(recording.get()));
+    }
+    
+    @DeleteOperation
+    public WebEndpointResponse<Void> close(@Selector long id) {
+        Optional<Recording> recording = find(id);
+        if (recording.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.get().close();
+        logger.info("Closed flight recording {}", id);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+    
+    private static Optional<Recording> find(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+            .filter(recording -> recording.getId() == id)
+            .findFirst();
+    }
+    
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("id", recording.getId());
+        description.put("name", recording.getName());
+        description.put("state", recording.getState());
+        description.put("startTime", recording.getStartTime());
+        description.put("stopTime", recording.getStopTime());
+        description.put("duration", recording.getDuration());
+        description.put("maxAge", recording.getMaxAge());
+        description.put("maxSize", recording.getMaxSize());
+        description.put("size", recording.getSize());
+        return description;
+    }
+    
+    /**
+     * Dump file deleted once it has been sent
+     */
+    private static class TemporaryFileResource extends FileSystemResource {
+        
+        TemporaryFileResource(Path file) {
+            super(file);
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
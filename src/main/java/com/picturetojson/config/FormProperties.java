@@ -0,0 +1,153 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed form layouts read with zonal OCR: field boxes in template coordinates, registered onto
+ * each page by aligning it to the template image.
+ */
+@ConfigurationProperties(prefix = "app.forms")
+public class FormProperties {
+    
+    private int zoneThreads = 4;
+    private Alignment alignment = new Alignment();
+    private Classification classification = new Classification();
+    private Map<String, Layout> layouts = new LinkedHashMap<>();
+    
+    // Getters and Setters
+    /** Threads recognizing the zones of one page in parallel, each borrowing a Tesseract engine from the shared pool. */
+    public int getZoneThreads() { return zoneThreads; }
+    public void setZoneThreads(int zoneThreads) { this.zoneThreads = zoneThreads; }
+    
+    public Alignment getAlignment() { return alignment; }
+    public void setAlignment(Alignment alignment) { this.alignment = alignment; }
+    
+    public Classification getClassification() { return classification; }
+    public void setClassification(Classification classification) { this.classification = classification; }
+    
+    /** Layouts by form type, as passed with the formType upload parameter. */
+    public Map<String, Layout> getLayouts() { return layouts; }
+    public void setLayouts(Map<String, Layout> layouts) { this.layouts = layouts; }
+    
+    public static class Alignment {
+        
+        private int features = 2000;
+        private int workingSize = 1200;
+        private int minInliers = 25;
+        
+        // Getters and Setters
+        /** ORB keypoints detected on the page and the template. */
+        public int getFeatures() { return features; }
+        public void setFeatures(int features) { this.features = features; }
+        
+        /** Long edge in pixels both images are reduced to for feature detection. */
+        public int getWorkingSize() { return workingSize; }
+        public void setWorkingSize(int workingSize) { this.workingSize = workingSize; }
+        
+        /** Matches agreeing with the page transform below which zones are only scaled to the page size. */
+        public int getMinInliers() { return minInliers; }
+        public void setMinInliers(int minInliers) { this.minInliers = minInliers; }
+    }
+    
+    public static class Classification {
+        
+        private boolean enabled = true;
+        private int thumbnailSize = 256;
+        private double minSimilarity = 0.7;
+        private double minMargin = 0.05;
+        
+        // Getters and Setters
+        /** Match documents uploaded without a form type against the first template of each layout. */
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        /** Long edge in pixels of the first-page thumbnail the layout fingerprint is taken from. */
+        public int getThumbnailSize() { return thumbnailSize; }
+        public void setThumbnailSize(int thumbnailSize) { this.thumbnailSize = thumbnailSize; }
+        
+        /** Similarity, up to 1.0, the best matching template needs to assign its form type. */
+        public double getMinSimilarity() { return minSimilarity; }
+        public void setMinSimilarity(double minSimilarity) { this.minSimilarity = minSimilarity; }
+        
+        /** Lead of the best template over the runner-up, so look-alike forms are left unassigned. */
+        public double getMinMargin() { return minMargin; }
+        public void setMinMargin(double minMargin) { this.minMargin = minMargin; }
+    }
+    
+    public static class Layout {
+        
+        private List<String> templates = new ArrayList<>();
+        private int width;
+        private int height;
+        private Map<String, Zone> fields = new LinkedHashMap<>();
+        
+        /**
+         * Zones on a page, in definition order
+         */
+        public Map<String, Zone> zonesOnPage(int pageNumber) {
+            Map<String, Zone> zones = new LinkedHashMap<>();
+            fields.forEach((name, zone) -> {
+                if (zone.getPage() == pageNumber) {
+                    zones.put(name, zone);
+                }
+            });
+            return zones;
+        }
+        
+        // Getters and Setters
+        /** Blank form image per page; zone coordinates are pixels of these images. */
+        public List<String> getTemplates() { return templates; }
+        public void setTemplates(List<String> templates) { this.templates = templates; }
+        
+        /** Page size the zones are given in, for pages without a template or that fail to align. */
+        public int getWidth() { return width; }
+        public void setWidth(int width) { this.width = width; }
+        
+        public int getHeight() { return height; }
+        public void setHeight(int height) { this.height = height; }
+        
+        /** Zones by JSON field name. */
+        public Map<String, Zone> getFields() { return fields; }
+        public void setFields(Map<String, Zone> fields) { this.fields = fields; }
+    }
+    
+    public static class Zone {
+        
+        private int page = 1;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+        private String type = "string";
+        private boolean multiline = false;
+        
+        // Getters and Setters
+        public int getPage() { return page; }
+        public void setPage(int page) { this.page = page; }
+        
+        public int getX() { return x; }
+        public void setX(int x) { this.x = x; }
+        
+        public int getY() { return y; }
+        public void setY(int y) { this.y = y; }
+        
+        public int getWidth() { return width; }
+        public void setWidth(int width) { this.width = width; }
+        
+        public int getHeight() { return height; }
+        public void setHeight(int height) { this.height = height; }
+        
+        /** string, integer, date, email or phone; the value is normalized accordingly, dates to yyyy-MM-dd. */
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        
+        /** Read as a block of lines instead of a single line. */
+        public boolean isMultiline() { return multiline; }
+        public void setMultiline(boolean multiline) { this.multiline = multiline; }
+    }
+}
\ No newline at end of file
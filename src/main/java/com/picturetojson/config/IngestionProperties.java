@@ -0,0 +1,57 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Watch-folder ingestion: files dropped into a directory become documents and are processed.
+ */
+@ConfigurationProperties(prefix = "app.ingestion")
+public class IngestionProperties {
+    
+    private boolean enabled = false;
+    private String directory;
+    private String failedDirectory;
+    private boolean polling = false;
+    private Duration pollInterval = Duration.ofSeconds(5);
+    private Duration stableWindow = Duration.ofSeconds(3);
+    private int batchSize = 100;
+    private int maxInFlight = 4;
+    private String clientId = "watch-folder";
+    
+    // Getters and Setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    /** Directory scanners write into; subdirectories are not scanned. */
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+    
+    /** Where unsupported or oversized files are moved; defaults to a "failed" subdirectory. */
+    public String getFailedDirectory() { return failedDirectory; }
+    public void setFailedDirectory(String failedDirectory) { this.failedDirectory = failedDirectory; }
+    
+    /** Rescan on every poll interval instead of using WatchService, e.g. for network shares. */
+    public boolean isPolling() { return polling; }
+    public void setPolling(boolean polling) { this.polling = polling; }
+    
+    public Duration getPollInterval() { return pollInterval; }
+    public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+    
+    /** A file is taken once its size and modification time have not changed for this long. */
+    public Duration getStableWindow() { return stableWindow; }
+    public void setStableWindow(Duration stableWindow) { this.stableWindow = stableWindow; }
+    
+    /** Files moved and registered per transaction. */
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    
+    /** Ingested documents queued for processing at once; further files wait in the folder. */
+    public int getMaxInFlight() { return maxInFlight; }
+    public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+    
+    /** Client the ingested documents are queued and counted under by the fair-share dispatcher. */
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tesseract models and the fast/accurate OCR cascade settings.
+ */
+@ConfigurationProperties(prefix = "app.ocr")
+public class OcrProperties {
+
+    private Tesseract tesseract = new Tesseract();
+    private Cascade cascade = new Cascade();
+    private PageCache pageCache = new PageCache();
+    private boolean warmUp = false;
+    private int maxEngines = 0;
+
+    /**
+     * Engines kept per model; 0 means one per processor
+     */
+    public int effectiveMaxEngines() {
+        return maxEngines > 0 ? maxEngines : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Getters and Setters
+    public Tesseract getTesseract() { return tesseract; }
+    public void setTesseract(Tesseract tesseract) { this.tesseract = tesseract; }
+
+    public Cascade getCascade() { return cascade; }
+    public void setCascade(Cascade cascade) { this.cascade = cascade; }
+
+    public PageCache getPageCache() { return pageCache; }
+    public void setPageCache(PageCache pageCache) { this.pageCache = pageCache; }
+
+    /** Load an engine per core document worker in the background once the application is ready. */
+    public boolean isWarmUp() { return warmUp; }
+    public void setWarmUp(boolean warmUp) { this.warmUp = warmUp; }
+
+    /** Tesseract engines per model, shared by every OCR thread; 0 uses the number of processors. */
+    public int getMaxEngines() { return maxEngines; }
+    public void setMaxEngines(int maxEngines) { this.maxEngines = maxEngines; }
+
+    public static class Tesseract {
+
+        private String dataPath;
+        private String language = "eng";
+        private String fastDataPath;
+        private String fastLanguage;
+
+        // Getters and Setters
+        public String getDataPath() { return dataPath; }
+        public void setDataPath(String dataPath) { this.dataPath = dataPath; }
+
+        public String getLanguage() { return language; }
+        public void setLanguage(String language) { this.language = language; }
+
+        /** Model directory for the first pass; falls back to the accurate data path. */
+        public String getFastDataPath() { return fastDataPath != null ? fastDataPath : dataPath; }
+        public void setFastDataPath(String fastDataPath) { this.fastDataPath = fastDataPath; }
+
+        public String getFastLanguage() { return fastLanguage != null ? fastLanguage : language; }
+        public void setFastLanguage(String fastLanguage) { this.fastLanguage = fastLanguage; }
+    }
+
+    public static class Cascade {
+
+        private boolean enabled = true;
+        private double fastScale = 0.67;
+        private int minLineConfidence = 75;
+        private double refineScale = 1.5;
+        private int refinePadding = 6;
+        private double maxRefineRatio = 0.5;
+
+        // Getters and Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getFastScale() { return fastScale; }
+        public void setFastScale(double fastScale) { this.fastScale = fastScale; }
+
+        public int getMinLineConfidence() { return minLineConfidence; }
+        public void setMinLineConfidence(int minLineConfidence) { this.minLineConfidence = minLineConfidence; }
+
+        public double getRefineScale() { return refineScale; }
+        public void setRefineScale(double refineScale) { this.refineScale = refineScale; }
+
+        public int getRefinePadding() { return refinePadding; }
+        public void setRefinePadding(int refinePadding) { this.refinePadding = refinePadding; }
+
+        /** Above this share of low-confidence lines the whole page is re-read instead of line crops. */
+        public double getMaxRefineRatio() { return maxRefineRatio; }
+        public void setMaxRefineRatio(double maxRefineRatio) { this.maxRefineRatio = maxRefineRatio; }
+    }
+
+    /**
+     * Reuse of OCR results for pages that look the same as one read before, such as boilerplate
+     * pages rescanned in every packet.
+     */
+    public static class PageCache {
+
+        private boolean enabled = true;
+        private long maxSize = 1000;
+        private int hashSize = 12;
+        private int maxDistance = 24;
+        private int minConfidence = 85;
+        private int minReads = 2;
+        private int verifyEvery = 10;
+
+        // Getters and Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        /** Pages kept; the least recently used are evicted first. */
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+
+        /** Grid of the difference hash; the hash has 2 * hash-size^2 bits. */
+        public int getHashSize() { return hashSize; }
+        public void setHashSize(int hashSize) { this.hashSize = hashSize; }
+
+        /** Differing hash bits up to which two pages count as the same; 0 only reuses identical hashes. */
+        public int getMaxDistance() { return maxDistance; }
+        public void setMaxDistance(int maxDistance) { this.maxDistance = maxDistance; }
+
+        /** Only pages read with at least this confidence are cached. */
+        public int getMinConfidence() { return minConfidence; }
+        public void setMinConfidence(int minConfidence) { this.minConfidence = minConfidence; }
+
+        /** Matching pages that must have read with identical text before the result is reused. */
+        public int getMinReads() { return minReads; }
+        public void setMinReads(int minReads) { this.minReads = minReads; }
+
+        /** Every n-th hit of an entry is read again and compared; 0 never re-reads. */
+        public int getVerifyEvery() { return verifyEvery; }
+        public void setVerifyEvery(int verifyEvery) { this.verifyEvery = verifyEvery; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named image preprocessing profiles and the rules used to pick one per page.
+ */
+@ConfigurationProperties(prefix = "app.preprocessing")
+public class PreprocessingProperties {
+
+    private boolean autoSelect = true;
+    private String defaultProfile = "standard";
+    private Selection selection = new Selection();
+    private Decode decode = new Decode();
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    // Getters and Setters
+    public boolean isAutoSelect() { return autoSelect; }
+    public void setAutoSelect(boolean autoSelect) { this.autoSelect = autoSelect; }
+
+    public String getDefaultProfile() { return defaultProfile; }
+    public void setDefaultProfile(String defaultProfile) { this.defaultProfile = defaultProfile; }
+
+    public Selection getSelection() { return selection; }
+    public void setSelection(Selection selection) { this.selection = selection; }
+
+    public Decode getDecode() { return decode; }
+    public void setDecode(Decode decode) { this.decode = decode; }
+
+    public Map<String, Profile> getProfiles() { return profiles; }
+    public void setProfiles(Map<String, Profile> profiles) { this.profiles = profiles; }
+
+    public enum ThresholdMode {
+        NONE,
+        OTSU,
+        ADAPTIVE
+    }
+
+    /**
+     * Steps applied to a page. A step with a zero kernel or a disabled flag is skipped entirely.
+     */
+    public static class Profile {
+
+        private int denoiseKernel = 0;
+        private boolean clahe = false;
+        private double claheClipLimit = 2.0;
+        private ThresholdMode threshold = ThresholdMode.OTSU;
+        private int adaptiveBlockSize = 31;
+        private double adaptiveOffset = 10;
+        private int closeKernel = 0;
+
+        // Getters and Setters
+        public int getDenoiseKernel() { return denoiseKernel; }
+        public void setDenoiseKernel(int denoiseKernel) { this.denoiseKernel = denoiseKernel; }
+
+        public boolean isClahe() { return clahe; }
+        public void setClahe(boolean clahe) { this.clahe = clahe; }
+
+        public double getClaheClipLimit() { return claheClipLimit; }
+        public void setClaheClipLimit(double claheClipLimit) { this.claheClipLimit = claheClipLimit; }
+
+        public ThresholdMode getThreshold() { return threshold; }
+        public void setThreshold(ThresholdMode threshold) { this.threshold = threshold; }
+
+        public int getAdaptiveBlockSize() { return adaptiveBlockSize; }
+        public void setAdaptiveBlockSize(int adaptiveBlockSize) { this.adaptiveBlockSize = adaptiveBlockSize; }
+
+        public double getAdaptiveOffset() { return adaptiveOffset; }
+        public void setAdaptiveOffset(double adaptiveOffset) { this.adaptiveOffset = adaptiveOffset; }
+
+        public int getCloseKernel() { return closeKernel; }
+        public void setCloseKernel(int closeKernel) { this.closeKernel = closeKernel; }
+    }
+
+    /**
+     * Thresholds applied to the image statistics pass when auto selection is enabled.
+     */
+    public static class Selection {
+
+        private int sampleSize = 256;
+        private double cleanBinaryRatio = 0.92;
+        private int faxMaxWidth = 1800;
+        private double photoSaturation = 40;
+        private double photoIlluminationSpread = 35;
+        private String cleanProfile = "clean-scan";
+        private String faxProfile = "fax";
+        private String photoProfile = "phone-photo";
+
+        // Getters and Setters
+        public int getSampleSize() { return sampleSize; }
+        public void setSampleSize(int sampleSize) { this.sampleSize = sampleSize; }
+
+        public double getCleanBinaryRatio() { return cleanBinaryRatio; }
+        public void setCleanBinaryRatio(double cleanBinaryRatio) { this.cleanBinaryRatio = cleanBinaryRatio; }
+
+        public int getFaxMaxWidth() { return faxMaxWidth; }
+        public void setFaxMaxWidth(int faxMaxWidth) { this.faxMaxWidth = faxMaxWidth; }
+
+        public double getPhotoSaturation() { return photoSaturation; }
+        public void setPhotoSaturation(double photoSaturation) { this.photoSaturation = photoSaturation; }
+
+        public double getPhotoIlluminationSpread() { return photoIlluminationSpread; }
+        public void setPhotoIlluminationSpread(double photoIlluminationSpread) { this.photoIlluminationSpread = photoIlluminationSpread; }
+
+        public String getCleanProfile() { return cleanProfile; }
+        public void setCleanProfile(String cleanProfile) { this.cleanProfile = cleanProfile; }
+
+        public String getFaxProfile() { return faxProfile; }
+        public void setFaxProfile(String faxProfile) { this.faxProfile = faxProfile; }
+
+        public String getPhotoProfile() { return photoProfile; }
+        public void setPhotoProfile(String photoProfile) { this.photoProfile = photoProfile; }
+    }
+
+    /**
+     * Reduced-resolution decoding of large images, e.g. phone photos, before preprocessing.
+     */
+    public static class Decode {
+
+        private int targetDpi = 300;
+        private double pageLongEdgeInches = 11.0;
+
+        // Getters and Setters
+        /** Lowest effective resolution to keep, assuming the page fills the image; 0 always decodes at full size. */
+        public int getTargetDpi() { return targetDpi; }
+        public void setTargetDpi(int targetDpi) { this.targetDpi = targetDpi; }
+
+        /** Long edge of the expected page (11 in for Letter, 11.7 in for A4). */
+        public double getPageLongEdgeInches() { return pageLongEdgeInches; }
+        public void setPageLongEdgeInches(double pageLongEdgeInches) { this.pageLongEdgeInches = pageLongEdgeInches; }
+
+        /** Smallest long edge in pixels a reduced decode may produce. */
+        public int targetLongEdge() {
+            return (int) Math.ceil(targetDpi * pageLongEdgeInches);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Time limits for processing a document and each of its pages, and recovery after a restart.
+ */
+@ConfigurationProperties(prefix = "app.processing")
+public class ProcessingProperties {
+    
+    private Duration baseDeadline = Duration.ofMinutes(2);
+    private Duration deadlinePerPage = Duration.ofMinutes(1);
+    private Duration deadlinePerMegabyte = Duration.ofSeconds(10);
+    private Duration maxDeadline = Duration.ofMinutes(30);
+    private Duration pageTimeout = Duration.ofMinutes(3);
+    private boolean resumeOnStartup = true;
+    
+    /**
+     * Deadline for a whole document: the base allowance plus per-page and per-megabyte shares, capped
+     */
+    public Duration documentDeadline(long fileSize, int pages) {
+        Duration deadline = baseDeadline
+            .plus(deadlinePerPage.multipliedBy(Math.max(1, pages)))
+            .plus(deadlinePerMegabyte.multipliedBy(fileSize / (1024 * 1024)));
+        return deadline.compareTo(maxDeadline) > 0 ? maxDeadline : deadline;
+    }
+    
+    // Getters and Setters
+    public Duration getBaseDeadline() { return baseDeadline; }
+    public void setBaseDeadline(Duration baseDeadline) { this.baseDeadline = baseDeadline; }
+    
+    public Duration getDeadlinePerPage() { return deadlinePerPage; }
+    public void setDeadlinePerPage(Duration deadlinePerPage) { this.deadlinePerPage = deadlinePerPage; }
+    
+    public Duration getDeadlinePerMegabyte() { return deadlinePerMegabyte; }
+    public void setDeadlinePerMegabyte(Duration deadlinePerMegabyte) { this.deadlinePerMegabyte = deadlinePerMegabyte; }
+    
+    public Duration getMaxDeadline() { return maxDeadline; }
+    public void setMaxDeadline(Duration maxDeadline) { this.maxDeadline = maxDeadline; }
+    
+    /** Limit for rendering, preprocessing and OCR of a single page. */
+    public Duration getPageTimeout() { return pageTimeout; }
+    public void setPageTimeout(Duration pageTimeout) { this.pageTimeout = pageTimeout; }
+    
+    /** Re-queue documents left PROCESSING by a previous run; only safe when a single instance uses the database. */
+    public boolean isResumeOnStartup() { return resumeOnStartup; }
+    public void setResumeOnStartup(boolean resumeOnStartup) { this.resumeOnStartup = resumeOnStartup; }
+}
\ No newline at end of file
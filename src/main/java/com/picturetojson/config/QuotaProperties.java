@@ -0,0 +1,107 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-client rate limits on upload and process requests, and the weights used to share
+ * processing workers between clients.
+ */
+@ConfigurationProperties(prefix = "app.quotas")
+public class QuotaProperties {
+    
+    private boolean enabled = true;
+    private String clientHeader = "X-Client-Id";
+    private String defaultClient = "anonymous";
+    private int concurrency = 0;
+    private Limit upload = new Limit();
+    private Limit process = new Limit();
+    private Map<String, Client> clients = new LinkedHashMap<>();
+    
+    /**
+     * Upload limit of a client, its own if configured
+     */
+    public Limit uploadLimit(String clientId) {
+        Client client = clients.get(clientId);
+        return client != null && client.getUpload() != null ? client.getUpload() : upload;
+    }
+    
+    /**
+     * Process limit of a client, its own if configured
+     */
+    public Limit processLimit(String clientId) {
+        Client client = clients.get(clientId);
+        return client != null && client.getProcess() != null ? client.getProcess() : process;
+    }
+    
+    public int weight(String clientId) {
+        Client client = clients.get(clientId);
+        return client != null ? Math.max(1, client.getWeight()) : 1;
+    }
+    
+    // Getters and Setters
+    /** Enforce the rate limits; fair-share dispatch applies either way. */
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    /** Request header identifying the client, e.g. an API key header. */
+    public String getClientHeader() { return clientHeader; }
+    public void setClientHeader(String clientHeader) { this.clientHeader = clientHeader; }
+    
+    /** Client for requests without the header or naming a client that is not configured. */
+    public String getDefaultClient() { return defaultClient; }
+    public void setDefaultClient(String defaultClient) { this.defaultClient = defaultClient; }
+    
+    /** Documents processed at once across all clients; 0 uses the core size of the processing pool. */
+    public int getConcurrency() { return concurrency; }
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    
+    public Limit getUpload() { return upload; }
+    public void setUpload(Limit upload) { this.upload = upload; }
+    
+    public Limit getProcess() { return process; }
+    public void setProcess(Limit process) { this.process = process; }
+    
+    /** Clients known by id; only these are told apart by the client header. */
+    public Map<String, Client> getClients() { return clients; }
+    public void setClients(Map<String, Client> clients) { this.clients = clients; }
+    
+    /**
+     * Token bucket: a client may send up to burst documents at once, then rate-per-second on average.
+     */
+    public static class Limit {
+        
+        private double ratePerSecond = 5;
+        private int burst = 200;
+        
+        // Getters and Setters
+        public double getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+        
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+    
+    /**
+     * Overrides for one client; unset limits fall back to the defaults.
+     */
+    public static class Client {
+        
+        private int weight = 1;
+        private Limit upload;
+        private Limit process;
+        
+        // Getters and Setters
+        /** Share of the processing workers relative to other clients with queued documents. */
+        public int getWeight() { return weight; }
+        public void setWeight(int weight) { this.weight = weight; }
+        
+        public Limit getUpload() { return upload; }
+        public void setUpload(Limit upload) { this.upload = upload; }
+        
+        public Limit getProcess() { return process; }
+        public void setProcess(Limit process) { this.process = process; }
+    }
+}
\ No newline at end of file
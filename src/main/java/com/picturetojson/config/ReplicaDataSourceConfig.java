@@ -0,0 +1,64 @@
+package com.picturetojson.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Primary and replica connection pools behind a {@link ReplicaRoutingDataSource}, which becomes
+ * the application's data source. Only active when {@code app.datasource.replica.url} is set;
+ * otherwise Spring Boot configures the single {@code spring.datasource} pool as usual.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(properties.getUrl())
+            .username(properties.getUsername())
+            .password(properties.getPassword())
+            .driverClassName(properties.getDriverClassName())
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(properties.getPoolSize());
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        // Start without a replica; the lag check reports it as unavailable until it answers
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+    
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                               @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                               ReplicaProperties properties,
+                                               MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+            properties);
+        Gauge.builder("datasource.replica.lag", dataSource, ReplicaRoutingDataSource::getLagSeconds)
+            .description("Replication lag of the read replica; NaN while it cannot be reached")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        return dataSource;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read replica for queries that tolerate slightly stale data; unused unless a URL is set.
+ */
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaProperties {
+    
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private int poolSize = 10;
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration checkInterval = Duration.ofSeconds(5);
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+    
+    public boolean isConfigured() {
+        return url != null && !url.isBlank();
+    }
+    
+    // Getters and Setters
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    
+    /** Detected from the URL when unset. */
+    public String getDriverClassName() { return driverClassName; }
+    public void setDriverClassName(String driverClassName) { this.driverClassName = driverClassName; }
+    
+    /** Connections kept to the replica. */
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+    
+    /** Replication lag up to which reads go to the replica; beyond it they go to the primary. */
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+    
+    /** How often the replica's reachability and lag are measured. */
+    public Duration getCheckInterval() { return checkInterval; }
+    public void setCheckInterval(Duration checkInterval) { this.checkInterval = checkInterval; }
+    
+    /** How long a read waits for a replica connection before falling back to the primary. */
+    public Duration getConnectionTimeout() { return connectionTimeout; }
+    public void setConnectionTimeout(Duration connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+}
\ No newline at end of file
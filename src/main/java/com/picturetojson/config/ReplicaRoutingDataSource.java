@@ -0,0 +1,159 @@
+package com.picturetojson.config;
+
+import com.picturetojson.service.ReplicaReads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out replica connections for {@link ReplicaReads} and primary connections for everything else.
+ * <p>
+ * A background check measures the replica's lag every check interval. While the replica cannot
+ * be reached, is not streaming WAL from the primary or lags more than the maximum, replica reads
+ * go to the primary; a replica read whose
+ * connection attempt fails also falls back to the primary and marks the replica down until the
+ * next successful check.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    private static final String POSTGRES_PRIMARY_LSN = "SELECT CAST(pg_current_wal_lsn() AS text)";
+    
+    // A standby that has replayed the primary's WAL position read just before is current, however old
+    // its last transaction; otherwise the lag is the age of the last replayed transaction. Null when
+    // the standby is not streaming, as it may then be arbitrarily far behind what it received.
+    private static final String POSTGRES_LAG =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+        "WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0 " +
+        "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+    
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    
+    private ScheduledExecutorService scheduler;
+    private volatile boolean checked;
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN;
+    
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaProperties properties) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = properties.getMaxLag();
+        this.checkInterval = properties.getCheckInterval();
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ReplicaLagCheck");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkReplica, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReplicaReads.claim() || !replicaUsable) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            replicaDown(e.getMessage());
+            return primary.getConnection();
+        }
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+    
+    /**
+     * Replication lag in seconds as last measured; NaN while the replica cannot be reached or is not streaming
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+    
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+    
+    void checkReplica() {
+        double lag;
+        try (Connection connection = replica.getConnection()) {
+            lag = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())
+                ? postgresLag(connection)
+                : 0.0;
+        } catch (SQLException | RuntimeException e) {
+            lagSeconds = Double.NaN;
+            replicaDown(e.getMessage());
+            checked = true;
+            return;
+        }
+        
+        lagSeconds = lag;
+        boolean usable = lag * 1000 <= maxLag.toMillis();
+        if (usable && !replicaUsable) {
+            logger.info("Read replica in use (lag {} s)", lag);
+        } else if (!usable && replicaUsable) {
+            logger.warn("Read replica lags {} s, more than {}; reading from the primary", lag, maxLag);
+        }
+        replicaUsable = usable;
+        checked = true;
+    }
+    
+    private void replicaDown(String reason) {
+        if (replicaUsable || !checked) {
+            logger.warn("Read replica unavailable, reading from the primary: {}", reason);
+        }
+        replicaUsable = false;
+    }
+    
+    private double postgresLag(Connection connection) throws SQLException {
+        String primaryLsn;
+        try (Connection primaryConnection = primary.getConnection();
+             Statement statement = primaryConnection.createStatement();
+             ResultSet result = statement.executeQuery(POSTGRES_PRIMARY_LSN)) {
+            result.next();
+            primaryLsn = result.getString(1);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(POSTGRES_LAG)) {
+            statement.setString(1, primaryLsn);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                double lag = result.getDouble(1);
+                if (result.wasNull()) {
+                    throw new SQLException("Replica is not streaming WAL from the primary");
+                }
+                return lag;
+            }
+        }
+    }
+}
\ No newline at end of file
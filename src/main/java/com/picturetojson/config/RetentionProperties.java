@@ -0,0 +1,49 @@
+package com.picturetojson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Document retention: expiring old documents with their files, and sweeping files no document uses.
+ */
+@ConfigurationProperties(prefix = "app.retention")
+public class RetentionProperties {
+    
+    private boolean enabled = true;
+    private Duration interval = Duration.ofHours(6);
+    private Duration maxAge;
+    private String archiveDirectory;
+    private int partitionsAhead = 3;
+    private Duration orphanGrace = Duration.ofDays(1);
+    private int batchSize = 500;
+    
+    // Getters and Setters
+    /** Expiry and file sweeps; when false only the coming monthly partitions are created. */
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    /** Time between maintenance runs; the first runs at startup. */
+    public Duration getInterval() { return interval; }
+    public void setInterval(Duration interval) { this.interval = interval; }
+    
+    /** Documents older than this are deleted with their files; unset keeps them forever. */
+    public Duration getMaxAge() { return maxAge; }
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+    
+    /** Where expired documents are written as gzipped NDJSON before deletion; unset deletes without a copy. */
+    public String getArchiveDirectory() { return archiveDirectory; }
+    public void setArchiveDirectory(String archiveDirectory) { this.archiveDirectory = archiveDirectory; }
+    
+    /** Monthly partitions kept created beyond the current month. */
+    public int getPartitionsAhead() { return partitionsAhead; }
+    public void setPartitionsAhead(int partitionsAhead) { this.partitionsAhead = partitionsAhead; }
+    
+    /** Files in the upload directory used by no document are deleted once older than this. */
+    public Duration getOrphanGrace() { return orphanGrace; }
+    public void setOrphanGrace(Duration orphanGrace) { this.orphanGrace = orphanGrace; }
+    
+    /** Documents deleted, or file names looked up, per statement. */
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.picturetojson.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -24,6 +25,8 @@ public class SecurityConfig {
                 .requestMatchers("/actuator/health").permitAll()
                 .anyRequest().authenticated()
             )
+            // Operators reach the other actuator endpoints with the spring.security.user credentials
+            .httpBasic(Customizer.withDefaults())
             .headers(headers -> headers.frameOptions().disable()); // For H2 Console
         
         return http.build();
@@ -0,0 +1,36 @@
+package com.picturetojson.config;
+
+import com.picturetojson.service.OcrWarmup;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Startup tuning used by the {@code fast-start} profile.
+ */
+@Configuration
+public class StartupConfig {
+    
+    /**
+     * Beans kept eager when {@code spring.main.lazy-initialization} is on: the worker pools and the
+     * background warm-up, so the first document does not pay for them
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ThreadPoolTaskExecutor.class, OcrWarmup.class);
+    }
+    
+    /**
+     * Build the Hibernate EntityManagerFactory on a background thread when repositories are deferred.
+     * Boot only does this with a single task executor, and this application has two.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred")
+    public EntityManagerFactoryBuilderCustomizer backgroundJpaBootstrap() {
+        return builder -> builder.setBootstrapExecutor(new SimpleAsyncTaskExecutor("JpaBootstrap-"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.picturetojson.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    private final ThreadPoolTaskExecutor streamingExecutor;
+    private final Duration streamingTimeout;
+    
+    public WebMvcConfig(@Qualifier("streamingExecutor") ThreadPoolTaskExecutor streamingExecutor,
+                        @Value("${app.streaming.timeout:30m}") Duration streamingTimeout) {
+        this.streamingExecutor = streamingExecutor;
+        this.streamingTimeout = streamingTimeout;
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor);
+        configurer.setDefaultTimeout(streamingTimeout.toMillis());
+    }
+}
\ No newline at end of file
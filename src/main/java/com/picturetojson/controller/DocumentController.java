@@ -1,26 +1,55 @@
 package com.picturetojson.controller;
 
+import com.picturetojson.config.ConvertProperties;
+import com.picturetojson.dto.BulkCorrectionResponseDto;
 import com.picturetojson.dto.CorrectionRequestDto;
+import com.picturetojson.dto.CorrectionVersionDto;
 import com.picturetojson.dto.DocumentResponseDto;
+import com.picturetojson.dto.FieldMappingDto;
 import com.picturetojson.entity.Document;
+import com.picturetojson.service.BulkCorrectionService;
+import com.picturetojson.service.CapacityExceededException;
+import com.picturetojson.service.CorrectionReplayException;
+import com.picturetojson.service.DocumentConversionService;
+import com.picturetojson.service.DocumentExportService;
+import com.picturetojson.service.DocumentNotFoundException;
 import com.picturetojson.service.DocumentProcessingService;
+import com.picturetojson.service.FairShareDispatcher;
+import com.picturetojson.service.FieldMappingService;
+import com.picturetojson.service.ProcessingStoppedException;
+import com.picturetojson.service.RateLimitExceededException;
+import com.picturetojson.service.RateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/documents")
@@ -29,22 +58,54 @@ public class DocumentController {
     
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String JSON_PATCH = "application/json-patch+json";
+    private static final int MAX_SEARCH_RESULTS = 200;
+    
     private final DocumentProcessingService documentProcessingService;
+    private final DocumentConversionService documentConversionService;
+    private final DocumentExportService documentExportService;
+    private final BulkCorrectionService bulkCorrectionService;
+    private final FieldMappingService fieldMappingService;
+    private final RateLimiter rateLimiter;
+    private final FairShareDispatcher fairShareDispatcher;
+    private final ConvertProperties convertProperties;
     
-    public DocumentController(DocumentProcessingService documentProcessingService) {
+    public DocumentController(DocumentProcessingService documentProcessingService,
+                              DocumentConversionService documentConversionService,
+                              DocumentExportService documentExportService,
+                              BulkCorrectionService bulkCorrectionService,
+                              FieldMappingService fieldMappingService,
+                              RateLimiter rateLimiter,
+                              FairShareDispatcher fairShareDispatcher,
+                              ConvertProperties convertProperties) {
         this.documentProcessingService = documentProcessingService;
+        this.documentConversionService = documentConversionService;
+        this.documentExportService = documentExportService;
+        this.bulkCorrectionService = bulkCorrectionService;
+        this.fieldMappingService = fieldMappingService;
+        this.rateLimiter = rateLimiter;
+        this.fairShareDispatcher = fairShareDispatcher;
+        this.convertProperties = convertProperties;
     }
     
     @PostMapping("/upload")
     @Operation(summary = "Upload a document for processing")
     public ResponseEntity<DocumentResponseDto> uploadDocument(
-            @Parameter(description = "Document file (PNG, JPG, JPEG, PDF)")
-            @RequestParam("file") MultipartFile file) {
+            @Parameter(description = "Document file (PNG, JPG, JPEG, TIFF, PDF)")
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Form layout to read with zonal OCR, as configured under app.forms.layouts")
+            @RequestParam(value = "formType", required = false) String formType,
+            HttpServletRequest request) {
         
         try {
             logger.info("Received file upload request: {}", file.getOriginalFilename());
-            DocumentResponseDto response = documentProcessingService.uploadDocument(file);
+            String clientId = rateLimiter.resolveClient(request);
+            rateLimiter.acquire(clientId, RateLimiter.Operation.UPLOAD, 1);
+            DocumentResponseDto response = documentProcessingService.uploadDocument(file, clientId, formType);
             return ResponseEntity.ok(response);
+        } catch (RateLimitExceededException e) {
+            return tooManyRequests(e, null);
         } catch (Exception e) {
             logger.error("Error uploading document", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -56,12 +117,18 @@ public class DocumentController {
     @Operation(summary = "Start processing a uploaded document")
     public ResponseEntity<String> processDocument(
             @Parameter(description = "Document ID")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            HttpServletRequest request) {
         
         try {
             logger.info("Starting document processing for ID: {}", id);
-            documentProcessingService.processDocumentAsync(id);
+            String clientId = rateLimiter.resolveClient(request);
+            rateLimiter.acquire(clientId, RateLimiter.Operation.PROCESS, 1);
+            documentProcessingService.markPending(List.of(id));
+            fairShareDispatcher.submit(clientId, List.of(id));
             return ResponseEntity.ok("Document processing started");
+        } catch (RateLimitExceededException e) {
+            return tooManyRequests(e, e.getMessage());
         } catch (Exception e) {
             logger.error("Error starting document processing", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -69,22 +136,102 @@ public class DocumentController {
         }
     }
     
+    @PostMapping(value = "/convert", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Convert a document to JSON in one request",
+               description = "Send the file itself as the request body with its Content-Type. Nothing is stored; "
+                   + "the extracted JSON is returned directly.")
+    public ResponseEntity<String> convertDocument(
+            @Parameter(description = "Form layout to read with zonal OCR; detected from the first page when omitted")
+            @RequestParam(value = "formType", required = false) String formType,
+            HttpServletRequest request) {
+        
+        try {
+            String clientId = rateLimiter.resolveClient(request);
+            rateLimiter.acquire(clientId, RateLimiter.Operation.PROCESS, 1);
+            
+            // The body is the file; the service reads it into memory once it has a slot, so nothing touches the disk
+            if (request.getContentLengthLong() > convertProperties.getMaxSize()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(null);
+            }
+            
+            // Checked against the supported types by the service; a missing header is an invalid one
+            MediaType contentType = MediaType.parseMediaType(String.valueOf(request.getContentType()));
+            DocumentConversionService.ConversionResult result = documentConversionService.convert(
+                request.getInputStream(), contentType.getType() + "/" + contentType.getSubtype(), formType, clientId);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Pages", String.valueOf(result.getPages()))
+                .header("X-OCR-Confidence", String.valueOf(result.getConfidence()));
+            if (result.getFormType() != null) {
+                response.header("X-Form-Type", result.getFormType());
+            }
+            return response.body(result.getJson());
+        } catch (RateLimitExceededException e) {
+            return tooManyRequests(e, null);
+        } catch (CapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(null);
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(null);
+        } catch (ProcessingStoppedException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(null);
+        } catch (IllegalArgumentException | IOException e) {
+            logger.warn("Could not convert document: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error converting document", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+    
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel a queued or running document")
+    public ResponseEntity<DocumentResponseDto> cancelDocument(
+            @Parameter(description = "Document ID")
+            @PathVariable Long id) {
+        
+        try {
+            logger.info("Cancelling processing for document ID: {}", id);
+            DocumentResponseDto document = documentProcessingService.cancelDocument(id);
+            // A running document records CANCELLED when it reaches its next check
+            return document.getStatus() == Document.ProcessingStatus.CANCELLED
+                ? ResponseEntity.ok(document)
+                : ResponseEntity.accepted().body(document);
+        } catch (IllegalStateException e) {
+            logger.warn("Document ID: {} cannot be cancelled: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(null);
+        } catch (Exception e) {
+            logger.error("Error cancelling document", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(null);
+        }
+    }
+    
     @PostMapping("/batch/upload")
     @Operation(summary = "Upload multiple documents for batch processing")
     public ResponseEntity<List<DocumentResponseDto>> uploadBatch(
             @Parameter(description = "Multiple document files")
-            @RequestParam("files") MultipartFile[] files) {
+            @RequestParam("files") MultipartFile[] files,
+            @Parameter(description = "Form layout of all files, read with zonal OCR")
+            @RequestParam(value = "formType", required = false) String formType,
+            HttpServletRequest request) {
         
         try {
             logger.info("Received batch upload request for {} files", files.length);
+            String clientId = rateLimiter.resolveClient(request);
+            rateLimiter.acquire(clientId, RateLimiter.Operation.UPLOAD, files.length);
             
             List<DocumentResponseDto> responses = new java.util.ArrayList<>();
             for (MultipartFile file : files) {
-                DocumentResponseDto response = documentProcessingService.uploadDocument(file);
+                DocumentResponseDto response = documentProcessingService.uploadDocument(file, clientId, formType);
                 responses.add(response);
             }
             
             return ResponseEntity.ok(responses);
+        } catch (RateLimitExceededException e) {
+            return tooManyRequests(e, null);
         } catch (Exception e) {
             logger.error("Error uploading batch documents", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -96,14 +243,20 @@ public class DocumentController {
     @Operation(summary = "Process multiple documents in batch")
     public ResponseEntity<String> processBatch(
             @Parameter(description = "List of document IDs to process")
-            @RequestBody List<Long> documentIds) {
+            @RequestBody List<Long> documentIds,
+            HttpServletRequest request) {
         
         try {
             logger.info("Starting batch processing for {} documents", documentIds.size());
-            CompletableFuture<List<DocumentResponseDto>> future = 
-                documentProcessingService.processBatchAsync(documentIds);
+            String clientId = rateLimiter.resolveClient(request);
+            rateLimiter.acquire(clientId, RateLimiter.Operation.PROCESS, documentIds.size());
+            documentProcessingService.markPending(documentIds);
+            // Queued per client; workers are shared with other clients' documents by weight
+            fairShareDispatcher.submit(clientId, documentIds);
             
             return ResponseEntity.ok("Batch processing started for " + documentIds.size() + " documents");
+        } catch (RateLimitExceededException e) {
+            return tooManyRequests(e, e.getMessage());
         } catch (Exception e) {
             logger.error("Error starting batch processing", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -111,15 +264,48 @@ public class DocumentController {
         }
     }
     
+    @PostMapping(value = "/batch/correct", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Apply many corrections in one streamed request",
+               description = "Body: [{\"documentId\": 1, \"correctedJson\": {...}, \"expectedVersion\": 2}, ...]")
+    public ResponseEntity<BulkCorrectionResponseDto> correctBatch(HttpServletRequest request) {
+        
+        try {
+            // Read straight from the request stream; the body is never buffered as a whole
+            BulkCorrectionResponseDto response = bulkCorrectionService.applyCorrections(request.getInputStream());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected bulk corrections request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(null);
+        } catch (Exception e) {
+            logger.error("Error applying bulk corrections", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(null);
+        }
+    }
+    
     @GetMapping("/{id}")
-    @Operation(summary = "Get document by ID")
+    @Operation(summary = "Get document by ID; supports If-None-Match")
     public ResponseEntity<DocumentResponseDto> getDocument(
             @Parameter(description = "Document ID")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
         
         try {
             DocumentResponseDto document = documentProcessingService.getDocumentById(id);
-            return ResponseEntity.ok(document);
+            String etag = etag(document);
+            if (webRequest.checkNotModified(etag)) {
+                // Status 304 and the ETag header are already set
+                return null;
+            }
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(document);
+        } catch (CorrectionReplayException e) {
+            logger.error("Error retrieving document", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(null);
         } catch (Exception e) {
             logger.error("Error retrieving document", e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -167,6 +353,108 @@ public class DocumentController {
         }
     }
     
+    @GetMapping("/search")
+    @Operation(summary = "Search documents by OCR text and extracted field values")
+    public ResponseEntity<List<DocumentResponseDto>> searchDocuments(
+            @Parameter(description = "Terms that must all appear in the OCR text or field values")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Extracted field name to match exactly, e.g. email")
+            @RequestParam(required = false) String field,
+            @Parameter(description = "Value the field must have (case-insensitive)")
+            @RequestParam(required = false) String value,
+            @Parameter(description = "Maximum number of results")
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        if ((q == null || q.isBlank()) && (field == null || value == null)) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        
+        try {
+            Map<String, String> fieldFilters = field != null && value != null ? Map.of(field, value) : Map.of();
+            List<DocumentResponseDto> documents = documentProcessingService.searchDocuments(
+                q, fieldFilters, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+            return ResponseEntity.ok(documents);
+        } catch (Exception e) {
+            logger.error("Error searching documents", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(null);
+        }
+    }
+    
+    @GetMapping("/fields")
+    @Operation(summary = "Query extracted field values across documents")
+    public ResponseEntity<List<FieldMappingDto>> findFields(
+            @Parameter(description = "Extracted field name, e.g. email")
+            @RequestParam String field,
+            @Parameter(description = "Exact value to match")
+            @RequestParam(required = false) String value,
+            @Parameter(description = "Only values read with OCR confidence below this (0-100), lowest first")
+            @RequestParam(required = false) Integer belowConfidence,
+            @Parameter(description = "Maximum number of results")
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        try {
+            List<FieldMappingDto> fields = fieldMappingService.findFields(
+                field, value, belowConfidence, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+            return ResponseEntity.ok(fields);
+        } catch (Exception e) {
+            logger.error("Error querying extracted fields", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(null);
+        }
+    }
+    
+    @GetMapping("/{id}/fields")
+    @Operation(summary = "Get the extracted fields of a document with their OCR confidence")
+    public ResponseEntity<List<FieldMappingDto>> getDocumentFields(
+            @Parameter(description = "Document ID")
+            @PathVariable Long id) {
+        
+        try {
+            return ResponseEntity.ok(fieldMappingService.getFields(id));
+        } catch (Exception e) {
+            logger.error("Error retrieving extracted fields", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(null);
+        }
+    }
+    
+    @GetMapping("/export")
+    @Operation(summary = "Stream extracted results as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportDocuments(
+            @Parameter(description = "Processing status filter")
+            @RequestParam(required = false) Document.ProcessingStatus status,
+            @Parameter(description = "Created at or after (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Created before (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Gzip-encode the response")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        
+        logger.info("Starting NDJSON export (status: {}, from: {}, to: {}, gzip: {})", status, from, to, gzip);
+        
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                // Sync flush so rows reach the client as the cursor advances. Closing finishes the
+                // stream and frees the deflater even when the export fails; the response stream
+                // itself is left to the container.
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(StreamUtils.nonClosing(outputStream), 8192, true)) {
+                    documentExportService.exportNdjson(status, from, to, gzipStream);
+                }
+            } else {
+                documentExportService.exportNdjson(status, from, to, outputStream);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"documents.ndjson\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
     @PutMapping("/{id}/correct")
     @Operation(summary = "Apply manual corrections to extracted JSON")
     public ResponseEntity<DocumentResponseDto> correctDocument(
@@ -185,4 +473,64 @@ public class DocumentController {
                 .body(null);
         }
     }
+    
+    @PatchMapping(value = "/{id}/correct", consumes = {JSON_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Apply an RFC 6902 JSON patch to the current corrections")
+    public ResponseEntity<DocumentResponseDto> patchDocument(
+            @Parameter(description = "Document ID")
+            @PathVariable Long id,
+            @Parameter(description = "Correction version the patch was written against; 409 if the document has moved on")
+            @RequestParam(required = false) Integer expectedVersion,
+            @RequestBody String patch) {
+        
+        try {
+            logger.info("Applying correction patch to document ID: {}", id);
+            DocumentResponseDto document = documentProcessingService.applyCorrectionPatch(id, patch, expectedVersion);
+            return ResponseEntity.ok(document);
+        } catch (DocumentNotFoundException e) {
+            logger.warn("Correction patch for unknown document ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(null);
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            logger.warn("Conflicting correction patch for document ID: {}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(null);
+        } catch (Exception e) {
+            logger.error("Error applying correction patch", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(null);
+        }
+    }
+    
+    @GetMapping("/{id}/corrections")
+    @Operation(summary = "Get the correction history of a document")
+    public ResponseEntity<List<CorrectionVersionDto>> getCorrectionHistory(
+            @Parameter(description = "Document ID")
+            @PathVariable Long id) {
+        
+        try {
+            return ResponseEntity.ok(documentProcessingService.getCorrectionHistory(id));
+        } catch (Exception e) {
+            logger.error("Error retrieving correction history", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(null);
+        }
+    }
+    
+    /**
+     * Every write bumps updatedAt, and corrections bump correctionVersion
+     */
+    private static String etag(DocumentResponseDto document) {
+        LocalDateTime updatedAt = document.getUpdatedAt();
+        String updated = updatedAt != null
+            ? Long.toHexString(updatedAt.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(updatedAt.getNano())
+            : "0";
+        return "\"" + document.getId() + "-" + updated + "-" + document.getCorrectionVersion() + "\"";
+    }
+    
+    private static <T> ResponseEntity<T> tooManyRequests(RateLimitExceededException e, T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(body);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.picturetojson.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCorrectionResponseDto {
+    
+    private int applied;
+    private int rejected;
+    private List<ItemResult> results = new ArrayList<>();
+    // Set when the request body could not be read to the end; items before it are still reported
+    private String error;
+    
+    public void addResult(ItemResult result) {
+        results.add(result);
+        if (result.getStatus() == ItemStatus.APPLIED) {
+            applied++;
+        } else {
+            rejected++;
+        }
+    }
+    
+    // Getters and Setters
+    public int getApplied() { return applied; }
+    public void setApplied(int applied) { this.applied = applied; }
+    
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    
+    public List<ItemResult> getResults() { return results; }
+    public void setResults(List<ItemResult> results) { this.results = results; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public enum ItemStatus {
+        APPLIED,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT
+    }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        
+        private int index;
+        private Long documentId;
+        private ItemStatus status;
+        private Integer correctionVersion;
+        private String error;
+        
+        // Constructors
+        public ItemResult() {}
+        
+        public ItemResult(int index, Long documentId, ItemStatus status, Integer correctionVersion, String error) {
+            this.index = index;
+            this.documentId = documentId;
+            this.status = status;
+            this.correctionVersion = correctionVersion;
+            this.error = error;
+        }
+        
+        // Getters and Setters
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        
+        public Long getDocumentId() { return documentId; }
+        public void setDocumentId(Long documentId) { this.documentId = documentId; }
+        
+        public ItemStatus getStatus() { return status; }
+        public void setStatus(ItemStatus status) { this.status = status; }
+        
+        public Integer getCorrectionVersion() { return correctionVersion; }
+        public void setCorrectionVersion(Integer correctionVersion) { this.correctionVersion = correctionVersion; }
+        
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
\ No newline at end of file
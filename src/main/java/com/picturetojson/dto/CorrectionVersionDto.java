@@ -0,0 +1,33 @@
+package com.picturetojson.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.picturetojson.entity.CorrectionPatch;
+
+import java.time.LocalDateTime;
+
+public class CorrectionVersionDto {
+    
+    private Integer version;
+    @JsonRawValue
+    private String patch;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public CorrectionVersionDto() {}
+    
+    public CorrectionVersionDto(CorrectionPatch correctionPatch) {
+        this.version = correctionPatch.getVersion();
+        this.patch = correctionPatch.getPatch();
+        this.createdAt = correctionPatch.getCreatedAt();
+    }
+    
+    // Getters and Setters
+    public Integer getVersion() { return version; }
+    public void setVersion(Integer version) { this.version = version; }
+    
+    public String getPatch() { return patch; }
+    public void setPatch(String patch) { this.patch = patch; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
\ No newline at end of file
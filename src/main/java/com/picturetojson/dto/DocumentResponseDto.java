@@ -17,8 +17,12 @@ public class DocumentResponseDto {
     private String extractedText;
     private String extractedJson;
     private String correctedJson;
+    private Integer correctionVersion;
     private String errorMessage;
     private Integer processingProgress;
+    private Integer ocrConfidence;
+    private String clientId;
+    private String formType;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
@@ -35,8 +39,12 @@ public class DocumentResponseDto {
         this.extractedText = document.getExtractedText();
         this.extractedJson = document.getExtractedJson();
         this.correctedJson = document.getCorrectedJson();
+        this.correctionVersion = document.getCorrectionVersion();
         this.errorMessage = document.getErrorMessage();
         this.processingProgress = document.getProcessingProgress();
+        this.ocrConfidence = document.getOcrConfidence();
+        this.clientId = document.getClientId();
+        this.formType = document.getFormType();
         this.createdAt = document.getCreatedAt();
         this.updatedAt = document.getUpdatedAt();
     }
@@ -69,12 +77,24 @@ public class DocumentResponseDto {
     public String getCorrectedJson() { return correctedJson; }
     public void setCorrectedJson(String correctedJson) { this.correctedJson = correctedJson; }
     
+    public Integer getCorrectionVersion() { return correctionVersion; }
+    public void setCorrectionVersion(Integer correctionVersion) { this.correctionVersion = correctionVersion; }
+    
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
     
     public Integer getProcessingProgress() { return processingProgress; }
     public void setProcessingProgress(Integer processingProgress) { this.processingProgress = processingProgress; }
     
+    public Integer getOcrConfidence() { return ocrConfidence; }
+    public void setOcrConfidence(Integer ocrConfidence) { this.ocrConfidence = ocrConfidence; }
+    
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+    
+    public String getFormType() { return formType; }
+    public void setFormType(String formType) { this.formType = formType; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,52 @@
+package com.picturetojson.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.picturetojson.entity.FieldMapping;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FieldMappingDto {
+    
+    private Long documentId;
+    private String field;
+    private String sourceLabel;
+    private String fieldType;
+    private String value;
+    private String correctedValue;
+    private Integer confidence;
+    
+    // Constructors
+    public FieldMappingDto() {}
+    
+    public FieldMappingDto(FieldMapping fieldMapping) {
+        // Reading the id of the lazy association does not load the document
+        this.documentId = fieldMapping.getDocument().getId();
+        this.field = fieldMapping.getTargetField();
+        this.sourceLabel = fieldMapping.getSourceField();
+        this.fieldType = fieldMapping.getFieldType();
+        this.value = fieldMapping.getExtractedValue();
+        this.correctedValue = fieldMapping.getCorrectedValue();
+        this.confidence = fieldMapping.getConfidence();
+    }
+    
+    // Getters and Setters
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+    
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+    
+    public String getSourceLabel() { return sourceLabel; }
+    public void setSourceLabel(String sourceLabel) { this.sourceLabel = sourceLabel; }
+    
+    public String getFieldType() { return fieldType; }
+    public void setFieldType(String fieldType) { this.fieldType = fieldType; }
+    
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+    
+    public String getCorrectedValue() { return correctedValue; }
+    public void setCorrectedValue(String correctedValue) { this.correctedValue = correctedValue; }
+    
+    public Integer getConfidence() { return confidence; }
+    public void setConfidence(Integer confidence) { this.confidence = confidence; }
+}
\ No newline at end of file
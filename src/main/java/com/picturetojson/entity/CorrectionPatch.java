@@ -0,0 +1,61 @@
+package com.picturetojson.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "correction_patches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"document_id", "version"}))
+@EntityListeners(AuditingEntityListener.class)
+public class CorrectionPatch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false)
+    private Document document;
+    
+    @Column(nullable = false)
+    private Integer version;
+    
+    // RFC 6902 operations turning version - 1 into this version
+    @Column(columnDefinition = "JSON", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private String patch;
+    
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public CorrectionPatch() {}
+    
+    public CorrectionPatch(Document document, Integer version, String patch) {
+        this.document = document;
+        this.version = version;
+        this.patch = patch;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Document getDocument() { return document; }
+    public void setDocument(Document document) { this.document = document; }
+    
+    public Integer getVersion() { return version; }
+    public void setVersion(Integer version) { this.version = version; }
+    
+    public String getPatch() { return patch; }
+    public void setPatch(String patch) { this.patch = patch; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
\ No newline at end of file
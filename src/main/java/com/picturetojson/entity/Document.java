@@ -1,6 +1,8 @@
 package com.picturetojson.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
@@ -12,7 +14,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_documents_filename", columnList = "filename")
+})
+@DynamicUpdate // Only write changed columns so small updates don't rewrite the large text/JSON values
 @EntityListeners(AuditingEntityListener.class)
 public class Document {
     
@@ -46,16 +52,36 @@ public class Document {
     @JdbcTypeCode(SqlTypes.JSON)
     private String extractedJson;
     
+    // Materialized corrections as of snapshotVersion; later versions live in correction_patches
     @Column(columnDefinition = "JSON")
     @JdbcTypeCode(SqlTypes.JSON)
     private String correctedJson;
     
+    @ColumnDefault("0")
+    @Column(name = "correction_version", nullable = false)
+    private Integer correctionVersion = 0;
+    
+    @ColumnDefault("0")
+    @Column(name = "snapshot_version", nullable = false)
+    private Integer snapshotVersion = 0;
+    
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
     
     @Column(name = "processing_progress")
     private Integer processingProgress = 0;
     
+    @Column(name = "ocr_confidence")
+    private Integer ocrConfidence;
+    
+    // Caller that submitted the document, for per-client quotas and fair-share dispatch
+    @Column(name = "client_id", length = 64)
+    private String clientId;
+    
+    // Form layout read with zonal OCR; null extracts fields from the full page text
+    @Column(name = "form_type", length = 64)
+    private String formType;
+    
     @OneToMany(mappedBy = "document", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<FieldMapping> fieldMappings = new ArrayList<>();
     
@@ -109,12 +135,27 @@ public class Document {
     public String getCorrectedJson() { return correctedJson; }
     public void setCorrectedJson(String correctedJson) { this.correctedJson = correctedJson; }
     
+    public Integer getCorrectionVersion() { return correctionVersion; }
+    public void setCorrectionVersion(Integer correctionVersion) { this.correctionVersion = correctionVersion; }
+    
+    public Integer getSnapshotVersion() { return snapshotVersion; }
+    public void setSnapshotVersion(Integer snapshotVersion) { this.snapshotVersion = snapshotVersion; }
+    
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
     
     public Integer getProcessingProgress() { return processingProgress; }
     public void setProcessingProgress(Integer processingProgress) { this.processingProgress = processingProgress; }
     
+    public Integer getOcrConfidence() { return ocrConfidence; }
+    public void setOcrConfidence(Integer ocrConfidence) { this.ocrConfidence = ocrConfidence; }
+    
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+    
+    public String getFormType() { return formType; }
+    public void setFormType(String formType) { this.formType = formType; }
+    
     public List<FieldMapping> getFieldMappings() { return fieldMappings; }
     public void setFieldMappings(List<FieldMapping> fieldMappings) { this.fieldMappings = fieldMappings; }
     
@@ -124,11 +165,14 @@ public class Document {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    // PostgreSQL checks the status column against these; a new value needs a migration replacing documents_status_check
     public enum ProcessingStatus {
         PENDING,
         PROCESSING,
         COMPLETED,
         FAILED,
-        CORRECTED
+        CORRECTED,
+        CANCELLED,
+        TIMED_OUT
     }
 }
\ No newline at end of file
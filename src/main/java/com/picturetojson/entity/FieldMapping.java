@@ -3,11 +3,19 @@ package com.picturetojson.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "field_mappings")
+@Table(name = "field_mappings", indexes = {
+    @Index(name = "idx_field_mappings_document", columnList = "document_id"),
+    @Index(name = "idx_field_mappings_target_value", columnList = "target_field, extracted_value"),
+    @Index(name = "idx_field_mappings_target_confidence", columnList = "target_field, confidence")
+})
 public class FieldMapping {
     
+    public static final int MAX_VALUE_LENGTH = 255;
+    
+    // Pooled sequence: ids are handed out in blocks, so inserts can be JDBC-batched (IDENTITY cannot)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "field_mappings_seq")
+    @SequenceGenerator(name = "field_mappings_seq", sequenceName = "field_mappings_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,101 @@
+package com.picturetojson.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCR outcome of one page, written as soon as the page finishes so a retry or restart only
+ * redoes pages without a completed result. Removed once the document completes.
+ */
+@Entity
+@Table(name = "page_results",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"document_id", "page_number"}))
+@EntityListeners(AuditingEntityListener.class)
+public class PageResult {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false)
+    private Document document;
+    
+    // 1-based
+    @Column(name = "page_number", nullable = false)
+    private Integer pageNumber;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PageStatus status;
+    
+    // Recognized lines with confidence and bounding box
+    @Column(columnDefinition = "JSON")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private String lines;
+    
+    @Column
+    private Integer refinedLines;
+    
+    @Column
+    private Integer confidence;
+    
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column
+    private Long processingMillis;
+    
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public PageResult() {}
+    
+    public PageResult(Document document, Integer pageNumber) {
+        this.document = document;
+        this.pageNumber = pageNumber;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Document getDocument() { return document; }
+    public void setDocument(Document document) { this.document = document; }
+    
+    public Integer getPageNumber() { return pageNumber; }
+    public void setPageNumber(Integer pageNumber) { this.pageNumber = pageNumber; }
+    
+    public PageStatus getStatus() { return status; }
+    public void setStatus(PageStatus status) { this.status = status; }
+    
+    public String getLines() { return lines; }
+    public void setLines(String lines) { this.lines = lines; }
+    
+    public Integer getRefinedLines() { return refinedLines; }
+    public void setRefinedLines(Integer refinedLines) { this.refinedLines = refinedLines; }
+    
+    public Integer getConfidence() { return confidence; }
+    public void setConfidence(Integer confidence) { this.confidence = confidence; }
+    
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    
+    public Long getProcessingMillis() { return processingMillis; }
+    public void setProcessingMillis(Long processingMillis) { this.processingMillis = processingMillis; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public enum PageStatus {
+        COMPLETED,
+        FAILED
+    }
+}
\ No newline at end of file
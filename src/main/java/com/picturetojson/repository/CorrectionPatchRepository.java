@@ -0,0 +1,15 @@
+package com.picturetojson.repository;
+
+import com.picturetojson.entity.CorrectionPatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CorrectionPatchRepository extends JpaRepository<CorrectionPatch, Long> {
+    
+    List<CorrectionPatch> findByDocumentIdOrderByVersionAsc(Long documentId);
+    
+    List<CorrectionPatch> findByDocumentIdAndVersionGreaterThanOrderByVersionAsc(Long documentId, Integer version);
+}
\ No newline at end of file
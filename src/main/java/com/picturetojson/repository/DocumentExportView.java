@@ -0,0 +1,31 @@
+package com.picturetojson.repository;
+
+import com.picturetojson.entity.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the columns written by the NDJSON export.
+ */
+public interface DocumentExportView {
+
+    Long getId();
+
+    String getOriginalFilename();
+
+    Document.ProcessingStatus getStatus();
+
+    Integer getOcrConfidence();
+
+    String getExtractedJson();
+
+    String getCorrectedJson();
+
+    Integer getSnapshotVersion();
+
+    Integer getCorrectionVersion();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,19 @@
+package com.picturetojson.repository;
+
+/**
+ * Read-only projection of the columns needed to rebuild the search index.
+ */
+public interface DocumentIndexView {
+    
+    Long getId();
+    
+    String getExtractedText();
+    
+    String getExtractedJson();
+    
+    String getCorrectedJson();
+    
+    Integer getSnapshotVersion();
+    
+    Integer getCorrectionVersion();
+}
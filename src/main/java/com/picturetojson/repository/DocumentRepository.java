@@ -1,18 +1,29 @@
 package com.picturetojson.repository;
 
 import com.picturetojson.entity.Document;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long> {
     
+    String EXPORT_FETCH_SIZE = "500";
+    
     List<Document> findByStatus(Document.ProcessingStatus status);
     
     Page<Document> findByStatusOrderByCreatedAtDesc(Document.ProcessingStatus status, Pageable pageable);
@@ -24,4 +35,75 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     long countByStatus(@Param("status") Document.ProcessingStatus status);
     
     List<Document> findByOriginalFilenameContainingIgnoreCase(String filename);
+    
+    @Query("SELECT d.id FROM Document d WHERE d.status = :status AND d.clientId = :clientId ORDER BY d.id")
+    List<Long> findIdsByStatusAndClientId(@Param("status") Document.ProcessingStatus status,
+                                          @Param("clientId") String clientId);
+    
+    @Query("SELECT d.status FROM Document d WHERE d.id = :id")
+    Optional<Document.ProcessingStatus> findStatusById(@Param("id") Long id);
+    
+    /**
+     * Move a document to a new status only if it is still in one of the expected ones
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Document d SET d.status = :to, d.errorMessage = :message, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.status IN :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<Document.ProcessingStatus> from,
+                         @Param("to") Document.ProcessingStatus to,
+                         @Param("message") String message,
+                         @Param("now") LocalDateTime now);
+    
+    /**
+     * Store the results of a run and mark the document COMPLETED, only if it is still PROCESSING,
+     * so a cancellation recorded meanwhile by another instance is never overwritten
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Document d SET d.status = :completed, d.extractedText = :text, d.extractedJson = :json, " +
+           "d.ocrConfidence = :confidence, d.processingProgress = 100, d.errorMessage = NULL, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.status = :processing")
+    int completeProcessing(@Param("id") Long id,
+                           @Param("text") String text,
+                           @Param("json") String json,
+                           @Param("confidence") Integer confidence,
+                           @Param("processing") Document.ProcessingStatus processing,
+                           @Param("completed") Document.ProcessingStatus completed,
+                           @Param("now") LocalDateTime now);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.id AS id, d.originalFilename AS originalFilename, d.status AS status, " +
+           "d.ocrConfidence AS ocrConfidence, d.extractedJson AS extractedJson, d.correctedJson AS correctedJson, " +
+           "d.snapshotVersion AS snapshotVersion, d.correctionVersion AS correctionVersion, " +
+           "d.createdAt AS createdAt, d.updatedAt AS updatedAt " +
+           "FROM Document d WHERE d.createdAt >= :from AND d.createdAt < :to ORDER BY d.id")
+    Stream<DocumentExportView> streamForExport(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.id AS id, d.originalFilename AS originalFilename, d.status AS status, " +
+           "d.ocrConfidence AS ocrConfidence, d.extractedJson AS extractedJson, d.correctedJson AS correctedJson, " +
+           "d.snapshotVersion AS snapshotVersion, d.correctionVersion AS correctionVersion, " +
+           "d.createdAt AS createdAt, d.updatedAt AS updatedAt " +
+           "FROM Document d WHERE d.status = :status AND d.createdAt >= :from AND d.createdAt < :to ORDER BY d.id")
+    Stream<DocumentExportView> streamForExport(@Param("status") Document.ProcessingStatus status,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.id AS id, d.extractedText AS extractedText, d.extractedJson AS extractedJson, " +
+           "d.correctedJson AS correctedJson, d.snapshotVersion AS snapshotVersion, " +
+           "d.correctionVersion AS correctionVersion FROM Document d WHERE d.extractedJson IS NOT NULL")
+    Stream<DocumentIndexView> streamForIndexing();
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.picturetojson.repository;
 
 import com.picturetojson.entity.FieldMapping;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +18,16 @@ public interface FieldMappingRepository extends JpaRepository<FieldMapping, Long
     List<FieldMapping> findBySourceField(String sourceField);
     
     List<FieldMapping> findByTargetField(String targetField);
+    
+    List<FieldMapping> findByTargetFieldOrderByIdDesc(String targetField, Pageable pageable);
+    
+    List<FieldMapping> findByTargetFieldAndExtractedValueOrderByIdDesc(String targetField, String extractedValue,
+                                                                       Pageable pageable);
+    
+    List<FieldMapping> findByTargetFieldAndConfidenceLessThanOrderByConfidenceAsc(String targetField, Integer confidence,
+                                                                                  Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM FieldMapping f WHERE f.document.id = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.picturetojson.repository;
+
+import com.picturetojson.entity.PageResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PageResultRepository extends JpaRepository<PageResult, Long> {
+    
+    List<PageResult> findByDocumentIdAndStatusOrderByPageNumberAsc(Long documentId, PageResult.PageStatus status);
+    
+    Optional<PageResult> findByDocumentIdAndPageNumber(Long documentId, Integer pageNumber);
+    
+    @Modifying
+    @Query("DELETE FROM PageResult p WHERE p.document.id = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
+}
\ No newline at end of file
@@ -0,0 +1,311 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.dto.BulkCorrectionResponseDto;
+import com.picturetojson.dto.BulkCorrectionResponseDto.ItemResult;
+import com.picturetojson.dto.BulkCorrectionResponseDto.ItemStatus;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies many full-document corrections from one streamed request.
+ * <p>
+ * The body is read token by token, so neither the request nor the corrected documents are built as
+ * trees. Items are applied in chunks: one query for the current versions, then batched JDBC updates
+ * and patch inserts in a single transaction per chunk.
+ */
+@Service
+public class BulkCorrectionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkCorrectionService.class);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final JsonGenerationService jsonGenerationService;
+    private final CorrectionService correctionService;
+    private final DocumentRepository documentRepository;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final DocumentCache documentCache;
+    private final int chunkSize;
+    
+    private final String updateDocumentSql;
+    private final String insertPatchSql;
+    
+    public BulkCorrectionService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 JsonGenerationService jsonGenerationService,
+                                 CorrectionService correctionService,
+                                 DocumentRepository documentRepository,
+                                 DocumentSearchIndex documentSearchIndex,
+                                 DocumentCache documentCache,
+                                 @Value("${app.corrections.bulk-chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.jsonGenerationService = jsonGenerationService;
+        this.correctionService = correctionService;
+        this.documentRepository = documentRepository;
+        this.documentSearchIndex = documentSearchIndex;
+        this.documentCache = documentCache;
+        this.chunkSize = Math.max(chunkSize, 1);
+        
+        // Text bound to a JSON column must be marked as JSON, or it is stored as a JSON string
+        String jsonParameter = isPostgres() ? "CAST(? AS json)" : "? FORMAT JSON";
+        this.updateDocumentSql = "UPDATE documents SET corrected_json = " + jsonParameter + ", " +
+            "correction_version = ?, snapshot_version = ?, status = ?, updated_at = ? " +
+            "WHERE id = ? AND correction_version = ?";
+        this.insertPatchSql = "INSERT INTO correction_patches (document_id, version, patch, created_at) " +
+            "VALUES (?, ?, " + jsonParameter + ", ?)";
+    }
+    
+    /**
+     * Read a JSON array of {@code {"documentId", "correctedJson", "expectedVersion"}} items and apply them.
+     * <p>
+     * {@code correctedJson} may be an embedded object or a string holding JSON. A malformed body stops
+     * reading; items before that point are still applied and reported.
+     */
+    public BulkCorrectionResponseDto applyCorrections(InputStream inputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        BulkCorrectionResponseDto response = new BulkCorrectionResponseDto();
+        List<PendingCorrection> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of corrections");
+            }
+            
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                PendingCorrection item = readItem(parser, index++);
+                if (item.error != null) {
+                    response.addResult(new ItemResult(item.index, item.documentId, ItemStatus.INVALID, null, item.error));
+                    continue;
+                }
+                
+                chunk.add(item);
+                if (chunk.size() >= chunkSize) {
+                    applyChunk(chunk, response);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            response.setError("Malformed request body at item " + (index - 1) + ": " + e.getOriginalMessage());
+        }
+        
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, response);
+        }
+        
+        response.getResults().sort(Comparator.comparingInt(ItemResult::getIndex));
+        logger.info("Bulk corrections: {} applied, {} rejected in {} ms",
+            response.getApplied(), response.getRejected(), System.currentTimeMillis() - start);
+        return response;
+    }
+    
+    private PendingCorrection readItem(JsonParser parser, int index) throws IOException {
+        PendingCorrection item = new PendingCorrection(index);
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            item.error = "Expected an object";
+            return item;
+        }
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "documentId":
+                    item.documentId = token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+                    break;
+                case "expectedVersion":
+                    item.expectedVersion = token == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+                    break;
+                case "correctedJson":
+                    item.correctedJson = readCorrectedJson(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        
+        if (item.documentId == null) {
+            item.error = "documentId is required";
+        } else if (item.correctedJson == null) {
+            item.error = "correctedJson must be a JSON object, array or a string holding valid JSON";
+        }
+        return item;
+    }
+    
+    /**
+     * Copy an embedded value token by token, or validate a string value with the streaming parser
+     */
+    private String readCorrectedJson(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return writer.toString();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String json = parser.getText();
+            return jsonGenerationService.isValidJson(json) ? json : null;
+        }
+        parser.skipChildren();
+        return null;
+    }
+    
+    private void applyChunk(List<PendingCorrection> chunk, BulkCorrectionResponseDto response) {
+        Set<Long> ids = new LinkedHashSet<>();
+        chunk.forEach(item -> ids.add(item.documentId));
+        Map<Long, Integer> versions = currentVersions(ids);
+        
+        // Versions are assigned in request order, so repeated ids within a chunk chain correctly
+        List<PendingCorrection> accepted = new ArrayList<>();
+        for (PendingCorrection item : chunk) {
+            Integer current = versions.get(item.documentId);
+            if (current == null) {
+                response.addResult(new ItemResult(item.index, item.documentId, ItemStatus.NOT_FOUND, null,
+                    "Document not found"));
+            } else if (item.expectedVersion != null && !item.expectedVersion.equals(current)) {
+                response.addResult(new ItemResult(item.index, item.documentId, ItemStatus.CONFLICT, current,
+                    "Document is at correction version " + current));
+            } else {
+                item.version = current + 1;
+                versions.put(item.documentId, item.version);
+                accepted.add(item);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        
+        Set<PendingCorrection> applied = new HashSet<>(transactionTemplate.execute(status -> write(accepted)));
+        for (PendingCorrection item : accepted) {
+            if (applied.contains(item)) {
+                response.addResult(new ItemResult(item.index, item.documentId, ItemStatus.APPLIED, item.version, null));
+            } else {
+                response.addResult(new ItemResult(item.index, item.documentId, ItemStatus.CONFLICT, null,
+                    "Document was modified concurrently"));
+            }
+        }
+        refresh(applied);
+    }
+    
+    private Map<Long, Integer> currentVersions(Set<Long> ids) {
+        Map<Long, Integer> versions = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, correction_version FROM documents WHERE id IN (:ids)",
+            new MapSqlParameterSource("ids", ids),
+            row -> {
+                versions.put(row.getLong(1), row.getInt(2));
+            });
+        return versions;
+    }
+    
+    private List<PendingCorrection> write(List<PendingCorrection> accepted) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        // The version check in the WHERE clause skips rows changed since they were read
+        int[][] counts = jdbcTemplate.batchUpdate(updateDocumentSql, accepted, chunkSize, (statement, item) -> {
+            statement.setString(1, item.correctedJson);
+            statement.setInt(2, item.version);
+            statement.setInt(3, item.version);
+            statement.setString(4, Document.ProcessingStatus.CORRECTED.name());
+            statement.setTimestamp(5, now);
+            statement.setLong(6, item.documentId);
+            statement.setInt(7, item.version - 1);
+        });
+        
+        List<PendingCorrection> applied = new ArrayList<>();
+        int position = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Some drivers report SUCCESS_NO_INFO instead of a row count; EXECUTE_FAILED is not applied
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    applied.add(accepted.get(position));
+                }
+                position++;
+            }
+        }
+        
+        // Full replacements are stored as a root replace; the row above is already their snapshot
+        jdbcTemplate.batchUpdate(insertPatchSql, applied, chunkSize, (statement, item) -> {
+            statement.setLong(1, item.documentId);
+            statement.setInt(2, item.version);
+            statement.setString(3, "[{\"op\":\"replace\",\"path\":\"\",\"value\":" + item.correctedJson + "}]");
+            statement.setTimestamp(4, now);
+        });
+        return applied;
+    }
+    
+    /**
+     * Drop cached views and re-index; both can be rebuilt, so failures only log
+     */
+    private void refresh(Set<PendingCorrection> applied) {
+        Set<Long> ids = new LinkedHashSet<>();
+        applied.forEach(item -> ids.add(item.documentId));
+        ids.forEach(correctionService::evict);
+        ids.forEach(documentCache::evict);
+        
+        try {
+            for (Document document : documentRepository.findAllById(ids)) {
+                documentSearchIndex.index(document, correctionService.getCorrectedJson(document));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to update search index after bulk corrections", e);
+        }
+    }
+    
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+    
+    private static final class PendingCorrection {
+        
+        private final int index;
+        private Long documentId;
+        private Integer expectedVersion;
+        private String correctedJson;
+        private String error;
+        private int version;
+        
+        PendingCorrection(int index) {
+            this.index = index;
+        }
+    }
+}
\ No newline at end of file
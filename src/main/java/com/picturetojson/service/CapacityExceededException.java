@@ -0,0 +1,18 @@
+package com.picturetojson.service;
+
+/**
+ * No capacity freed up in time for a synchronous request; it may retry after the given number of seconds.
+ */
+public class CapacityExceededException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public CapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
\ No newline at end of file
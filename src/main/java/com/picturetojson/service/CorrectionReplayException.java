@@ -0,0 +1,11 @@
+package com.picturetojson.service;
+
+/**
+ * The stored corrections of a document could not be replayed up to its current version.
+ */
+public class CorrectionReplayException extends RuntimeException {
+    
+    public CorrectionReplayException(Long documentId, int correctionVersion, Throwable cause) {
+        super("Failed to replay corrections of document " + documentId + " up to version " + correctionVersion, cause);
+    }
+}
\ No newline at end of file
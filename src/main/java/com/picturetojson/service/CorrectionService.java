@@ -0,0 +1,252 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picturetojson.dto.CorrectionVersionDto;
+import com.picturetojson.entity.CorrectionPatch;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.CorrectionPatchRepository;
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stores corrections as RFC 6902 patches against the extracted JSON.
+ * <p>
+ * Each correction is one numbered patch row. {@code Document.correctedJson} holds a snapshot of the
+ * corrected document at {@code snapshotVersion}; newer versions are replayed from the patch rows and
+ * the result is cached per document, so reads rarely re-parse or replay anything.
+ */
+@Service
+public class CorrectionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CorrectionService.class);
+    
+    private final DocumentRepository documentRepository;
+    private final CorrectionPatchRepository correctionPatchRepository;
+    private final JsonPatchService jsonPatchService;
+    private final ObjectMapper objectMapper;
+    private final int snapshotInterval;
+    
+    // Document id -> materialized corrected document at a given version
+    private final Cache<Long, MaterializedView> views;
+    
+    public CorrectionService(DocumentRepository documentRepository,
+                             CorrectionPatchRepository correctionPatchRepository,
+                             JsonPatchService jsonPatchService,
+                             ObjectMapper objectMapper,
+                             @Value("${app.corrections.snapshot-interval:10}") int snapshotInterval,
+                             @Value("${app.corrections.view-cache-size:10000}") long viewCacheSize,
+                             @Value("${app.corrections.view-cache-ttl:30m}") Duration viewCacheTtl) {
+        this.documentRepository = documentRepository;
+        this.correctionPatchRepository = correctionPatchRepository;
+        this.jsonPatchService = jsonPatchService;
+        this.objectMapper = objectMapper;
+        this.snapshotInterval = Math.max(snapshotInterval, 1);
+        this.views = Caffeine.newBuilder()
+            .maximumSize(viewCacheSize)
+            .expireAfterAccess(viewCacheTtl)
+            .build();
+    }
+    
+    /**
+     * Apply a JSON patch on top of the current corrections.
+     *
+     * @param expectedVersion when set, the version the patch was written against
+     * @throws DocumentNotFoundException if there is no such document
+     * @throws IllegalArgumentException if the patch is malformed or does not apply
+     * @throws IllegalStateException if the document has moved past {@code expectedVersion}
+     */
+    @Transactional
+    public Document applyPatch(Long documentId, String patchJson, Integer expectedVersion) {
+        Document document = documentRepository.findById(documentId)
+            .orElseThrow(() -> new DocumentNotFoundException(documentId));
+        if (expectedVersion != null && !expectedVersion.equals(document.getCorrectionVersion())) {
+            throw new IllegalStateException("Document " + documentId + " is at correction version "
+                + document.getCorrectionVersion() + ", not " + expectedVersion);
+        }
+        
+        JsonNode patch = readJson(patchJson, "JSON patch");
+        JsonNode corrected = jsonPatchService.apply(materialize(document), patch);
+        return storeVersion(document, patch, corrected, false);
+    }
+    
+    /**
+     * Replace the corrections with a full document, stored as a root replace plus a snapshot
+     */
+    @Transactional
+    public Document replaceCorrections(Long documentId, String correctedJson) {
+        Document document = documentRepository.findById(documentId)
+            .orElseThrow(() -> new DocumentNotFoundException(documentId));
+        
+        JsonNode corrected = readJson(correctedJson, "JSON");
+        ArrayNode patch = objectMapper.createArrayNode();
+        patch.addObject()
+            .put("op", "replace")
+            .put("path", "")
+            .set("value", corrected);
+        return storeVersion(document, patch, corrected, true);
+    }
+    
+    private Document storeVersion(Document document, JsonNode patch, JsonNode corrected, boolean snapshot) {
+        int version = document.getCorrectionVersion() + 1;
+        correctionPatchRepository.save(new CorrectionPatch(document, version, patch.toString()));
+        
+        String correctedJson = corrected.toString();
+        document.setCorrectionVersion(version);
+        if (snapshot || version - document.getSnapshotVersion() >= snapshotInterval) {
+            document.setCorrectedJson(correctedJson);
+            document.setSnapshotVersion(version);
+        }
+        document.setStatus(Document.ProcessingStatus.CORRECTED);
+        document = documentRepository.save(document);
+        
+        publishView(document.getId(), new MaterializedView(version, corrected, correctedJson));
+        logger.debug("Stored correction version {} for document ID: {}", version, document.getId());
+        return document;
+    }
+    
+    // Readers must not see a version before it is committed, nor one that was rolled back
+    private void publishView(Long documentId, MaterializedView view) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            views.put(documentId, view);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                views.put(documentId, view);
+            }
+        });
+    }
+    
+    /**
+     * Corrected JSON at the document's current version, or null when it has never been corrected
+     */
+    public String getCorrectedJson(Document document) {
+        return getCorrectedJson(document.getId(), document.getExtractedJson(), document.getCorrectedJson(),
+            document.getSnapshotVersion(), document.getCorrectionVersion());
+    }
+    
+    /**
+     * Corrected JSON from raw column values, for callers working with projections
+     *
+     * @throws CorrectionReplayException if the patches after the snapshot do not replay; the older
+     *         snapshot is never returned in place of the current version
+     */
+    public String getCorrectedJson(Long documentId, String extractedJson, String snapshotJson,
+                                   Integer snapshotVersion, Integer correctionVersion) {
+        if (correctionVersion == null || correctionVersion.equals(snapshotVersion)) {
+            return snapshotJson;
+        }
+        try {
+            return view(documentId, extractedJson, snapshotJson, snapshotVersion, correctionVersion).json();
+        } catch (RuntimeException e) {
+            throw new CorrectionReplayException(documentId, correctionVersion, e);
+        }
+    }
+    
+    /**
+     * Correction history, oldest first
+     */
+    public List<CorrectionVersionDto> getHistory(Long documentId) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new DocumentNotFoundException(documentId);
+        }
+        return correctionPatchRepository.findByDocumentIdOrderByVersionAsc(documentId).stream()
+            .map(CorrectionVersionDto::new)
+            .collect(Collectors.toList());
+    }
+    
+    public void evict(Long documentId) {
+        views.invalidate(documentId);
+    }
+    
+    private JsonNode materialize(Document document) {
+        return view(document.getId(), document.getExtractedJson(), document.getCorrectedJson(),
+            document.getSnapshotVersion(), document.getCorrectionVersion()).node();
+    }
+    
+    private MaterializedView view(Long documentId, String extractedJson, String snapshotJson,
+                                  int snapshotVersion, int correctionVersion) {
+        MaterializedView cached = views.getIfPresent(documentId);
+        if (cached != null && cached.version() == correctionVersion) {
+            return cached;
+        }
+        
+        // Replay from the cached view when it is newer than the snapshot, otherwise from the snapshot
+        JsonNode node;
+        int fromVersion;
+        if (cached != null && cached.version() > snapshotVersion && cached.version() < correctionVersion) {
+            node = cached.node();
+            fromVersion = cached.version();
+        } else {
+            node = baseDocument(extractedJson, snapshotJson);
+            fromVersion = snapshotVersion;
+        }
+        
+        if (fromVersion < correctionVersion) {
+            List<CorrectionPatch> patches = correctionPatchRepository
+                .findByDocumentIdAndVersionGreaterThanOrderByVersionAsc(documentId, fromVersion);
+            for (CorrectionPatch correctionPatch : patches) {
+                if (correctionPatch.getVersion() > correctionVersion) {
+                    break;
+                }
+                node = jsonPatchService.apply(node, readJson(correctionPatch.getPatch(), "stored JSON patch"));
+            }
+        }
+        
+        MaterializedView view = new MaterializedView(correctionVersion, node, node.toString());
+        views.put(documentId, view);
+        return view;
+    }
+    
+    private JsonNode baseDocument(String extractedJson, String snapshotJson) {
+        // Corrections written before versioning are snapshots at version 0
+        if (snapshotJson != null) {
+            return readJson(snapshotJson, "stored JSON");
+        }
+        return extractedJson != null ? readJson(extractedJson, "stored JSON") : objectMapper.createObjectNode();
+    }
+    
+    private JsonNode readJson(String json, String description) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid " + description + ": " + e.getOriginalMessage(), e);
+        }
+    }
+    
+    /**
+     * Corrected document at a version; the node is shared and must not be modified
+     */
+    private static final class MaterializedView {
+        
+        private final int version;
+        private final JsonNode node;
+        private final String json;
+        
+        MaterializedView(int version, JsonNode node, String json) {
+            this.version = version;
+            this.node = node;
+            this.json = json;
+        }
+        
+        int version() { return version; }
+        JsonNode node() { return node; }
+        String json() { return json; }
+    }
+}
\ No newline at end of file
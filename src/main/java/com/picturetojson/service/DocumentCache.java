@@ -0,0 +1,67 @@
+package com.picturetojson.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picturetojson.config.ReplicaProperties;
+import com.picturetojson.dto.DocumentResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of document views.
+ * <p>
+ * Every write to a document must call {@link #evict(Long)} after it is committed. Loads go through
+ * {@link Cache#get}, and an eviction waits for an in-flight load of the same id, so a view read
+ * just before a commit cannot be left behind in the cache. With a read replica configured, evicted
+ * ids are also remembered so their next load can skip a replica that may not have the write yet and
+ * would otherwise put the old view back for the whole TTL. The lag is only measured every check
+ * interval, so a replica still in use can be up to the maximum lag plus one check interval behind;
+ * ids are kept that long. That set is bounded by time only, so a burst of writes never drops an id
+ * early.
+ */
+@Component
+public class DocumentCache {
+    
+    private final Cache<Long, DocumentResponseDto> documents;
+    private final Cache<Long, Boolean> recentlyWritten;
+    
+    public DocumentCache(@Value("${app.cache.documents.max-size:5000}") long maxSize,
+                         @Value("${app.cache.documents.ttl:10m}") Duration ttl,
+                         ReplicaProperties replicaProperties,
+                         MeterRegistry meterRegistry) {
+        this.documents = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "documents");
+        this.recentlyWritten = replicaProperties.isConfigured()
+            ? Caffeine.newBuilder()
+                .expireAfterWrite(replicaProperties.getMaxLag().plus(replicaProperties.getCheckInterval()))
+                .build()
+            : null;
+    }
+    
+    public DocumentResponseDto get(Long id, Function<Long, DocumentResponseDto> loader) {
+        return documents.get(id, loader);
+    }
+    
+    public void evict(Long id) {
+        if (recentlyWritten != null) {
+            recentlyWritten.put(id, Boolean.TRUE);
+        }
+        documents.invalidate(id);
+    }
+    
+    /**
+     * Whether the document was written recently enough that a read replica may not have it yet
+     */
+    public boolean isRecentlyWritten(Long id) {
+        return recentlyWritten != null && recentlyWritten.getIfPresent(id) != null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.ConvertProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts a document held in memory straight to JSON for a waiting request.
+ * <p>
+ * Nothing is persisted: the bytes are decoded, recognized and extracted while the request waits,
+ * with no upload file, {@code Document} row, checkpoint or progress update along the way. A
+ * semaphore bounds the conversions running at once so interactive requests cannot starve the
+ * OCR engines, and the whole run shares one deadline. Conversions run on a pool of one thread
+ * per slot rather than on the request threads, so OCR state is confined to those threads.
+ */
+@Service
+public class DocumentConversionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DocumentConversionService.class);
+    
+    private final PageRecognitionService pageRecognitionService;
+    private final ZonalOcrService zonalOcrService;
+    private final JsonGenerationService jsonGenerationService;
+    private final ConvertProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore slots;
+    private final ExecutorService conversionExecutor;
+    
+    public DocumentConversionService(PageRecognitionService pageRecognitionService, ZonalOcrService zonalOcrService,
+                                     JsonGenerationService jsonGenerationService, ConvertProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.pageRecognitionService = pageRecognitionService;
+        this.zonalOcrService = zonalOcrService;
+        this.jsonGenerationService = jsonGenerationService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slots = new Semaphore(properties.effectiveMaxConcurrent(), true);
+        AtomicInteger threads = new AtomicInteger();
+        this.conversionExecutor = Executors.newFixedThreadPool(properties.effectiveMaxConcurrent(), runnable -> {
+            Thread thread = new Thread(runnable, "Convert-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Recognize and extract a whole document for a client; the form type is detected when not given.
+     * The body is read up to {@code max-size} only once a slot is held, so requests waiting for one
+     * buffer nothing.
+     */
+    public ConversionResult convert(InputStream body, String contentType, String formType, String clientId)
+            throws IOException, TesseractException {
+        if (contentType == null || !DocumentProcessingService.isValidContentType(contentType)) {
+            throw new IllegalArgumentException("Unsupported file type: " + contentType);
+        }
+        if (formType != null && !zonalOcrService.hasLayout(formType)) {
+            throw new IllegalArgumentException("Unknown form type: " + formType);
+        }
+        
+        acquireSlot();
+        long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            long maxSize = properties.getMaxSize();
+            byte[] data = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxSize + 1));
+            if (data.length > maxSize) {
+                throw new MaxUploadSizeExceededException(maxSize);
+            }
+            if (data.length == 0) {
+                throw new IllegalArgumentException("Request body is empty");
+            }
+            ProcessingControl control = new ProcessingControl(properties.getTimeout(), null);
+            control.setClientId(clientId);
+            ConversionResult result = runOnConversionThread(data, contentType, formType, control);
+            outcome = "completed";
+            logger.debug("Converted {} bytes of {} ({} pages) in {} ms", data.length, contentType, result.getPages(),
+                (System.nanoTime() - start) / 1_000_000);
+            return result;
+        } catch (ProcessingStoppedException e) {
+            outcome = "timed_out";
+            throw e;
+        } finally {
+            slots.release();
+            timer(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Run on a conversion thread while the request thread waits; the slot held guarantees a free thread
+     */
+    private ConversionResult runOnConversionThread(byte[] data, String contentType, String formType,
+                                                   ProcessingControl control) throws IOException, TesseractException {
+        Future<ConversionResult> future = conversionExecutor.submit(() -> run(data, contentType, formType, control));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // The request is gone; stop the run at its next check
+            control.cancel();
+            Thread.currentThread().interrupt();
+            throw new TesseractException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TesseractException tesseractException) {
+                throw tesseractException;
+            } else if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new TesseractException(e.getCause());
+        }
+    }
+    
+    private ConversionResult run(byte[] data, String contentType, String formType, ProcessingControl control)
+            throws IOException, TesseractException {
+        FieldAccumulator accumulator = new FieldAccumulator();
+        List<OcrResult.Line> lines = new ArrayList<>();
+        
+        if (PageSource.isPaged(contentType)) {
+            try (PageSource pages = PageSource.open(data, contentType)) {
+                if (formType == null) {
+                    formType = pageRecognitionService.classifyPage(pages, control);
+                }
+                for (int page = 0; page < pages.getPageCount(); page++) {
+                    OcrResult result = pageRecognitionService.recognizePage(pages, page, formType, control);
+                    accumulator.addPage(page + 1, extractFields(formType, page + 1, result), result);
+                    lines.addAll(result.getLines());
+                }
+            }
+        } else {
+            if (formType == null) {
+                formType = pageRecognitionService.classifyImage(data, control);
+            }
+            OcrResult result = pageRecognitionService.recognizeImage(data, formType, control);
+            accumulator.addPage(1, extractFields(formType, 1, result), result);
+            lines.addAll(result.getLines());
+        }
+        
+        String json = jsonGenerationService.generateJson(accumulator.getFields());
+        return new ConversionResult(json, formType, accumulator.getPages(), new OcrResult(lines, 0).getConfidence());
+    }
+    
+    private List<ExtractedField> extractFields(String formType, int pageNumber, OcrResult page) {
+        return formType != null
+            ? zonalOcrService.extractFields(formType, pageNumber, page)
+            : jsonGenerationService.extractFields(page.getText());
+    }
+    
+    private void acquireSlot() {
+        try {
+            if (slots.tryAcquire(properties.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timer("rejected").record(0, TimeUnit.NANOSECONDS);
+        throw new CapacityExceededException("All " + properties.effectiveMaxConcurrent()
+            + " conversion slots are busy", Math.max(1, properties.getQueueTimeout().toSeconds()));
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        conversionExecutor.shutdownNow();
+    }
+    
+    private Timer timer(String outcome) {
+        return Timer.builder("documents.convert")
+            .description("Synchronous in-memory conversions by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    public static class ConversionResult {
+        
+        private final String json;
+        private final String formType;
+        private final int pages;
+        private final int confidence;
+        
+        public ConversionResult(String json, String formType, int pages, int confidence) {
+            this.json = json;
+            this.formType = formType;
+            this.pages = pages;
+            this.confidence = confidence;
+        }
+        
+        public String getJson() { return json; }
+        
+        /** Form type given or detected, null when the document was read in full. */
+        public String getFormType() { return formType; }
+        
+        public int getPages() { return pages; }
+        
+        public int getConfidence() { return confidence; }
+    }
+}
\ No newline at end of file
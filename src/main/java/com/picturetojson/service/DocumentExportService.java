@@ -0,0 +1,110 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentExportView;
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class DocumentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentExportService.class);
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int FLUSH_INTERVAL = 200;
+
+    private final DocumentRepository documentRepository;
+    private final ObjectMapper objectMapper;
+    private final CorrectionService correctionService;
+
+    public DocumentExportService(DocumentRepository documentRepository, ObjectMapper objectMapper,
+                                 CorrectionService correctionService) {
+        this.documentRepository = documentRepository;
+        this.objectMapper = objectMapper;
+        this.correctionService = correctionService;
+    }
+
+    /**
+     * Stream extracted results as NDJSON, one document per line.
+     * <p>
+     * Rows come from a server-side cursor as read-only projections, so memory use does not grow
+     * with the size of the export. Must run inside the read-only transaction that keeps the cursor open.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(Document.ProcessingStatus status, LocalDateTime from, LocalDateTime to,
+                             OutputStream outputStream) throws IOException {
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        logger.info("Exporting documents as NDJSON (status: {}, from: {}, to: {})", status, start, end);
+
+        long count = 0;
+        try (Stream<DocumentExportView> rows = status != null
+                ? documentRepository.streamForExport(status, start, end)
+                : documentRepository.streamForExport(start, end);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+
+            // Each line must stand alone; the default separator would put a space between values
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<DocumentExportView> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeRow(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+
+        logger.info("NDJSON export completed: {} documents", count);
+        return count;
+    }
+
+    private void writeRow(JsonGenerator generator, DocumentExportView row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("originalFilename", row.getOriginalFilename());
+        generator.writeStringField("status", row.getStatus().name());
+        if (row.getOcrConfidence() != null) {
+            generator.writeNumberField("ocrConfidence", row.getOcrConfidence());
+        }
+        generator.writeStringField("createdAt", row.getCreatedAt().toString());
+        generator.writeStringField("updatedAt", row.getUpdatedAt().toString());
+        writeJsonField(generator, "extractedJson", row.getExtractedJson());
+        if (row.getCorrectionVersion() != null && row.getCorrectionVersion() > 0) {
+            generator.writeNumberField("correctionVersion", row.getCorrectionVersion());
+        }
+        // Snapshots can trail the latest patches; those rows are replayed (usually from the view cache)
+        writeJsonField(generator, "correctedJson", correctionService.getCorrectedJson(row.getId(),
+            row.getExtractedJson(), row.getCorrectedJson(), row.getSnapshotVersion(), row.getCorrectionVersion()));
+        generator.writeEndObject();
+    }
+
+    /**
+     * Embed a stored JSON value as-is, re-serializing only when it spans several lines
+     */
+    private void writeJsonField(JsonGenerator generator, String name, String json) throws IOException {
+        generator.writeFieldName(name);
+        if (json == null) {
+            generator.writeNull();
+        } else if (json.indexOf('\n') < 0 && json.indexOf('\r') < 0) {
+            generator.writeRawValue(json);
+        } else {
+            generator.writeTree(objectMapper.readTree(json));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.picturetojson.service;
+
+/**
+ * No document with the requested id exists.
+ */
+public class DocumentNotFoundException extends RuntimeException {
+    
+    public DocumentNotFoundException(Long documentId) {
+        super("Document not found: " + documentId);
+    }
+}
\ No newline at end of file
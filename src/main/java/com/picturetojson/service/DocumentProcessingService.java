@@ -1,11 +1,11 @@
 package com.picturetojson.service;
 
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.dto.CorrectionVersionDto;
 import com.picturetojson.dto.DocumentResponseDto;
 import com.picturetojson.entity.Document;
 import com.picturetojson.repository.DocumentRepository;
 import net.sourceforge.tess4j.TesseractException;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,9 +22,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,21 +39,48 @@ public class DocumentProcessingService {
     
     private static final Logger logger = LoggerFactory.getLogger(DocumentProcessingService.class);
     
+    /** Largest accepted file, in bytes. */
+    public static final long MAX_FILE_SIZE = 50 * 1024 * 1024;
+    
     private final DocumentRepository documentRepository;
-    private final OcrService ocrService;
-    private final ImageProcessingService imageProcessingService;
+    private final PageRecognitionService pageRecognitionService;
+    private final ZonalOcrService zonalOcrService;
     private final JsonGenerationService jsonGenerationService;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final CorrectionService correctionService;
+    private final DocumentCache documentCache;
+    private final ReplicaReads replicaReads;
+    private final FieldMappingService fieldMappingService;
+    private final PageCheckpointService pageCheckpointService;
+    private final ProcessingProperties processingProperties;
     private final String uploadDirectory;
     
+    // Runs on this instance, so a cancel request can stop in-flight OCR
+    private final Map<Long, ProcessingControl> runningDocuments = new ConcurrentHashMap<>();
+    
     public DocumentProcessingService(DocumentRepository documentRepository,
-                                   OcrService ocrService,
-                                   ImageProcessingService imageProcessingService,
+                                   PageRecognitionService pageRecognitionService,
+                                   ZonalOcrService zonalOcrService,
                                    JsonGenerationService jsonGenerationService,
+                                   DocumentSearchIndex documentSearchIndex,
+                                   CorrectionService correctionService,
+                                   DocumentCache documentCache,
+                                   ReplicaReads replicaReads,
+                                   FieldMappingService fieldMappingService,
+                                   PageCheckpointService pageCheckpointService,
+                                   ProcessingProperties processingProperties,
                                    @Value("${app.upload.directory}") String uploadDirectory) {
         this.documentRepository = documentRepository;
-        this.ocrService = ocrService;
-        this.imageProcessingService = imageProcessingService;
+        this.pageRecognitionService = pageRecognitionService;
+        this.zonalOcrService = zonalOcrService;
         this.jsonGenerationService = jsonGenerationService;
+        this.documentSearchIndex = documentSearchIndex;
+        this.correctionService = correctionService;
+        this.documentCache = documentCache;
+        this.replicaReads = replicaReads;
+        this.fieldMappingService = fieldMappingService;
+        this.pageCheckpointService = pageCheckpointService;
+        this.processingProperties = processingProperties;
         this.uploadDirectory = uploadDirectory;
         
         // Create upload directory if it doesn't exist
@@ -60,11 +94,14 @@ public class DocumentProcessingService {
     /**
      * Upload and save document for processing
      */
-    public DocumentResponseDto uploadDocument(MultipartFile file) throws IOException {
+    public DocumentResponseDto uploadDocument(MultipartFile file, String clientId, String formType) throws IOException {
         logger.info("Uploading document: {}", file.getOriginalFilename());
         
         // Validate file
         validateFile(file);
+        if (formType != null && !zonalOcrService.hasLayout(formType)) {
+            throw new RuntimeException("Unknown form type: " + formType);
+        }
         
         // Generate unique filename
         String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
@@ -81,6 +118,8 @@ public class DocumentProcessingService {
             file.getSize(),
             filePath.toString()
         );
+        document.setClientId(clientId);
+        document.setFormType(formType);
         
         document = documentRepository.save(document);
         logger.info("Document uploaded and saved with ID: {}", document.getId());
@@ -88,6 +127,15 @@ public class DocumentProcessingService {
         return new DocumentResponseDto(document);
     }
     
+    /**
+     * Register files already placed in the upload directory, in one transaction
+     */
+    public List<Document> registerDocuments(List<Document> documents) {
+        List<Document> saved = documentRepository.saveAll(documents);
+        logger.debug("Registered {} documents", saved.size());
+        return saved;
+    }
+    
     /**
      * Process single document asynchronously
      */
@@ -95,156 +143,295 @@ public class DocumentProcessingService {
     public CompletableFuture<DocumentResponseDto> processDocumentAsync(Long documentId) {
         logger.info("Starting async processing for document ID: {}", documentId);
         
+        ProcessingControl control = startControl(documentId);
+        ProcessingEvents.DocumentProcessing event = new ProcessingEvents.DocumentProcessing();
+        event.begin();
         try {
             Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+            control.setClientId(document.getClientId());
+            event.contentType = document.getContentType();
+            event.fileSize = document.getFileSize();
+            if (document.getStatus() == Document.ProcessingStatus.CANCELLED) {
+                logger.info("Document ID: {} was cancelled before processing started", documentId);
+                event.status = Document.ProcessingStatus.CANCELLED.name();
+                return CompletableFuture.completedFuture(toDto(document));
+            }
+            control.checkpoint();
             
             document.setStatus(Document.ProcessingStatus.PROCESSING);
             document.setProcessingProgress(10);
-            document = documentRepository.save(document);
+            document = saveDocument(document);
             
             // Process the document
-            processDocument(document);
+            event.pages = processDocument(document, control);
+            event.status = Document.ProcessingStatus.COMPLETED.name();
             
-            return CompletableFuture.completedFuture(new DocumentResponseDto(document));
-        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toDto(document));
+        } catch (ProcessingStoppedException e) {
+            event.status = e.getStatus().name();
+            return CompletableFuture.completedFuture(recordStopped(documentId, e));
+        } catch (Exception | LinkageError e) {
             logger.error("Error processing document ID: {}", documentId, e);
+            event.status = Document.ProcessingStatus.FAILED.name();
             
             Document document = documentRepository.findById(documentId).orElse(null);
             if (document != null) {
                 document.setStatus(Document.ProcessingStatus.FAILED);
                 document.setErrorMessage(e.getMessage());
-                documentRepository.save(document);
+                saveDocument(document);
             }
             
             throw new RuntimeException("Document processing failed", e);
+        } finally {
+            runningDocuments.remove(documentId, control);
+            event.end();
+            if (event.shouldCommit()) {
+                event.documentId = documentId;
+                event.commit();
+            }
         }
     }
     
     /**
-     * Process multiple documents in batch
+     * Mark documents as queued before their processing task is submitted, so a document cancelled
+     * earlier can be processed again while a cancelled queued task still sees CANCELLED
      */
-    @Async
-    public CompletableFuture<List<DocumentResponseDto>> processBatchAsync(List<Long> documentIds) {
-        logger.info("Starting batch processing for {} documents", documentIds.size());
-        
-        List<DocumentResponseDto> results = documentIds.stream()
-            .map(this::processDocumentSync)
-            .collect(Collectors.toList());
-        
-        logger.info("Batch processing completed for {} documents", documentIds.size());
-        return CompletableFuture.completedFuture(results);
+    public void markPending(List<Long> documentIds) {
+        for (Long documentId : documentIds) {
+            documentRepository.transitionStatus(documentId,
+                EnumSet.complementOf(EnumSet.of(Document.ProcessingStatus.PENDING, Document.ProcessingStatus.PROCESSING)),
+                Document.ProcessingStatus.PENDING, null, LocalDateTime.now());
+            documentCache.evict(documentId);
+        }
     }
     
     /**
-     * Process document synchronously
+     * Stop a document: a run on this instance is signalled and records CANCELLED itself as soon as
+     * it reaches a check; a queued document is marked CANCELLED directly
      */
-    private DocumentResponseDto processDocumentSync(Long documentId) {
-        try {
-            Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
-            
-            processDocument(document);
-            return new DocumentResponseDto(document);
-        } catch (Exception e) {
-            logger.error("Error processing document ID: {}", documentId, e);
-            throw new RuntimeException("Document processing failed", e);
+    public DocumentResponseDto cancelDocument(Long documentId) {
+        Document document = documentRepository.findById(documentId)
+            .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+        
+        ProcessingControl control = runningDocuments.get(documentId);
+        if (control == null) {
+            int updated = documentRepository.transitionStatus(documentId,
+                EnumSet.of(Document.ProcessingStatus.PENDING, Document.ProcessingStatus.PROCESSING),
+                Document.ProcessingStatus.CANCELLED, "Processing cancelled", LocalDateTime.now());
+            documentCache.evict(documentId);
+            if (updated == 0) {
+                throw new IllegalStateException("Document " + documentId + " is not pending or processing ("
+                    + document.getStatus() + ")");
+            }
+            // A run may have registered between the lookup and the update
+            control = runningDocuments.get(documentId);
+        }
+        
+        if (control != null) {
+            control.cancel();
+            logger.info("Cancellation requested for running document ID: {}", documentId);
+        } else {
+            logger.info("Document ID: {} cancelled before processing", documentId);
         }
+        return getDocumentById(documentId);
     }
     
     /**
-     * Core document processing logic
+     * Core document processing logic; returns the number of pages read
      */
-    private void processDocument(Document document) throws IOException, TesseractException {
+    private int processDocument(Document document, ProcessingControl control) throws IOException, TesseractException {
         logger.debug("Processing document: {}", document.getFilename());
         
         File file = new File(document.getFilePath());
         if (!file.exists()) {
             throw new IOException("File not found: " + document.getFilePath());
         }
+        control.setDocumentTimeout(processingProperties.documentDeadline(document.getFileSize(), 1));
         
-        // Update progress
+        // Update progress; the JSON of a previous run is replaced page by page
         document.setProcessingProgress(20);
-        documentRepository.save(document);
+        document.setExtractedJson(null);
+        saveDocument(document);
         
-        String extractedText;
+        OcrResult ocrResult;
+        FieldAccumulator accumulator = new FieldAccumulator();
         
-        if (document.getContentType().equals("application/pdf")) {
-            extractedText = processPdfDocument(file, document);
+        if (PageSource.isPaged(document.getContentType())) {
+            ocrResult = processPagedDocument(file, document, control, accumulator);
         } else {
-            extractedText = processImageDocument(file, document);
+            ocrResult = processImageDocument(file, document, control, accumulator);
         }
+        control.checkpoint();
+        String extractedText = ocrResult.getText();
         
-        // Update progress
-        document.setProcessingProgress(70);
-        documentRepository.save(document);
-        
-        // Generate JSON from extracted text
-        String extractedJson = jsonGenerationService.generateJsonFromText(extractedText);
+        // Fields were extracted as each page arrived; only the merged result is stored here
+        List<ExtractedField> fields = accumulator.getFields();
+        String extractedJson = jsonGenerationService.generateJson(fields);
+        persist(document, 0, "fields", extractedJson.length(),
+            () -> fieldMappingService.replaceExtractedFields(document, fields));
         
-        // Update document with results
+        // Update document with results, unless it was cancelled on another instance meanwhile
+        int completed = documentRepository.completeProcessing(document.getId(), extractedText, extractedJson,
+            ocrResult.getConfidence(), Document.ProcessingStatus.PROCESSING, Document.ProcessingStatus.COMPLETED,
+            LocalDateTime.now());
+        documentCache.evict(document.getId());
+        if (completed == 0) {
+            throw new ProcessingStoppedException(Document.ProcessingStatus.CANCELLED, "Processing cancelled");
+        }
         document.setExtractedText(extractedText);
         document.setExtractedJson(extractedJson);
+        document.setOcrConfidence(ocrResult.getConfidence());
         document.setStatus(Document.ProcessingStatus.COMPLETED);
         document.setProcessingProgress(100);
+        document.setErrorMessage(null);
         
-        documentRepository.save(document);
-        logger.info("Document processing completed: {}", document.getFilename());
+        pageCheckpointService.clear(document.getId());
+        updateSearchIndex(document);
+        logger.info("Document processing completed: {} (OCR confidence {}, {} lines re-read)",
+            document.getFilename(), ocrResult.getConfidence(), ocrResult.getRefinedLines());
+        return accumulator.getPages();
     }
     
     /**
-     * Process PDF document
+     * Process a multi-page document (PDF or TIFF) one page at a time
      */
-    private String processPdfDocument(File file, Document document) throws IOException, TesseractException {
-        logger.debug("Processing PDF document: {}", file.getName());
+    private OcrResult processPagedDocument(File file, Document document, ProcessingControl control,
+                                           FieldAccumulator accumulator) throws IOException, TesseractException {
+        logger.debug("Processing {} document: {}", document.getContentType(), file.getName());
         
-        StringBuilder extractedText = new StringBuilder();
+        List<OcrResult.Line> lines = new ArrayList<>();
+        int refinedLines = 0;
+        List<Integer> failedPages = new ArrayList<>();
+        Map<Integer, OcrResult> checkpoints = pageCheckpointService.getCompletedPages(document.getId());
         
-        try (PDDocument pdDocument = PDDocument.load(file)) {
-            PDFRenderer renderer = new PDFRenderer(pdDocument);
+        try (PageSource pages = PageSource.open(file, document.getContentType())) {
+            int pageCount = pages.getPageCount();
+            control.setDocumentTimeout(processingProperties.documentDeadline(document.getFileSize(), pageCount));
+            if (!checkpoints.isEmpty()) {
+                logger.info("Resuming document ID: {} with {} of {} pages already recognized",
+                    document.getId(), checkpoints.size(), pageCount);
+            } else if (document.getFormType() == null) {
+                // Checkpointed pages were read in full, so a resumed document keeps its type
+                assignFormType(document, pageRecognitionService.classifyPage(pages, control));
+            }
             
-            for (int page = 0; page < pdDocument.getNumberOfPages(); page++) {
-                // Update progress
-                int progress = 30 + (page * 30 / pdDocument.getNumberOfPages());
-                document.setProcessingProgress(progress);
-                documentRepository.save(document);
-                
-                // Render page as image
-                BufferedImage image = renderer.renderImageWithDPI(page, 300);
+            for (int page = 0; page < pageCount; page++) {
+                int pageNumber = page + 1;
+                OcrResult pageResult = checkpoints.get(pageNumber);
                 
-                // Preprocess image
-                BufferedImage processedImage = imageProcessingService.preprocessImage(
-                    saveBufferedImageToTempFile(image)
-                );
+                if (pageResult == null) {
+                    checkCancelled(document.getId(), control);
+                    control.startPage();
+                    
+                    // Update progress; the save also publishes the fields of the pages done so far
+                    int progress = 30 + (page * 60 / pageCount);
+                    document.setProcessingProgress(progress);
+                    saveDocument(document);
+                    
+                    // A failed page is recorded and skipped; the retry redoes only the failed pages
+                    long start = System.nanoTime();
+                    try {
+                        OcrResult recognized = pageRecognitionService.recognizePage(pages, page, document.getFormType(), control);
+                        persist(document, pageNumber, "checkpoint", recognized.getText().length(),
+                            () -> pageCheckpointService.saveCompleted(document, pageNumber, recognized,
+                                (System.nanoTime() - start) / 1_000_000));
+                        pageResult = recognized;
+                    } catch (ProcessingStoppedException e) {
+                        throw e;
+                    } catch (IOException | TesseractException | RuntimeException e) {
+                        logger.warn("OCR failed on page {} of document ID: {}", pageNumber, document.getId(), e);
+                        pageCheckpointService.saveFailed(document, pageNumber, e.getMessage(),
+                            (System.nanoTime() - start) / 1_000_000);
+                        failedPages.add(pageNumber);
+                        continue;
+                    }
+                }
                 
-                // Extract text using OCR
-                String pageText = ocrService.extractTextFromImage(processedImage);
-                extractedText.append(pageText).append("\n");
+                lines.addAll(pageResult.getLines());
+                refinedLines += pageResult.getRefinedLines();
+                addPageFields(document, accumulator, pageNumber, pageResult);
             }
         }
         
-        return extractedText.toString().trim();
+        if (!failedPages.isEmpty()) {
+            throw new IOException("OCR failed on page(s) " + failedPages + "; other pages are kept for the retry");
+        }
+        return new OcrResult(lines, refinedLines);
     }
     
     /**
      * Process image document
      */
-    private String processImageDocument(File file, Document document) throws IOException, TesseractException {
+    private OcrResult processImageDocument(File file, Document document, ProcessingControl control,
+                                           FieldAccumulator accumulator) throws IOException, TesseractException {
         logger.debug("Processing image document: {}", file.getName());
+        OcrResult checkpoint = pageCheckpointService.getCompletedPages(document.getId()).get(1);
+        if (checkpoint != null) {
+            logger.info("Resuming document ID: {} with its page already recognized", document.getId());
+            addPageFields(document, accumulator, 1, checkpoint);
+            return checkpoint;
+        }
+        control.startPage();
+        long start = System.nanoTime();
+        if (document.getFormType() == null) {
+            assignFormType(document, pageRecognitionService.classifyImage(file, control));
+        }
         
         // Update progress
         document.setProcessingProgress(30);
-        documentRepository.save(document);
+        saveDocument(document);
         
         // Preprocess image
-        BufferedImage processedImage = imageProcessingService.preprocessImage(file);
+        BufferedImage processedImage = pageRecognitionService.preprocess(file, 1, control);
+        checkCancelled(document.getId(), control);
         
         // Update progress
         document.setProcessingProgress(50);
-        documentRepository.save(document);
+        saveDocument(document);
         
         // Extract text using OCR
-        return ocrService.extractTextFromImage(processedImage);
+        OcrResult result = document.getFormType() != null
+            ? pageRecognitionService.recognizeForm(processedImage, document.getFormType(), 1, control)
+            : pageRecognitionService.recognize(processedImage, 1, control);
+        persist(document, 1, "checkpoint", result.getText().length(),
+            () -> pageCheckpointService.saveCompleted(document, 1, result, (System.nanoTime() - start) / 1_000_000));
+        addPageFields(document, accumulator, 1, result);
+        return result;
+    }
+    
+    /**
+     * Record a form type detected before OCR, so the pages are read with the form's zones
+     */
+    private void assignFormType(Document document, String formType) {
+        if (formType != null) {
+            logger.info("Document ID: {} classified as form type {}", document.getId(), formType);
+            document.setFormType(formType);
+            saveDocument(document);
+        }
+    }
+    
+    /**
+     * Extract fields from one page's text only and merge them into the document's partial JSON,
+     * which the next progress save makes visible while later pages are still being read
+     */
+    private void addPageFields(Document document, FieldAccumulator accumulator, int pageNumber, OcrResult page) {
+        ProcessingEvents.Extraction event = new ProcessingEvents.Extraction();
+        event.begin();
+        // Zones of a known form map straight to fields; other documents are searched for labels
+        List<ExtractedField> fields = document.getFormType() != null
+            ? zonalOcrService.extractFields(document.getFormType(), pageNumber, page)
+            : jsonGenerationService.extractFields(page.getText());
+        accumulator.addPage(pageNumber, fields, page);
+        document.setExtractedJson(jsonGenerationService.generateJson(accumulator.getFields()));
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = document.getId();
+            event.pageNumber = pageNumber;
+            event.characters = page.getText().length();
+            event.fields = fields.size();
+            event.commit();
+        }
     }
     
     /**
@@ -253,48 +440,178 @@ public class DocumentProcessingService {
     public DocumentResponseDto applyCorrections(Long documentId, String correctedJson) {
         logger.info("Applying corrections to document ID: {}", documentId);
         
-        Document document = documentRepository.findById(documentId)
-            .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+        // Parsed once while building the replace patch; invalid JSON is rejected there
+        Document document = correctionService.replaceCorrections(documentId, correctedJson);
+        documentCache.evict(documentId);
+        updateSearchIndex(document);
         
-        // Validate JSON
-        if (!jsonGenerationService.isValidJson(correctedJson)) {
-            throw new RuntimeException("Invalid JSON format");
-        }
+        logger.info("Corrections applied to document ID: {} (version {})", documentId, document.getCorrectionVersion());
+        return toDto(document);
+    }
+    
+    /**
+     * Apply an RFC 6902 JSON patch to the document's current corrections
+     */
+    public DocumentResponseDto applyCorrectionPatch(Long documentId, String patchJson, Integer expectedVersion) {
+        logger.info("Applying correction patch to document ID: {}", documentId);
         
-        document.setCorrectedJson(correctedJson);
-        document.setStatus(Document.ProcessingStatus.CORRECTED);
-        document = documentRepository.save(document);
+        Document document = correctionService.applyPatch(documentId, patchJson, expectedVersion);
+        documentCache.evict(documentId);
+        updateSearchIndex(document);
         
-        logger.info("Corrections applied to document ID: {}", documentId);
-        return new DocumentResponseDto(document);
+        logger.info("Correction patch applied to document ID: {} (version {})", documentId, document.getCorrectionVersion());
+        return toDto(document);
     }
     
     /**
-     * Get all documents with pagination
+     * Get the correction patches of a document, oldest first
+     */
+    public List<CorrectionVersionDto> getCorrectionHistory(Long documentId) {
+        return correctionService.getHistory(documentId);
+    }
+    
+    /**
+     * Get all documents with pagination, from the read replica when one is configured
      */
     public Page<DocumentResponseDto> getAllDocuments(Pageable pageable) {
-        return documentRepository.findAll(pageable)
-            .map(DocumentResponseDto::new);
+        return replicaReads.read(() -> documentRepository.findAll(pageable)
+            .map(this::toDto));
     }
     
     /**
-     * Get document by ID
+     * Get document by ID, served from the document cache when possible. Cache misses read from the
+     * replica unless the document was just written.
      */
     public DocumentResponseDto getDocumentById(Long id) {
-        Document document = documentRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Document not found: " + id));
-        return new DocumentResponseDto(document);
+        return documentCache.get(id, key -> documentCache.isRecentlyWritten(key)
+            ? loadDocument(key)
+            : replicaReads.read(() -> loadDocument(key)));
     }
     
     /**
-     * Get documents by status
+     * Get documents by status, from the read replica when one is configured
      */
     public List<DocumentResponseDto> getDocumentsByStatus(Document.ProcessingStatus status) {
-        return documentRepository.findByStatus(status).stream()
-            .map(DocumentResponseDto::new)
+        return replicaReads.read(() -> documentRepository.findByStatus(status).stream()
+            .map(this::toDto)
+            .collect(Collectors.toList()));
+    }
+    
+    private DocumentResponseDto loadDocument(Long id) {
+        return documentRepository.findById(id)
+            .map(this::toDto)
+            .orElseThrow(() -> new RuntimeException("Document not found: " + id));
+    }
+    
+    /**
+     * Search documents by OCR text terms and exact extracted field values
+     */
+    public List<DocumentResponseDto> searchDocuments(String query, Map<String, String> fieldFilters, int limit) {
+        List<Long> ids = documentSearchIndex.search(query, fieldFilters, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        // Keep the index's ordering, newest first
+        Map<Long, Document> documents = documentRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Document::getId, Function.identity()));
+        return ids.stream()
+            .map(documents::get)
+            .filter(Objects::nonNull)
+            .map(this::toDto)
             .collect(Collectors.toList());
     }
     
+    /**
+     * Register a processing run so it can be cancelled; the document deadline is set once the file is known
+     */
+    private ProcessingControl startControl(Long documentId) {
+        ProcessingControl control = new ProcessingControl(documentId, null, processingProperties.getPageTimeout());
+        runningDocuments.put(documentId, control);
+        return control;
+    }
+    
+    /**
+     * Checkpoint that also picks up cancellations recorded by another instance
+     */
+    private void checkCancelled(Long documentId, ProcessingControl control) {
+        if (documentRepository.findStatusById(documentId).orElse(null) == Document.ProcessingStatus.CANCELLED) {
+            control.cancel();
+        }
+        control.checkpoint();
+    }
+    
+    /**
+     * Record a cancelled or timed-out run; the partial JSON of the pages read so far is kept
+     */
+    private DocumentResponseDto recordStopped(Long documentId, ProcessingStoppedException e) {
+        logger.warn("Processing of document ID: {} stopped: {}", documentId, e.getMessage());
+        Document document = documentRepository.findById(documentId)
+            .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
+        document.setStatus(e.getStatus());
+        document.setErrorMessage(e.getMessage());
+        return toDto(saveDocument(document));
+    }
+    
+    /**
+     * Refresh search index entries; the index can be rebuilt, so failures do not fail the caller
+     */
+    private void updateSearchIndex(Document document) {
+        try {
+            documentSearchIndex.index(document, correctionService.getCorrectedJson(document));
+        } catch (Exception e) {
+            logger.warn("Failed to update search index for document ID: {}", document.getId(), e);
+        }
+    }
+    
+    /**
+     * Save a document and drop its cached view
+     */
+    private Document saveDocument(Document document) {
+        ProcessingEvents.Persistence event = new ProcessingEvents.Persistence();
+        event.begin();
+        Document saved = documentRepository.save(document);
+        documentCache.evict(saved.getId());
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = saved.getId();
+            event.operation = "document";
+            event.bytes = length(saved.getExtractedText()) + length(saved.getExtractedJson());
+            event.commit();
+        }
+        return saved;
+    }
+    
+    /**
+     * Run a write of processing results, recorded as a persistence event
+     */
+    private void persist(Document document, int pageNumber, String operation, long size, Runnable write) {
+        ProcessingEvents.Persistence event = new ProcessingEvents.Persistence();
+        event.begin();
+        write.run();
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = document.getId();
+            event.pageNumber = pageNumber;
+            event.operation = operation;
+            event.bytes = size;
+            event.commit();
+        }
+    }
+    
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+    
+    /**
+     * Response view with corrections materialized at the current version
+     */
+    private DocumentResponseDto toDto(Document document) {
+        DocumentResponseDto dto = new DocumentResponseDto(document);
+        dto.setCorrectedJson(correctionService.getCorrectedJson(document));
+        return dto;
+    }
+    
     /**
      * Validate uploaded file
      */
@@ -309,7 +626,7 @@ public class DocumentProcessingService {
         }
         
         // Check file size (50MB limit)
-        if (file.getSize() > 50 * 1024 * 1024) {
+        if (file.getSize() > MAX_FILE_SIZE) {
             throw new RuntimeException("File size exceeds 50MB limit");
         }
     }
@@ -317,19 +634,11 @@ public class DocumentProcessingService {
     /**
      * Check if content type is supported
      */
-    private boolean isValidContentType(String contentType) {
+    static boolean isValidContentType(String contentType) {
         return contentType.equals("image/png") ||
                contentType.equals("image/jpeg") ||
                contentType.equals("image/jpg") ||
-               contentType.equals("application/pdf");
-    }
-    
-    /**
-     * Save BufferedImage to temporary file
-     */
-    private File saveBufferedImageToTempFile(BufferedImage image) throws IOException {
-        File tempFile = File.createTempFile("temp_image_", ".png");
-        javax.imageio.ImageIO.write(image, "png", tempFile);
-        return tempFile;
+               contentType.equals(PageSource.TIFF) ||
+               contentType.equals(PageSource.PDF);
     }
 }
\ No newline at end of file
@@ -0,0 +1,431 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.RetentionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the documents table and the upload directory from growing without bound.
+ * <p>
+ * Each run, on a background thread from startup and then every interval:
+ * <ul>
+ *   <li>On PostgreSQL with the partitioned schema, creates the monthly partitions for the coming
+ *       months. Expired months are archived, detached and dropped whole, after deleting their
+ *       page results, correction patches and field mappings; their files are then deleted by the
+ *       ids and paths read from the detached table. A partition left detached by an interrupted
+ *       run is finished on the next one.</li>
+ *   <li>On an unpartitioned table, e.g. H2, expired documents are deleted in batches instead.</li>
+ *   <li>Files in the upload directory older than the grace period that no document names are
+ *       deleted: leftovers of failed uploads and interrupted ingestion, or files whose deletion
+ *       failed before.</li>
+ * </ul>
+ * With partitions a document lives between the maximum age and one month more, as only whole
+ * months are dropped. Instances with retention disabled still create the coming partitions, so
+ * inserts never fall back to the default partition; concurrent creation is serialized by the
+ * database function.
+ */
+@Service
+public class DocumentRetentionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DocumentRetentionService.class);
+    
+    private static final String PARTITION_PREFIX = "documents_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter ARCHIVE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    // Tables holding rows per document; without foreign keys to the partitioned table they are cleaned here
+    private static final List<String> DEPENDENT_TABLES = List.of("page_results", "correction_patches", "field_mappings");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DocumentExportService documentExportService;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final DocumentCache documentCache;
+    private final CorrectionService correctionService;
+    private final RetentionProperties properties;
+    private final Path uploadDirectory;
+    private final Counter documentsDeleted;
+    private final Counter expiredFilesDeleted;
+    private final Counter orphanFilesDeleted;
+    
+    private ScheduledExecutorService scheduler;
+    
+    public DocumentRetentionService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    DocumentExportService documentExportService,
+                                    DocumentSearchIndex documentSearchIndex,
+                                    DocumentCache documentCache,
+                                    CorrectionService correctionService,
+                                    RetentionProperties properties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.upload.directory}") String uploadDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.documentExportService = documentExportService;
+        this.documentSearchIndex = documentSearchIndex;
+        this.documentCache = documentCache;
+        this.correctionService = correctionService;
+        this.properties = properties;
+        this.uploadDirectory = Paths.get(uploadDirectory);
+        this.documentsDeleted = Counter.builder("documents.retention.deleted")
+            .description("Documents deleted after reaching the maximum age")
+            .register(meterRegistry);
+        this.expiredFilesDeleted = filesDeleted(meterRegistry, "expired");
+        this.orphanFilesDeleted = filesDeleted(meterRegistry, "orphan");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DocumentRetention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!properties.isEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::maintainPartitions, 0, properties.getInterval().toMillis(),
+                TimeUnit.MILLISECONDS);
+            logger.info("Document retention disabled; creating partitions every {}", properties.getInterval());
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::runMaintenance, 0, properties.getInterval().toMillis(),
+            TimeUnit.MILLISECONDS);
+        logger.info("Document retention every {} (max age: {}, archive: {})", properties.getInterval(),
+            properties.getMaxAge() != null ? properties.getMaxAge() : "none",
+            isArchiving() ? properties.getArchiveDirectory() : "none");
+    }
+    
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    /**
+     * One maintenance run; each step is attempted even if an earlier one failed. Runs are not
+     * meant to overlap: only the retention thread calls this.
+     */
+    public void runMaintenance() {
+        LocalDateTime now = LocalDateTime.now();
+        boolean partitioned = false;
+        try {
+            partitioned = isPartitioned();
+            if (partitioned) {
+                finishDetachedPartitions();
+                createPartitions(YearMonth.from(now));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Partition maintenance failed", e);
+        }
+        
+        if (properties.getMaxAge() != null) {
+            try {
+                LocalDateTime cutoff = now.minus(properties.getMaxAge());
+                long deleted = partitioned ? dropExpiredPartitions(cutoff) : deleteExpiredDocuments(cutoff);
+                if (deleted > 0) {
+                    logger.info("Deleted {} documents created before {}", deleted, cutoff);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Deleting expired documents failed", e);
+            }
+        }
+        
+        try {
+            long deleted = sweepOrphanFiles();
+            if (deleted > 0) {
+                logger.info("Deleted {} orphaned files from {}", deleted, uploadDirectory);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Sweeping orphaned files failed", e);
+        }
+    }
+    
+    /**
+     * Only create the coming partitions; what instances with retention disabled run
+     */
+    void maintainPartitions() {
+        try {
+            if (isPartitioned()) {
+                createPartitions(YearMonth.now());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Partition maintenance failed", e);
+        }
+    }
+    
+    private void createPartitions(YearMonth current) {
+        for (int ahead = 0; ahead <= properties.getPartitionsAhead(); ahead++) {
+            LocalDate month = current.plusMonths(ahead).atDay(1);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT create_documents_partition(?)",
+                    Boolean.class, month))) {
+                logger.info("Created document partition for {}", YearMonth.from(month));
+            }
+        }
+    }
+    
+    /**
+     * Archive, detach and drop every monthly partition that ends before the cutoff
+     */
+    long dropExpiredPartitions(LocalDateTime cutoff) throws IOException {
+        List<String> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'documents'::regclass AND c.relname ~ '^documents_p[0-9]{6}$' ORDER BY c.relname",
+            String.class);
+        
+        long deleted = 0;
+        for (String partition : partitions) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (end.isAfter(cutoff)) {
+                break;
+            }
+            archive(month.atDay(1).atStartOfDay(), end, "documents-" + month);
+            jdbcTemplate.execute("ALTER TABLE documents DETACH PARTITION " + partition);
+            deleted += dropDetachedPartition(partition);
+        }
+        return deleted;
+    }
+    
+    /**
+     * Drop partitions detached by a run that did not get to drop them
+     */
+    private void finishDetachedPartitions() {
+        List<String> detached = jdbcTemplate.queryForList(
+            "SELECT relname FROM pg_class WHERE relkind = 'r' AND NOT relispartition " +
+            "AND relnamespace = current_schema()::regnamespace AND relname ~ '^documents_p[0-9]{6}$'",
+            String.class);
+        for (String partition : detached) {
+            logger.info("Finishing detached document partition {}", partition);
+            dropDetachedPartition(partition);
+        }
+    }
+    
+    private long dropDetachedPartition(String partition) {
+        for (String table : DEPENDENT_TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE document_id IN (SELECT id FROM " + partition + ")");
+        }
+        
+        long count = 0;
+        long after = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            List<String> paths = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, file_path FROM " + partition + " WHERE id > ? ORDER BY id LIMIT ?",
+                row -> {
+                    ids.add(row.getLong(1));
+                    paths.add(row.getString(2));
+                }, after, properties.getBatchSize());
+            if (ids.isEmpty()) {
+                break;
+            }
+            forget(ids);
+            deleteFiles(paths);
+            count += ids.size();
+            after = ids.get(ids.size() - 1);
+        }
+        
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        documentsDeleted.increment(count);
+        logger.info("Dropped document partition {} with {} documents", partition, count);
+        return count;
+    }
+    
+    /**
+     * Delete documents created before the cutoff row by row, for tables that are not partitioned
+     */
+    long deleteExpiredDocuments(LocalDateTime cutoff) throws IOException {
+        archive(null, cutoff, "documents-until-" + cutoff.format(ARCHIVE_TIME));
+        
+        long count = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            List<String> paths = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, file_path FROM documents WHERE created_at < ? ORDER BY id LIMIT ?",
+                row -> {
+                    ids.add(row.getLong(1));
+                    paths.add(row.getString(2));
+                }, cutoff, properties.getBatchSize());
+            if (ids.isEmpty()) {
+                break;
+            }
+            
+            MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String table : DEPENDENT_TABLES) {
+                    namedParameterJdbcTemplate.update("DELETE FROM " + table + " WHERE document_id IN (:ids)",
+                        parameters);
+                }
+                namedParameterJdbcTemplate.update("DELETE FROM documents WHERE id IN (:ids)", parameters);
+            });
+            forget(ids);
+            deleteFiles(paths);
+            count += ids.size();
+        }
+        documentsDeleted.increment(count);
+        return count;
+    }
+    
+    /**
+     * Delete files in the upload directory that are older than the grace period and named by no document
+     */
+    long sweepOrphanFiles() throws IOException {
+        if (!Files.isDirectory(uploadDirectory)) {
+            return 0;
+        }
+        Instant modifiedBefore = Instant.now().minus(properties.getOrphanGrace());
+        
+        long deleted = 0;
+        List<Path> candidates = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadDirectory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(modifiedBefore)) {
+                    candidates.add(file);
+                }
+                if (candidates.size() >= properties.getBatchSize()) {
+                    deleted += deleteUnreferenced(candidates);
+                    candidates.clear();
+                }
+            }
+        }
+        deleted += deleteUnreferenced(candidates);
+        return deleted;
+    }
+    
+    private long deleteUnreferenced(List<Path> files) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        List<String> names = files.stream().map(file -> file.getFileName().toString()).toList();
+        Set<String> referenced = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+            "SELECT filename FROM documents WHERE filename IN (:names)",
+            new MapSqlParameterSource("names", names), String.class));
+        
+        long deleted = 0;
+        for (Path file : files) {
+            if (!referenced.contains(file.getFileName().toString()) && deleteFile(file)) {
+                deleted++;
+            }
+        }
+        orphanFilesDeleted.increment(deleted);
+        return deleted;
+    }
+    
+    private void deleteFiles(List<String> paths) {
+        long deleted = 0;
+        for (String path : paths) {
+            if (deleteFile(Paths.get(path))) {
+                deleted++;
+            }
+        }
+        expiredFilesDeleted.increment(deleted);
+    }
+    
+    // Files that cannot be deleted now are left to a later orphan sweep
+    private static boolean deleteFile(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void forget(List<Long> ids) {
+        for (Long id : ids) {
+            documentCache.evict(id);
+            correctionService.evict(id);
+        }
+        documentSearchIndex.documentsDeleted(ids);
+    }
+    
+    /**
+     * Write the documents created in the range to a gzipped NDJSON file in the archive directory,
+     * in the export format; nothing is written when the range is empty
+     */
+    private void archive(LocalDateTime from, LocalDateTime to, String name) throws IOException {
+        if (!isArchiving()) {
+            return;
+        }
+        Path directory = Paths.get(properties.getArchiveDirectory());
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + ".ndjson.gz");
+        Path temp = directory.resolve(name + ".ndjson.gz.part");
+        
+        long count;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            count = documentExportService.exportNdjson(null, from, to, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (count == 0) {
+            Files.delete(temp);
+            return;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Archived {} documents to {}", count, file);
+    }
+    
+    private boolean isArchiving() {
+        return properties.getArchiveDirectory() != null && !properties.getArchiveDirectory().isBlank();
+    }
+    
+    private boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('documents'))",
+            Boolean.class));
+    }
+    
+    private static Counter filesDeleted(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("documents.retention.files.deleted")
+            .description("Upload files deleted by retention")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
\ No newline at end of file
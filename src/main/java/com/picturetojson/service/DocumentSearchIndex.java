@@ -0,0 +1,46 @@
+package com.picturetojson.service;
+
+import com.picturetojson.entity.Document;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index over OCR text and extracted field values, kept current as processing and corrections complete.
+ */
+public interface DocumentSearchIndex {
+    
+    /**
+     * Add or replace the index entries for a document
+     *
+     * @param correctedJson corrections materialized at the document's current version, or null
+     */
+    void index(Document document, String correctedJson);
+    
+    /**
+     * Drop all index entries for a document
+     */
+    void remove(Long documentId);
+    
+    /**
+     * Forget documents whose rows have been deleted
+     */
+    default void documentsDeleted(Collection<Long> documentIds) {
+        documentIds.forEach(this::remove);
+    }
+    
+    /**
+     * Find documents matching every term in the text query and every field filter, newest first.
+     * Terms match OCR text and field values; field filters match a whole value, ignoring case.
+     */
+    List<Long> search(String query, Map<String, String> fieldFilters, int limit);
+    
+    /**
+     * Normalized term for an exact field match, e.g. {@code field:email=john@example.com}
+     */
+    static String fieldTerm(String field, String value) {
+        return "field:" + field.toLowerCase(Locale.ROOT) + "=" + value.trim().toLowerCase(Locale.ROOT);
+    }
+}
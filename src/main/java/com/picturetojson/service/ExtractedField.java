@@ -0,0 +1,65 @@
+package com.picturetojson.service;
+
+/**
+ * One value pulled out of the OCR text, with the label it followed and where it was found.
+ */
+public class ExtractedField {
+    
+    private final String name;
+    private final Object value;
+    private final String fieldType;
+    private final String sourceLabel;
+    private final int offset;
+    private final boolean derived;
+    private final int pageNumber;
+    private final Integer confidence;
+    
+    public ExtractedField(String name, Object value, String fieldType, String sourceLabel, int offset) {
+        this(name, value, fieldType, sourceLabel, offset, false);
+    }
+    
+    public ExtractedField(String name, Object value, String fieldType, String sourceLabel, int offset, boolean derived) {
+        this(name, value, fieldType, sourceLabel, offset, derived, 0, null);
+    }
+    
+    private ExtractedField(String name, Object value, String fieldType, String sourceLabel, int offset,
+                           boolean derived, int pageNumber, Integer confidence) {
+        this.name = name;
+        this.value = value;
+        this.fieldType = fieldType;
+        this.sourceLabel = sourceLabel;
+        this.offset = offset;
+        this.derived = derived;
+        this.pageNumber = pageNumber;
+        this.confidence = confidence;
+    }
+    
+    /**
+     * Copy of this field placed on a page, with the OCR confidence of the text it was read from
+     */
+    public ExtractedField onPage(int pageNumber, Integer confidence) {
+        return new ExtractedField(name, value, fieldType, sourceLabel, offset, derived, pageNumber, confidence);
+    }
+    
+    /** JSON property name, e.g. {@code firstName}. */
+    public String getName() { return name; }
+    
+    public Object getValue() { return value; }
+    
+    public String getFieldType() { return fieldType; }
+    
+    /** Label text as it appeared on the form, e.g. {@code First Name}. */
+    public String getSourceLabel() { return sourceLabel; }
+    
+    /** Offset of the value in the OCR text (of its page, once placed on one). */
+    public int getOffset() { return offset; }
+    
+    /** True when the value was inferred rather than read next to its own label, e.g. split from a full name. */
+    public boolean isDerived() { return derived; }
+    
+    /** 1-based page the value was found on; 0 when extracted from text without pages. */
+    public int getPageNumber() { return pageNumber; }
+    
+    /** OCR line confidence, 0-100, or null when not known. */
+    public Integer getConfidence() { return confidence; }
+}
\ No newline at end of file
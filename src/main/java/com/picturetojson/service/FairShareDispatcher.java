@@ -0,0 +1,228 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.QuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares the processing workers between clients in proportion to their weights.
+ * <p>
+ * Documents wait in one queue per client and only a fixed number run at a time. Each free
+ * worker goes to the client with queued work whose pass is lowest; dispatching a document
+ * advances the client's pass by 1/weight (stride scheduling). A client with a large backlog
+ * therefore gets its share of workers but cannot hold them all while others wait, and a client
+ * that was idle rejoins at the current pass instead of with saved-up credit.
+ * <p>
+ * Per-client meters: {@code documents.queued} (gauge), {@code documents.dispatched} and
+ * {@code documents.processed} with the outcome.
+ */
+@Service
+public class FairShareDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FairShareDispatcher.class);
+    
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    
+    private final DocumentProcessingService documentProcessingService;
+    private final QuotaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    
+    // Guarded by this
+    private final Map<String, ClientQueue> clients = new HashMap<>();
+    private double pass;
+    private int running;
+    private boolean retryScheduled;
+    
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FairShareRetry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public FairShareDispatcher(DocumentProcessingService documentProcessingService,
+                               QuotaProperties properties,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.documentProcessingService = documentProcessingService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // Threads above the core size only start once the pool's own queue is full, so the core size is the real parallelism
+        this.concurrency = properties.getConcurrency() > 0 ? properties.getConcurrency()
+            : taskExecutor instanceof ThreadPoolTaskExecutor pool ? pool.getCorePoolSize() : 1;
+    }
+    
+    /**
+     * Queue documents of a client and start as many as there are free workers
+     */
+    public void submit(String clientId, Collection<Long> documentIds) {
+        synchronized (this) {
+            ClientQueue queue = clients.computeIfAbsent(clientId, this::newQueue);
+            if (queue.documents.isEmpty()) {
+                // An idle client rejoins at the current pass rather than with credit saved while idle
+                queue.pass = Math.max(queue.pass, pass);
+            }
+            queue.documents.addAll(documentIds);
+            queue.size.set(queue.documents.size());
+        }
+        dispatch();
+    }
+    
+    /**
+     * Documents of a client waiting for a worker or being processed
+     */
+    public synchronized int getInFlight(String clientId) {
+        ClientQueue queue = clients.get(clientId);
+        return queue != null ? queue.documents.size() + queue.running : 0;
+    }
+    
+    /**
+     * Documents waiting for a worker, per client
+     */
+    public synchronized Map<String, Integer> getQueued() {
+        Map<String, Integer> queued = new HashMap<>();
+        clients.forEach((clientId, queue) -> {
+            if (!queue.documents.isEmpty()) {
+                queued.put(clientId, queue.documents.size());
+            }
+        });
+        return queued;
+    }
+    
+    private void dispatch() {
+        while (true) {
+            ClientQueue queue;
+            Long documentId;
+            synchronized (this) {
+                if (running >= concurrency) {
+                    return;
+                }
+                queue = next();
+                if (queue == null) {
+                    return;
+                }
+                documentId = queue.documents.poll();
+                queue.size.set(queue.documents.size());
+                pass = queue.pass;
+                queue.pass += 1.0 / properties.weight(queue.clientId);
+                queue.running++;
+                running++;
+            }
+            
+            try {
+                documentProcessingService.processDocumentAsync(documentId)
+                    .whenComplete((result, error) -> completed(queue, error));
+                queue.dispatched.increment();
+            } catch (TaskRejectedException e) {
+                // The pool is saturated by work submitted elsewhere; keep the document first in line
+                synchronized (this) {
+                    queue.running--;
+                    running--;
+                    queue.documents.addFirst(documentId);
+                    queue.size.set(queue.documents.size());
+                    queue.pass -= 1.0 / properties.weight(queue.clientId);
+                    scheduleRetry();
+                }
+                return;
+            }
+        }
+    }
+    
+    private void completed(ClientQueue queue, Throwable error) {
+        (error == null ? queue.succeeded : queue.failed).increment();
+        synchronized (this) {
+            queue.running--;
+            running--;
+        }
+        dispatch();
+    }
+    
+    /**
+     * Client with queued documents and the lowest pass
+     */
+    private ClientQueue next() {
+        ClientQueue next = null;
+        for (ClientQueue queue : clients.values()) {
+            if (!queue.documents.isEmpty() && (next == null || queue.pass < next.pass)) {
+                next = queue;
+            }
+        }
+        return next;
+    }
+    
+    private void scheduleRetry() {
+        if (!retryScheduled) {
+            retryScheduled = true;
+            retryScheduler.schedule(() -> {
+                synchronized (this) {
+                    retryScheduled = false;
+                }
+                dispatch();
+            }, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private ClientQueue newQueue(String clientId) {
+        ClientQueue queue = new ClientQueue(clientId);
+        Gauge.builder("documents.queued", queue.size, AtomicInteger::get)
+            .description("Documents waiting for a processing worker")
+            .tag("client", clientId)
+            .register(meterRegistry);
+        queue.dispatched = Counter.builder("documents.dispatched")
+            .tag("client", clientId)
+            .register(meterRegistry);
+        queue.succeeded = processedCounter(clientId, "completed");
+        queue.failed = processedCounter(clientId, "failed");
+        logger.debug("Created processing queue for client {} with weight {}", clientId, properties.weight(clientId));
+        return queue;
+    }
+    
+    private Counter processedCounter(String clientId, String outcome) {
+        return Counter.builder("documents.processed")
+            .description("Documents finished by client")
+            .tag("client", clientId)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+    
+    private static class ClientQueue {
+        
+        final String clientId;
+        // Queue length for the gauge, which reads it without the dispatcher lock
+        final AtomicInteger size = new AtomicInteger();
+        final Deque<Long> documents = new ArrayDeque<>();
+        int running;
+        double pass;
+        Counter dispatched;
+        Counter succeeded;
+        Counter failed;
+        
+        ClientQueue(String clientId) {
+            this.clientId = clientId;
+        }
+    }
+}
\ No newline at end of file
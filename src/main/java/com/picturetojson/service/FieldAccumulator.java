@@ -0,0 +1,67 @@
+package com.picturetojson.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fields of a document merged page by page, so extraction runs on each page's text as it is
+ * recognized instead of once over the whole document.
+ * <p>
+ * When several pages yield the same field, a value read next to its own label beats one
+ * derived from a full name, then the higher OCR line confidence wins, then the earlier page.
+ * A derived {@code fullName} is dropped once a labelled first or last name has been found.
+ */
+public class FieldAccumulator {
+    
+    private final Map<String, ExtractedField> fields = new LinkedHashMap<>();
+    private int pages;
+    
+    /**
+     * Merge the fields extracted from one page's text; offsets are resolved against that page
+     */
+    public void addPage(int pageNumber, List<ExtractedField> pageFields, OcrResult page) {
+        for (ExtractedField field : pageFields) {
+            OcrResult.Line line = page.lineAt(field.getOffset());
+            ExtractedField candidate = field.onPage(pageNumber,
+                line != null ? Math.round(line.getConfidence()) : page.getConfidence());
+            fields.merge(candidate.getName(), candidate, (current, next) -> prefer(next, current) ? next : current);
+        }
+        pages++;
+    }
+    
+    /** Number of pages merged so far. */
+    public int getPages() { return pages; }
+    
+    /**
+     * Current winner of each field, in the order fields were first seen
+     */
+    public List<ExtractedField> getFields() {
+        boolean labelledName = isLabelled("firstName") || isLabelled("lastName");
+        List<ExtractedField> result = new ArrayList<>(fields.size());
+        for (ExtractedField field : fields.values()) {
+            if (!(labelledName && field.isDerived() && field.getName().equals("fullName"))) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+    
+    private boolean isLabelled(String name) {
+        ExtractedField field = fields.get(name);
+        return field != null && !field.isDerived();
+    }
+    
+    private static boolean prefer(ExtractedField candidate, ExtractedField current) {
+        if (candidate.isDerived() != current.isDerived()) {
+            return current.isDerived();
+        }
+        int candidateConfidence = candidate.getConfidence() != null ? candidate.getConfidence() : -1;
+        int currentConfidence = current.getConfidence() != null ? current.getConfidence() : -1;
+        if (candidateConfidence != currentConfidence) {
+            return candidateConfidence > currentConfidence;
+        }
+        return candidate.getPageNumber() < current.getPageNumber();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.picturetojson.service;
+
+import com.picturetojson.dto.FieldMappingDto;
+import com.picturetojson.entity.Document;
+import com.picturetojson.entity.FieldMapping;
+import com.picturetojson.repository.FieldMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Persists extracted fields as one {@link FieldMapping} row each, so single fields can be queried
+ * through indexes without loading or parsing the document JSON.
+ */
+@Service
+public class FieldMappingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FieldMappingService.class);
+    
+    private final FieldMappingRepository fieldMappingRepository;
+    
+    public FieldMappingService(FieldMappingRepository fieldMappingRepository) {
+        this.fieldMappingRepository = fieldMappingRepository;
+    }
+    
+    /**
+     * Replace a document's field rows. Inserts are sent as JDBC batches (hibernate.jdbc.batch_size).
+     */
+    @Transactional
+    public void replaceExtractedFields(Document document, List<ExtractedField> fields) {
+        fieldMappingRepository.deleteByDocumentId(document.getId());
+        
+        List<FieldMapping> mappings = new ArrayList<>(fields.size());
+        for (ExtractedField field : fields) {
+            FieldMapping mapping = new FieldMapping(document, truncate(field.getSourceLabel()), field.getName(),
+                field.getFieldType());
+            mapping.setExtractedValue(truncate(String.valueOf(field.getValue())));
+            // Confidence of the OCR line the value was read from
+            mapping.setConfidence(field.getConfidence());
+            mappings.add(mapping);
+        }
+        
+        fieldMappingRepository.saveAll(mappings);
+        logger.debug("Stored {} field mappings for document ID: {}", mappings.size(), document.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<FieldMappingDto> getFields(Long documentId) {
+        return fieldMappingRepository.findByDocumentId(documentId).stream()
+            .map(FieldMappingDto::new)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Find field rows by exact value, or by confidence below a threshold to pick review candidates
+     */
+    @Transactional(readOnly = true)
+    public List<FieldMappingDto> findFields(String field, String value, Integer belowConfidence, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        List<FieldMapping> mappings;
+        if (value != null) {
+            mappings = fieldMappingRepository.findByTargetFieldAndExtractedValueOrderByIdDesc(field, value, page);
+        } else if (belowConfidence != null) {
+            mappings = fieldMappingRepository.findByTargetFieldAndConfidenceLessThanOrderByConfidenceAsc(
+                field, belowConfidence, page);
+        } else {
+            mappings = fieldMappingRepository.findByTargetFieldOrderByIdDesc(field, page);
+        }
+        return mappings.stream()
+            .map(FieldMappingDto::new)
+            .collect(Collectors.toList());
+    }
+    
+    private static String truncate(String value) {
+        return value != null && value.length() > FieldMapping.MAX_VALUE_LENGTH
+            ? value.substring(0, FieldMapping.MAX_VALUE_LENGTH)
+            : value;
+    }
+}
\ No newline at end of file
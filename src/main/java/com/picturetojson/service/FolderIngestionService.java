@@ -0,0 +1,369 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.IngestionProperties;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks up files dropped into the ingestion directory, moves them into the upload directory and
+ * queues them for processing.
+ * <p>
+ * New files are noticed through {@link WatchService}, or by rescanning the directory when
+ * polling is configured or no watch service is available. A file is taken only after its size
+ * and modification time have been unchanged for the stable window, so partially written scans
+ * are left alone. Files are moved and registered as documents in batches and queued with the
+ * {@link FairShareDispatcher} under the ingestion client id. Files are only taken up to
+ * {@code max-in-flight} ingested documents queued or processing; the rest wait in the folder.
+ * The queue lives in memory, so ingested documents still pending at startup are queued again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingestion.enabled", havingValue = "true")
+public class FolderIngestionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FolderIngestionService.class);
+    
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "png", "image/png",
+        "jpg", "image/jpeg",
+        "jpeg", "image/jpeg",
+        "tif", PageSource.TIFF,
+        "tiff", PageSource.TIFF,
+        "pdf", PageSource.PDF);
+    
+    private final DocumentProcessingService documentProcessingService;
+    private final DocumentRepository documentRepository;
+    private final FairShareDispatcher fairShareDispatcher;
+    private final IngestionProperties properties;
+    private final Path uploadDirectory;
+    
+    // Files seen but not yet stable, in discovery order; only touched by the ingestion thread
+    private final Map<Path, Candidate> candidates = new LinkedHashMap<>();
+    
+    private volatile boolean running;
+    private Thread thread;
+    private volatile WatchService watchService;
+    
+    public FolderIngestionService(DocumentProcessingService documentProcessingService,
+                                  DocumentRepository documentRepository,
+                                  FairShareDispatcher fairShareDispatcher,
+                                  IngestionProperties properties,
+                                  @Value("${app.upload.directory}") String uploadDirectory) {
+        this.documentProcessingService = documentProcessingService;
+        this.documentRepository = documentRepository;
+        this.fairShareDispatcher = fairShareDispatcher;
+        this.properties = properties;
+        this.uploadDirectory = Paths.get(uploadDirectory);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (properties.getDirectory() == null || properties.getDirectory().isBlank()) {
+            throw new IllegalStateException("app.ingestion.directory must be set when ingestion is enabled");
+        }
+        Path directory = Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+        Files.createDirectories(failedDirectory(directory));
+        requeuePending();
+        
+        if (!properties.isPolling()) {
+            try {
+                watchService = directory.getFileSystem().newWatchService();
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.warn("No watch service for {}, polling every {}: {}", directory,
+                    properties.getPollInterval(), e.getMessage());
+                closeWatchService();
+            }
+        }
+        
+        running = true;
+        thread = new Thread(() -> run(directory), "FolderIngestion");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Ingesting files from {} ({})", directory, watchService != null ? "watching" : "polling");
+    }
+    
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        closeWatchService();
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+    
+    /**
+     * Queue ingested documents left pending by the last shutdown; their files have already left
+     * the folder, so no scan would find them again
+     */
+    void requeuePending() {
+        List<Long> pending = documentRepository.findIdsByStatusAndClientId(Document.ProcessingStatus.PENDING,
+            properties.getClientId());
+        if (!pending.isEmpty()) {
+            fairShareDispatcher.submit(properties.getClientId(), pending);
+            logger.info("Re-queued {} ingested documents left pending by the last shutdown", pending.size());
+        }
+    }
+    
+    private void run(Path directory) {
+        // Files already waiting when the application starts
+        scan(directory);
+        long lastScan = System.nanoTime();
+        
+        while (running) {
+            try {
+                if (watchService == null || System.nanoTime() - lastScan >= properties.getPollInterval().toNanos()) {
+                    // Also a safety net for events the watch service dropped
+                    scan(directory);
+                    lastScan = System.nanoTime();
+                }
+                
+                int free = properties.getMaxInFlight() - fairShareDispatcher.getInFlight(properties.getClientId());
+                if (free > 0) {
+                    ingest(directory, takeStable(free));
+                }
+                
+                awaitChanges(directory);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Ingestion from {} failed, retrying", directory, e);
+                sleep(properties.getPollInterval());
+            }
+        }
+    }
+    
+    /**
+     * Wait for watch events, or for the next check while files are settling or waiting for a slot
+     */
+    private void awaitChanges(Path directory) throws InterruptedException {
+        long waitMillis = properties.getPollInterval().toMillis();
+        if (!candidates.isEmpty()) {
+            waitMillis = Math.min(waitMillis, Math.max(100, properties.getStableWindow().toMillis() / 2));
+        }
+        
+        WatchService watcher = watchService;
+        if (watcher == null) {
+            Thread.sleep(waitMillis);
+            return;
+        }
+        
+        WatchKey key = watcher.poll(waitMillis, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    scan(directory);
+                } else {
+                    consider(directory.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+            key = watcher.poll();
+        }
+    }
+    
+    void scan(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                consider(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list ingestion directory {}: {}", directory, e.getMessage());
+        }
+    }
+    
+    private void consider(Path file) {
+        String name = file.getFileName().toString();
+        // Hidden files and partial copies written under a temporary name are not ours yet
+        if (name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part")) {
+            return;
+        }
+        candidates.putIfAbsent(file, new Candidate());
+    }
+    
+    /**
+     * Remove and return up to one batch, and at most limit, of files whose size and modification time have settled
+     */
+    List<Path> takeStable(int limit) {
+        int max = Math.min(limit, properties.getBatchSize());
+        List<Path> stable = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Candidate>> iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext() && stable.size() < max) {
+            Map.Entry<Path, Candidate> entry = iterator.next();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry.getKey(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Gone, e.g. removed by the scanner again
+                iterator.remove();
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                iterator.remove();
+                continue;
+            }
+            
+            Candidate candidate = entry.getValue();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (candidate.size != attributes.size() || candidate.modified != modified) {
+                candidate.size = attributes.size();
+                candidate.modified = modified;
+                candidate.since = now;
+            } else if (attributes.size() > 0 && now - candidate.since >= properties.getStableWindow().toNanos()) {
+                stable.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        return stable;
+    }
+    
+    /**
+     * Move a batch into the upload directory, register the documents in one transaction and
+     * queue them
+     */
+    void ingest(Path directory, List<Path> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        
+        List<Document> documents = new ArrayList<>(files.size());
+        for (Path file : files) {
+            String originalFilename = file.getFileName().toString();
+            String contentType = contentType(originalFilename);
+            try {
+                long size = Files.size(file);
+                if (contentType == null || size > DocumentProcessingService.MAX_FILE_SIZE) {
+                    logger.warn("Rejected ingested file {} ({}, {} bytes)", originalFilename,
+                        contentType != null ? contentType : "unsupported type", size);
+                    move(file, failedDirectory(directory).resolve(UUID.randomUUID() + "_" + originalFilename));
+                    continue;
+                }
+                
+                String filename = UUID.randomUUID() + "_" + originalFilename;
+                Path target = uploadDirectory.resolve(filename);
+                move(file, target);
+                Document document = new Document(filename, originalFilename, contentType, size, target.toString());
+                document.setClientId(properties.getClientId());
+                documents.add(document);
+            } catch (NoSuchFileException e) {
+                logger.debug("Ingested file {} disappeared before it was moved", originalFilename);
+            } catch (IOException e) {
+                logger.warn("Could not move ingested file {}: {}", originalFilename, e.getMessage());
+            }
+        }
+        
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<Document> registered;
+        try {
+            registered = documentProcessingService.registerDocuments(documents);
+        } catch (RuntimeException e) {
+            // Put the files back so they are picked up again instead of left without a document row
+            for (Document document : documents) {
+                try {
+                    move(Paths.get(document.getFilePath()), directory.resolve(document.getOriginalFilename()));
+                } catch (IOException moveError) {
+                    logger.error("Could not return {} to the ingestion directory", document.getFilePath(), moveError);
+                }
+            }
+            throw e;
+        }
+        
+        fairShareDispatcher.submit(properties.getClientId(), registered.stream().map(Document::getId).toList());
+        logger.info("Ingested {} files from {}", registered.size(), directory);
+    }
+    
+    /**
+     * Rename within a file system; across file systems copy next to the target first, so the
+     * upload directory never shows a partial file
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.delete(source);
+        }
+        // Orphan-file sweeps go by modification time, which a moved scan keeps from the scanner
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+    
+    private Path failedDirectory(Path directory) {
+        String failed = properties.getFailedDirectory();
+        return failed != null && !failed.isBlank() ? Paths.get(failed) : directory.resolve("failed");
+    }
+    
+    private static String contentType(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(filename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+    
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Could not close watch service", e);
+            }
+            watchService = null;
+        }
+    }
+    
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static class Candidate {
+        long size = -1;
+        long modified = -1;
+        long since;
+    }
+}
\ No newline at end of file
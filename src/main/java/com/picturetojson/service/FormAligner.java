@@ -0,0 +1,238 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.features2d.DescriptorMatcher;
+import org.opencv.features2d.ORB;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers form zones onto a scanned page.
+ * <p>
+ * ORB keypoints of the page are matched against those of the layout's blank template, and a
+ * RANSAC homography maps each zone from template to page coordinates, which absorbs offset,
+ * scale, skew and rotation of the scan. Without a template, or when too few matches agree, the
+ * zones are only scaled from the layout's page size to the page.
+ */
+@Component
+public class FormAligner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FormAligner.class);
+    
+    private static final double RATIO_TEST = 0.75;
+    private static final double RANSAC_THRESHOLD = 5.0;
+    
+    static {
+        OpenCvLoader.load();
+    }
+    
+    private final FormProperties.Alignment properties;
+    
+    // Keypoints of each template image, computed on first use
+    private final Map<String, Features> templates = new ConcurrentHashMap<>();
+    
+    public FormAligner(FormProperties formProperties) {
+        this.properties = formProperties.getAlignment();
+    }
+    
+    /**
+     * Zone rectangles in page coordinates, in the order of the given zones
+     */
+    public List<Rectangle> locate(BufferedImage page, FormProperties.Layout layout, int pageNumber,
+                                  List<FormProperties.Zone> zones) {
+        String template = pageNumber <= layout.getTemplates().size() ? layout.getTemplates().get(pageNumber - 1) : null;
+        Mat homography = template != null ? homography(page, template) : null;
+        
+        List<Rectangle> located = new ArrayList<>(zones.size());
+        if (homography != null) {
+            try {
+                for (FormProperties.Zone zone : zones) {
+                    located.add(transform(homography, zone));
+                }
+            } finally {
+                homography.release();
+            }
+            return located;
+        }
+        
+        double scaleX = layout.getWidth() > 0 ? (double) page.getWidth() / layout.getWidth() : 1.0;
+        double scaleY = layout.getHeight() > 0 ? (double) page.getHeight() / layout.getHeight() : 1.0;
+        for (FormProperties.Zone zone : zones) {
+            located.add(new Rectangle((int) Math.round(zone.getX() * scaleX), (int) Math.round(zone.getY() * scaleY),
+                (int) Math.round(zone.getWidth() * scaleX), (int) Math.round(zone.getHeight() * scaleY)));
+        }
+        return located;
+    }
+    
+    /**
+     * Template-to-page transform, or null when the page does not align with enough matches
+     */
+    private Mat homography(BufferedImage page, String templatePath) {
+        Features template = templates.computeIfAbsent(templatePath, this::templateFeatures);
+        if (template.descriptors.empty()) {
+            return null;
+        }
+        
+        Mat gray = toGray(page);
+        Features scanned;
+        try {
+            scanned = detect(gray);
+        } finally {
+            gray.release();
+        }
+        
+        try {
+            if (scanned.descriptors.empty()) {
+                return null;
+            }
+            List<MatOfDMatch> candidates = new ArrayList<>();
+            DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
+            matcher.knnMatch(template.descriptors, scanned.descriptors, candidates, 2);
+            
+            List<Point> from = new ArrayList<>();
+            List<Point> to = new ArrayList<>();
+            for (MatOfDMatch candidate : candidates) {
+                DMatch[] pair = candidate.toArray();
+                // Keep a match only when it is clearly better than the runner-up
+                if (pair.length == 2 && pair[0].distance < RATIO_TEST * pair[1].distance) {
+                    from.add(template.points[pair[0].queryIdx]);
+                    to.add(scanned.points[pair[0].trainIdx]);
+                }
+                candidate.release();
+            }
+            if (from.size() < properties.getMinInliers()) {
+                logger.debug("Page aligned with only {} matches, scaling zones instead", from.size());
+                return null;
+            }
+            
+            MatOfPoint2f source = new MatOfPoint2f(from.toArray(new Point[0]));
+            MatOfPoint2f target = new MatOfPoint2f(to.toArray(new Point[0]));
+            Mat inliers = new Mat();
+            Mat homography = Calib3d.findHomography(source, target, Calib3d.RANSAC, RANSAC_THRESHOLD, inliers);
+            int inlierCount = Core.countNonZero(inliers);
+            source.release();
+            target.release();
+            inliers.release();
+            
+            if (homography.empty() || inlierCount < properties.getMinInliers()) {
+                logger.debug("Page aligned with only {} consistent matches, scaling zones instead", inlierCount);
+                homography.release();
+                return null;
+            }
+            logger.debug("Page aligned to template {} with {} of {} matches", templatePath, inlierCount, from.size());
+            return homography;
+        } finally {
+            scanned.descriptors.release();
+        }
+    }
+    
+    private Features templateFeatures(String path) {
+        Mat image = Imgcodecs.imread(path, Imgcodecs.IMREAD_GRAYSCALE);
+        if (image.empty()) {
+            logger.warn("Could not read form template {}; its zones are only scaled to the page", path);
+            return new Features(new Point[0], new Mat());
+        }
+        try {
+            return detect(image);
+        } finally {
+            image.release();
+        }
+    }
+    
+    /**
+     * ORB keypoints on a reduced copy, with positions in full-size coordinates
+     */
+    private Features detect(Mat gray) {
+        double scale = Math.min(1.0, (double) properties.getWorkingSize() / Math.max(gray.cols(), gray.rows()));
+        Mat reduced = new Mat();
+        Imgproc.resize(gray, reduced, new Size(Math.round(gray.cols() * scale), Math.round(gray.rows() * scale)),
+            0, 0, Imgproc.INTER_AREA);
+        
+        MatOfKeyPoint keyPoints = new MatOfKeyPoint();
+        Mat descriptors = new Mat();
+        try {
+            ORB.create(properties.getFeatures()).detectAndCompute(reduced, new Mat(), keyPoints, descriptors);
+            KeyPoint[] detected = keyPoints.toArray();
+            Point[] points = new Point[detected.length];
+            for (int i = 0; i < detected.length; i++) {
+                points[i] = new Point(detected[i].pt.x / scale, detected[i].pt.y / scale);
+            }
+            return new Features(points, descriptors);
+        } finally {
+            reduced.release();
+            keyPoints.release();
+        }
+    }
+    
+    /**
+     * Bounding box of a zone's corners mapped onto the page
+     */
+    private static Rectangle transform(Mat homography, FormProperties.Zone zone) {
+        MatOfPoint2f corners = new MatOfPoint2f(
+            new Point(zone.getX(), zone.getY()),
+            new Point(zone.getX() + zone.getWidth(), zone.getY()),
+            new Point(zone.getX() + zone.getWidth(), zone.getY() + zone.getHeight()),
+            new Point(zone.getX(), zone.getY() + zone.getHeight()));
+        MatOfPoint2f mapped = new MatOfPoint2f();
+        try {
+            Core.perspectiveTransform(corners, mapped, homography);
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (Point point : mapped.toArray()) {
+                minX = Math.min(minX, point.x);
+                minY = Math.min(minY, point.y);
+                maxX = Math.max(maxX, point.x);
+                maxY = Math.max(maxY, point.y);
+            }
+            return new Rectangle((int) Math.floor(minX), (int) Math.floor(minY),
+                (int) Math.ceil(maxX - minX), (int) Math.ceil(maxY - minY));
+        } finally {
+            corners.release();
+            mapped.release();
+        }
+    }
+    
+    private static Mat toGray(BufferedImage image) {
+        BufferedImage gray = image;
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            gray.getGraphics().drawImage(image, 0, 0, null);
+        }
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        Mat mat = new Mat(gray.getHeight(), gray.getWidth(), CvType.CV_8UC1);
+        mat.put(0, 0, pixels);
+        return mat;
+    }
+    
+    private static final class Features {
+        
+        private final Point[] points;
+        private final Mat descriptors;
+        
+        Features(Point[] points, Mat descriptors) {
+            this.points = points;
+            this.descriptors = descriptors;
+        }
+    }
+}
\ No newline at end of file
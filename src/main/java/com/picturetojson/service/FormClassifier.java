@@ -0,0 +1,99 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects the form type of a document from a thumbnail of its first page, before any OCR.
+ * <p>
+ * The thumbnail's {@link LayoutFingerprint} is compared with that of the first template of
+ * every layout. The best match is taken only when it is similar enough and clearly ahead of
+ * the runner-up; anything else, such as free-form letters, keeps full-page OCR.
+ */
+@Component
+public class FormClassifier {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FormClassifier.class);
+    
+    private final FormProperties properties;
+    
+    // Fingerprint of each template image, computed on first use; empty when it cannot be read
+    private final Map<String, Optional<LayoutFingerprint>> templates = new ConcurrentHashMap<>();
+    
+    public FormClassifier(FormProperties properties) {
+        this.properties = properties;
+    }
+    
+    /**
+     * True when classification is enabled and at least one layout has a first-page template
+     */
+    public boolean isEnabled() {
+        return properties.getClassification().isEnabled()
+            && properties.getLayouts().values().stream().anyMatch(layout -> !layout.getTemplates().isEmpty());
+    }
+    
+    public int getThumbnailSize() {
+        return properties.getClassification().getThumbnailSize();
+    }
+    
+    /**
+     * Form type whose first page the thumbnail matches, or null
+     */
+    public String classify(BufferedImage thumbnail) {
+        LayoutFingerprint page = LayoutFingerprint.of(thumbnail, getThumbnailSize());
+        String bestType = null;
+        double best = -1.0;
+        double runnerUp = -1.0;
+        for (Map.Entry<String, FormProperties.Layout> layout : properties.getLayouts().entrySet()) {
+            if (layout.getValue().getTemplates().isEmpty()) {
+                continue;
+            }
+            Optional<LayoutFingerprint> template = template(layout.getValue().getTemplates().get(0));
+            if (template.isEmpty()) {
+                continue;
+            }
+            double similarity = page.similarity(template.get());
+            if (similarity > best) {
+                runnerUp = best;
+                best = similarity;
+                bestType = layout.getKey();
+            } else if (similarity > runnerUp) {
+                runnerUp = similarity;
+            }
+        }
+        
+        FormProperties.Classification classification = properties.getClassification();
+        if (bestType == null || best < classification.getMinSimilarity()
+                || best - runnerUp < classification.getMinMargin()) {
+            logger.debug("No form type matched (best {} at {}, runner-up at {})", bestType, best, runnerUp);
+            return null;
+        }
+        logger.debug("Page matched form type {} at {} (runner-up at {})", bestType, best, runnerUp);
+        return bestType;
+    }
+    
+    private Optional<LayoutFingerprint> template(String path) {
+        return templates.computeIfAbsent(path, key -> {
+            try {
+                BufferedImage image = ImageIO.read(new File(key));
+                if (image == null) {
+                    throw new IOException("unsupported image format");
+                }
+                return Optional.of(LayoutFingerprint.of(image, getThumbnailSize()));
+            } catch (IOException e) {
+                logger.warn("Form template {} cannot be read and is left out of classification: {}", key, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+}
\ No newline at end of file
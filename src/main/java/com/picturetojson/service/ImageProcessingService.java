@@ -1,28 +1,43 @@
 package com.picturetojson.service;
 
+import com.picturetojson.config.PreprocessingProperties;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.CLAHE;
 import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 
 @Service
 public class ImageProcessingService {
     
     private static final Logger logger = LoggerFactory.getLogger(ImageProcessingService.class);
     
+    private static final int BINARY_LOW = 40;
+    private static final int BINARY_HIGH = 215;
+    private static final int ILLUMINATION_GRID = 8;
+    
     static {
         // Load OpenCV native library
-        nu.pattern.OpenCV.loadShared();
-        logger.info("OpenCV loaded successfully");
+        OpenCvLoader.load();
+    }
+    
+    private final PreprocessingProperties preprocessingProperties;
+    
+    public ImageProcessingService(PreprocessingProperties preprocessingProperties) {
+        this.preprocessingProperties = preprocessingProperties;
     }
     
     /**
@@ -31,39 +46,324 @@ public class ImageProcessingService {
     public BufferedImage preprocessImage(File imageFile) throws IOException {
         logger.debug("Preprocessing image: {}", imageFile.getName());
         
-        // Read image using OpenCV
-        Mat image = Imgcodecs.imread(imageFile.getAbsolutePath());
+        // Read image using OpenCV, reduced while large images stay above the target resolution
+        Mat image = Imgcodecs.imread(imageFile.getAbsolutePath(),
+            decodeFlags(imageFile.getName(), headerLongEdge(imageFile)));
         
         if (image.empty()) {
             throw new IOException("Could not read image file: " + imageFile.getName());
         }
         
-        // Apply preprocessing steps
+        try {
+            BufferedImage result = preprocess(image);
+            logger.debug("Image preprocessing completed for: {}", imageFile.getName());
+            return result;
+        } finally {
+            image.release();
+        }
+    }
+    
+    /**
+     * Preprocess an encoded image held in memory, decoded the same way as a file
+     */
+    public BufferedImage preprocessImage(byte[] data) throws IOException {
+        Mat image = decode(data, decodeFlags("image in memory", headerLongEdge(data)));
+        try {
+            return preprocess(image);
+        } finally {
+            image.release();
+        }
+    }
+    
+    /**
+     * Preprocess a rendered or already decoded page, first reduced like a decoded file would be
+     */
+    public BufferedImage preprocessImage(BufferedImage input) {
+        Mat image = bufferedImageToMat(input);
+        try {
+            PreprocessingProperties.Decode decode = preprocessingProperties.getDecode();
+            int factor = decode.getTargetDpi() > 0
+                ? reductionFactor(Math.max(input.getWidth(), input.getHeight()), decode.targetLongEdge())
+                : 1;
+            if (factor > 1) {
+                Imgproc.resize(image, image, new Size(), 1.0 / factor, 1.0 / factor, Imgproc.INTER_AREA);
+            }
+            return preprocess(image);
+        } finally {
+            image.release();
+        }
+    }
+    
+    /**
+     * Decode an image in grayscale reduced to about the given long edge, for a quick look at its
+     * layout; JPEG is decoded at 1/2, 1/4 or 1/8 size directly
+     */
+    public BufferedImage thumbnail(File imageFile, int longEdge) throws IOException {
+        Mat image = Imgcodecs.imread(imageFile.getAbsolutePath(), thumbnailFlags(headerLongEdge(imageFile), longEdge));
+        if (image.empty()) {
+            throw new IOException("Could not read image file: " + imageFile.getName());
+        }
+        return thumbnail(image, longEdge);
+    }
+    
+    /**
+     * {@link #thumbnail(File, int)} of an encoded image held in memory
+     */
+    public BufferedImage thumbnail(byte[] data, int longEdge) throws IOException {
+        return thumbnail(decode(data, thumbnailFlags(headerLongEdge(data), longEdge)), longEdge);
+    }
+    
+    private static int thumbnailFlags(int sourceLongEdge, int longEdge) {
+        return switch (reductionFactor(sourceLongEdge, longEdge)) {
+            case 8 -> Imgcodecs.IMREAD_REDUCED_GRAYSCALE_8;
+            case 4 -> Imgcodecs.IMREAD_REDUCED_GRAYSCALE_4;
+            case 2 -> Imgcodecs.IMREAD_REDUCED_GRAYSCALE_2;
+            default -> Imgcodecs.IMREAD_GRAYSCALE;
+        };
+    }
+    
+    private BufferedImage thumbnail(Mat image, int longEdge) {
+        Mat reduced = new Mat();
+        try {
+            double scale = Math.min(1.0, (double) longEdge / Math.max(image.cols(), image.rows()));
+            Imgproc.resize(image, reduced, new Size(), scale, scale, Imgproc.INTER_AREA);
+            return matToBufferedImage(reduced);
+        } finally {
+            image.release();
+            reduced.release();
+        }
+    }
+    
+    /**
+     * imread flags for the largest power-of-two reduction that keeps the image's long edge at or
+     * above the decode target. Dimensions come from the file header, so nothing is decoded twice.
+     * JPEG is decoded directly at the reduced size; other formats are decoded and then shrunk.
+     */
+    private int decodeFlags(String name, int longEdge) {
+        PreprocessingProperties.Decode decode = preprocessingProperties.getDecode();
+        if (decode.getTargetDpi() <= 0) {
+            return Imgcodecs.IMREAD_COLOR;
+        }
+        
+        int factor = reductionFactor(longEdge, decode.targetLongEdge());
+        if (factor > 1) {
+            logger.debug("Decoding {} at 1/{} of its {} px long edge", name, factor, longEdge);
+        }
+        return switch (factor) {
+            case 8 -> Imgcodecs.IMREAD_REDUCED_COLOR_8;
+            case 4 -> Imgcodecs.IMREAD_REDUCED_COLOR_4;
+            case 2 -> Imgcodecs.IMREAD_REDUCED_COLOR_2;
+            default -> Imgcodecs.IMREAD_COLOR;
+        };
+    }
+    
+    static int reductionFactor(int longEdge, int targetLongEdge) {
+        int factor = 1;
+        while (factor < 8 && longEdge / (factor * 2) >= targetLongEdge) {
+            factor *= 2;
+        }
+        return factor;
+    }
+    
+    /**
+     * Long edge in pixels read from the image header, or 0 when no reader recognizes the file
+     */
+    private static int headerLongEdge(File imageFile) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            return input != null ? headerLongEdge(input) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static int headerLongEdge(byte[] data) {
+        // A memory-cached stream, as ImageIO's default for plain input streams may buffer to a temporary file
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            return headerLongEdge(input);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static int headerLongEdge(ImageInputStream input) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return 0;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            return Math.max(reader.getWidth(0), reader.getHeight(0));
+        } finally {
+            reader.dispose();
+        }
+    }
+    
+    private static Mat decode(byte[] data, int flags) throws IOException {
+        MatOfByte encoded = new MatOfByte(data);
+        try {
+            Mat image = Imgcodecs.imdecode(encoded, flags);
+            if (image.empty()) {
+                throw new IOException("Could not decode image data");
+            }
+            return image;
+        } finally {
+            encoded.release();
+        }
+    }
+    
+    /**
+     * Pick a profile for the page and apply only the steps it enables
+     */
+    private BufferedImage preprocess(Mat image) {
+        ImageStatistics statistics = computeStatistics(image);
+        String profileName = selectProfile(statistics);
+        PreprocessingProperties.Profile profile = resolveProfile(profileName);
+        logger.debug("Selected preprocessing profile '{}' for image {}", profileName, statistics);
+        
         Mat processed = new Mat();
         
         // Convert to grayscale
-        Imgproc.cvtColor(image, processed, Imgproc.COLOR_BGR2GRAY);
+        if (image.channels() == 1) {
+            image.copyTo(processed);
+        } else {
+            Imgproc.cvtColor(image, processed, Imgproc.COLOR_BGR2GRAY);
+        }
         
-        // Apply Gaussian blur to reduce noise
-        Imgproc.GaussianBlur(processed, processed, new Size(1, 1), 0);
+        // Remove speckle noise
+        if (profile.getDenoiseKernel() > 1) {
+            Imgproc.medianBlur(processed, processed, oddKernel(profile.getDenoiseKernel()));
+        }
+        
+        // Even out contrast on unevenly lit captures
+        if (profile.isClahe()) {
+            CLAHE clahe = Imgproc.createCLAHE(profile.getClaheClipLimit(), new Size(8, 8));
+            clahe.apply(processed, processed);
+        }
         
         // Apply threshold to get binary image
-        Imgproc.threshold(processed, processed, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+        switch (profile.getThreshold()) {
+            case OTSU -> Imgproc.threshold(processed, processed, 0, 255,
+                Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+            case ADAPTIVE -> Imgproc.adaptiveThreshold(processed, processed, 255,
+                Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C, Imgproc.THRESH_BINARY,
+                oddKernel(profile.getAdaptiveBlockSize()), profile.getAdaptiveOffset());
+            case NONE -> { }
+        }
         
         // Morphological operations to clean up the image
-        Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(2, 2));
-        Imgproc.morphologyEx(processed, processed, Imgproc.MORPH_CLOSE, kernel);
+        if (profile.getCloseKernel() > 0) {
+            Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT,
+                new Size(profile.getCloseKernel(), profile.getCloseKernel()));
+            Imgproc.morphologyEx(processed, processed, Imgproc.MORPH_CLOSE, kernel);
+            kernel.release();
+        }
         
         // Convert back to BufferedImage
         BufferedImage result = matToBufferedImage(processed);
+        processed.release();
+        return result;
+    }
+    
+    /**
+     * Compute cheap statistics on a downscaled copy of the image
+     */
+    public ImageStatistics computeStatistics(Mat image) {
+        int sampleSize = preprocessingProperties.getSelection().getSampleSize();
+        double scale = Math.min(1.0, (double) sampleSize / Math.max(image.cols(), image.rows()));
+        
+        Mat sample = new Mat();
+        Imgproc.resize(image, sample, new Size(), scale, scale, Imgproc.INTER_AREA);
+        
+        Mat gray = new Mat();
+        double saturation = 0;
+        if (sample.channels() == 1) {
+            sample.copyTo(gray);
+        } else {
+            Imgproc.cvtColor(sample, gray, Imgproc.COLOR_BGR2GRAY);
+            Mat hsv = new Mat();
+            Imgproc.cvtColor(sample, hsv, Imgproc.COLOR_BGR2HSV);
+            saturation = Core.mean(hsv).val[1];
+            hsv.release();
+        }
+        
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble stdDev = new MatOfDouble();
+        Core.meanStdDev(gray, mean, stdDev);
+        
+        // Pixels outside the mid-tone band are already effectively binary
+        Mat midTones = new Mat();
+        Core.inRange(gray, new Scalar(BINARY_LOW + 1), new Scalar(BINARY_HIGH - 1), midTones);
+        double binaryRatio = 1.0 - (double) Core.countNonZero(midTones) / gray.total();
+        
+        // Brightness spread across coarse blocks reveals shadows and lighting gradients
+        Mat blocks = new Mat();
+        Imgproc.resize(gray, blocks, new Size(ILLUMINATION_GRID, ILLUMINATION_GRID), 0, 0, Imgproc.INTER_AREA);
+        MatOfDouble blockMean = new MatOfDouble();
+        MatOfDouble blockStdDev = new MatOfDouble();
+        Core.meanStdDev(blocks, blockMean, blockStdDev);
+        
+        ImageStatistics statistics = new ImageStatistics(
+            image.cols(),
+            image.rows(),
+            mean.toArray()[0],
+            stdDev.toArray()[0],
+            binaryRatio,
+            saturation,
+            blockStdDev.toArray()[0]
+        );
         
         // Cleanup
-        image.release();
-        processed.release();
-        kernel.release();
+        sample.release();
+        gray.release();
+        midTones.release();
+        blocks.release();
+        mean.release();
+        stdDev.release();
+        blockMean.release();
+        blockStdDev.release();
         
-        logger.debug("Image preprocessing completed for: {}", imageFile.getName());
-        return result;
+        return statistics;
+    }
+    
+    /**
+     * Select a preprocessing profile name from image statistics
+     */
+    public String selectProfile(ImageStatistics statistics) {
+        if (!preprocessingProperties.isAutoSelect()) {
+            return preprocessingProperties.getDefaultProfile();
+        }
+        
+        PreprocessingProperties.Selection selection = preprocessingProperties.getSelection();
+        
+        if (statistics.getBinaryRatio() >= selection.getCleanBinaryRatio()) {
+            return statistics.getWidth() <= selection.getFaxMaxWidth()
+                ? selection.getFaxProfile()
+                : selection.getCleanProfile();
+        }
+        
+        if (statistics.getSaturation() >= selection.getPhotoSaturation()
+                || statistics.getIlluminationSpread() >= selection.getPhotoIlluminationSpread()) {
+            return selection.getPhotoProfile();
+        }
+        
+        return preprocessingProperties.getDefaultProfile();
+    }
+    
+    private PreprocessingProperties.Profile resolveProfile(String profileName) {
+        PreprocessingProperties.Profile profile = preprocessingProperties.getProfiles().get(profileName);
+        if (profile == null) {
+            profile = preprocessingProperties.getProfiles().get(preprocessingProperties.getDefaultProfile());
+        }
+        if (profile == null) {
+            logger.warn("Preprocessing profile '{}' is not configured, using built-in defaults", profileName);
+            profile = new PreprocessingProperties.Profile();
+        }
+        return profile;
+    }
+    
+    private static int oddKernel(int size) {
+        return size % 2 == 0 ? size + 1 : size;
     }
     
     /**
@@ -75,8 +375,9 @@ public class ImageProcessingService {
         Mat image = bufferedImageToMat(input);
         Mat enhanced = new Mat();
         
-        // Apply CLAHE (Contrast Limited Adaptive Histogram Equalization)
-        Imgproc.createCLAHE(2.0, new Size(8, 8)).apply(image, enhanced);
+        // Apply CLAHE (Contrast Limited Adaptive Histogram Equalization), which needs a single channel
+        Imgproc.cvtColor(image, enhanced, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.createCLAHE(2.0, new Size(8, 8)).apply(enhanced, enhanced);
         
         BufferedImage result = matToBufferedImage(enhanced);
         
@@ -130,15 +431,11 @@ public class ImageProcessingService {
      * Convert OpenCV Mat to BufferedImage
      */
     private BufferedImage matToBufferedImage(Mat mat) {
-        MatOfByte matOfByte = new MatOfByte();
-        Imgcodecs.imencode(".jpg", mat, matOfByte);
-        byte[] byteArray = matOfByte.toArray();
-        
-        try {
-            return ImageIO.read(new ByteArrayInputStream(byteArray));
-        } catch (IOException e) {
-            logger.error("Error converting Mat to BufferedImage", e);
-            return null;
-        }
+        // Copy pixels straight into the raster instead of round-tripping through an encoder
+        int type = mat.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
+        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        mat.get(0, 0, pixels);
+        return image;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.picturetojson.service;
+
+/**
+ * Cheap per-page statistics computed on a downscaled copy of the image,
+ * used to pick a preprocessing profile.
+ */
+public class ImageStatistics {
+
+    private final int width;
+    private final int height;
+    private final double meanBrightness;
+    private final double contrast;
+    private final double binaryRatio;
+    private final double saturation;
+    private final double illuminationSpread;
+
+    public ImageStatistics(int width, int height, double meanBrightness, double contrast,
+                           double binaryRatio, double saturation, double illuminationSpread) {
+        this.width = width;
+        this.height = height;
+        this.meanBrightness = meanBrightness;
+        this.contrast = contrast;
+        this.binaryRatio = binaryRatio;
+        this.saturation = saturation;
+        this.illuminationSpread = illuminationSpread;
+    }
+
+    // Getters
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public double getMeanBrightness() { return meanBrightness; }
+
+    public double getContrast() { return contrast; }
+
+    /** Share of pixels that are already near black or near white. */
+    public double getBinaryRatio() { return binaryRatio; }
+
+    /** Mean HSV saturation (0-255); paper scans are close to zero. */
+    public double getSaturation() { return saturation; }
+
+    /** Standard deviation of coarse block brightness, high for shadows and uneven lighting. */
+    public double getIlluminationSpread() { return illuminationSpread; }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d mean=%.1f contrast=%.1f binary=%.2f saturation=%.1f illumination=%.1f",
+            width, height, meanBrightness, contrast, binaryRatio, saturation, illuminationSpread);
+    }
+}
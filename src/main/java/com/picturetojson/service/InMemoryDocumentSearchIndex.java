@@ -0,0 +1,192 @@
+package com.picturetojson.service;
+
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentIndexView;
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index used when the database has no full-text support (H2).
+ * Rebuilt from the database on startup.
+ */
+@Service
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryDocumentSearchIndex implements DocumentSearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryDocumentSearchIndex.class);
+    
+    private final DocumentRepository documentRepository;
+    private final JsonGenerationService jsonGenerationService;
+    private final CorrectionService correctionService;
+    
+    // Term -> document ids, iterated newest first
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    // Document id -> its terms, so re-indexing can drop stale postings
+    private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+    
+    public InMemoryDocumentSearchIndex(DocumentRepository documentRepository,
+                                       JsonGenerationService jsonGenerationService,
+                                       CorrectionService correctionService) {
+        this.documentRepository = documentRepository;
+        this.jsonGenerationService = jsonGenerationService;
+        this.correctionService = correctionService;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (Stream<DocumentIndexView> rows = documentRepository.streamForIndexing()) {
+            for (DocumentIndexView row : (Iterable<DocumentIndexView>) rows::iterator) {
+                String correctedJson;
+                try {
+                    correctedJson = correctionService.getCorrectedJson(row.getId(), row.getExtractedJson(),
+                        row.getCorrectedJson(), row.getSnapshotVersion(), row.getCorrectionVersion());
+                } catch (CorrectionReplayException e) {
+                    // Indexed by its extracted values only, never by an outdated correction
+                    logger.warn("Indexing document ID: {} without corrections", row.getId(), e);
+                    correctedJson = null;
+                }
+                index(row.getId(), row.getExtractedText(), row.getExtractedJson(), correctedJson);
+                count++;
+            }
+        }
+        logger.info("In-memory search index built for {} documents in {} ms", count, System.currentTimeMillis() - start);
+    }
+    
+    @Override
+    public void index(Document document, String correctedJson) {
+        index(document.getId(), document.getExtractedText(), document.getExtractedJson(), correctedJson);
+    }
+    
+    private void index(Long documentId, String text, String extractedJson, String correctedJson) {
+        Set<String> terms = new HashSet<>(tokenize(text));
+        jsonGenerationService.effectiveFields(extractedJson, correctedJson).forEach((field, value) -> {
+            terms.add(DocumentSearchIndex.fieldTerm(field, value));
+            terms.addAll(tokenize(value));
+        });
+        
+        documentTerms.compute(documentId, (id, previous) -> {
+            if (previous != null) {
+                previous.stream().filter(term -> !terms.contains(term)).forEach(term -> removePosting(term, id));
+            }
+            terms.forEach(term -> addPosting(term, id));
+            return terms;
+        });
+    }
+    
+    // Both sides run inside the map's compute, so an add cannot land in a list that a concurrent
+    // remove has just emptied and dropped from the map
+    private void addPosting(String term, Long documentId) {
+        postings.compute(term, (key, ids) -> {
+            Postings result = ids != null ? ids : new Postings();
+            result.add(documentId);
+            return result;
+        });
+    }
+    
+    @Override
+    public void remove(Long documentId) {
+        documentTerms.computeIfPresent(documentId, (id, terms) -> {
+            terms.forEach(term -> removePosting(term, id));
+            return null;
+        });
+    }
+    
+    private void removePosting(String term, Long documentId) {
+        postings.computeIfPresent(term, (key, ids) -> ids.remove(documentId) ? null : ids);
+    }
+    
+    @Override
+    public List<Long> search(String query, Map<String, String> fieldFilters, int limit) {
+        Set<String> terms = new HashSet<>(tokenize(query));
+        fieldFilters.forEach((field, value) -> terms.add(DocumentSearchIndex.fieldTerm(field, value)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Postings> candidates = new ArrayList<>();
+        for (String term : terms) {
+            Postings ids = postings.get(term);
+            if (ids == null) {
+                return List.of();
+            }
+            candidates.add(ids);
+        }
+        
+        // Walk the rarest term and probe the others
+        candidates.sort(Comparator.comparingInt(Postings::size));
+        List<Long> results = new ArrayList<>();
+        for (Long id : candidates.get(0).ids) {
+            if (candidates.stream().skip(1).allMatch(ids -> ids.contains(id))) {
+                results.add(id);
+                if (results.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String raw : text.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}@._+-]+")) {
+            String token = raw.replaceAll("^[._+-]+|[._+-]+$", "");
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * Document ids for one term with a constant-time size (skip list sizes are linear)
+     */
+    private static class Postings {
+        
+        private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+        private final AtomicInteger size = new AtomicInteger();
+        
+        void add(Long id) {
+            if (ids.add(id)) {
+                size.incrementAndGet();
+            }
+        }
+        
+        /** Returns true when the posting list became empty. */
+        boolean remove(Long id) {
+            return ids.remove(id) && size.decrementAndGet() == 0;
+        }
+        
+        boolean contains(Long id) {
+            return ids.contains(id);
+        }
+        
+        int size() {
+            return size.get();
+        }
+    }
+}
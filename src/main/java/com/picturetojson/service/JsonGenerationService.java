@@ -1,5 +1,6 @@
 package com.picturetojson.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -8,7 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,16 +32,17 @@ public class JsonGenerationService {
      * Convert extracted text to structured JSON
      */
     public String generateJsonFromText(String extractedText) {
-        logger.debug("Generating JSON from extracted text");
+        return generateJson(extractFields(extractedText));
+    }
+    
+    /**
+     * Serialize extracted fields as a flat JSON object
+     */
+    public String generateJson(List<ExtractedField> fields) {
+        logger.debug("Generating JSON from {} extracted fields", fields.size());
         
         Map<String, Object> extractedData = new HashMap<>();
-        
-        // Common field patterns for signup forms
-        extractedData.putAll(extractNameFields(extractedText));
-        extractedData.putAll(extractContactFields(extractedText));
-        extractedData.putAll(extractAddressFields(extractedText));
-        extractedData.putAll(extractDateFields(extractedText));
-        extractedData.putAll(extractOtherFields(extractedText));
+        fields.forEach(field -> extractedData.put(field.getName(), field.getValue()));
         
         try {
             String json = objectMapper.writeValueAsString(extractedData);
@@ -48,24 +54,40 @@ public class JsonGenerationService {
         }
     }
     
+    /**
+     * Find known form fields in the extracted text
+     */
+    public List<ExtractedField> extractFields(String extractedText) {
+        List<ExtractedField> fields = new ArrayList<>();
+        
+        // Common field patterns for signup forms
+        fields.addAll(extractNameFields(extractedText));
+        fields.addAll(extractContactFields(extractedText));
+        fields.addAll(extractAddressFields(extractedText));
+        fields.addAll(extractDateFields(extractedText));
+        fields.addAll(extractOtherFields(extractedText));
+        
+        return fields;
+    }
+    
     /**
      * Extract name-related fields
      */
-    private Map<String, Object> extractNameFields(String text) {
-        Map<String, Object> nameFields = new HashMap<>();
+    private List<ExtractedField> extractNameFields(String text) {
+        List<ExtractedField> nameFields = new ArrayList<>();
         
         // First Name pattern
         Pattern firstNamePattern = Pattern.compile("(?i)(?:first\\s*name|given\\s*name)[:\\s]*([A-Za-z]+)", Pattern.CASE_INSENSITIVE);
         Matcher firstNameMatcher = firstNamePattern.matcher(text);
         if (firstNameMatcher.find()) {
-            nameFields.put("firstName", firstNameMatcher.group(1).trim());
+            nameFields.add(field("firstName", firstNameMatcher.group(1).trim(), "string", text, firstNameMatcher));
         }
         
         // Last Name pattern
         Pattern lastNamePattern = Pattern.compile("(?i)(?:last\\s*name|family\\s*name|surname)[:\\s]*([A-Za-z]+)", Pattern.CASE_INSENSITIVE);
         Matcher lastNameMatcher = lastNamePattern.matcher(text);
         if (lastNameMatcher.find()) {
-            nameFields.put("lastName", lastNameMatcher.group(1).trim());
+            nameFields.add(field("lastName", lastNameMatcher.group(1).trim(), "string", text, lastNameMatcher));
         }
         
         // Full Name pattern (fallback)
@@ -76,10 +98,10 @@ public class JsonGenerationService {
                 String fullName = fullNameMatcher.group(1).trim();
                 String[] nameParts = fullName.split("\\s+");
                 if (nameParts.length >= 2) {
-                    nameFields.put("firstName", nameParts[0]);
-                    nameFields.put("lastName", nameParts[nameParts.length - 1]);
+                    nameFields.add(derived(field("firstName", nameParts[0], "string", text, fullNameMatcher)));
+                    nameFields.add(derived(field("lastName", nameParts[nameParts.length - 1], "string", text, fullNameMatcher)));
                 } else {
-                    nameFields.put("fullName", fullName);
+                    nameFields.add(derived(field("fullName", fullName, "string", text, fullNameMatcher)));
                 }
             }
         }
@@ -90,21 +112,21 @@ public class JsonGenerationService {
     /**
      * Extract contact-related fields
      */
-    private Map<String, Object> extractContactFields(String text) {
-        Map<String, Object> contactFields = new HashMap<>();
+    private List<ExtractedField> extractContactFields(String text) {
+        List<ExtractedField> contactFields = new ArrayList<>();
         
         // Email pattern
         Pattern emailPattern = Pattern.compile("(?i)(?:email|e-mail)[:\\s]*([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})", Pattern.CASE_INSENSITIVE);
         Matcher emailMatcher = emailPattern.matcher(text);
         if (emailMatcher.find()) {
-            contactFields.put("email", emailMatcher.group(1).trim());
+            contactFields.add(field("email", emailMatcher.group(1).trim(), "email", text, emailMatcher));
         }
         
         // Phone pattern
         Pattern phonePattern = Pattern.compile("(?i)(?:phone|telephone|mobile|cell)[:\\s]*([+]?[1-9]?[0-9]{7,15})", Pattern.CASE_INSENSITIVE);
         Matcher phoneMatcher = phonePattern.matcher(text);
         if (phoneMatcher.find()) {
-            contactFields.put("phone", phoneMatcher.group(1).trim());
+            contactFields.add(field("phone", phoneMatcher.group(1).trim(), "phone", text, phoneMatcher));
         }
         
         return contactFields;
@@ -113,28 +135,28 @@ public class JsonGenerationService {
     /**
      * Extract address-related fields
      */
-    private Map<String, Object> extractAddressFields(String text) {
-        Map<String, Object> addressFields = new HashMap<>();
+    private List<ExtractedField> extractAddressFields(String text) {
+        List<ExtractedField> addressFields = new ArrayList<>();
         
         // Address pattern
         Pattern addressPattern = Pattern.compile("(?i)(?:address|street)[:\\s]*([A-Za-z0-9\\s,.-]+)", Pattern.CASE_INSENSITIVE);
         Matcher addressMatcher = addressPattern.matcher(text);
         if (addressMatcher.find()) {
-            addressFields.put("address", addressMatcher.group(1).trim());
+            addressFields.add(field("address", addressMatcher.group(1).trim(), "string", text, addressMatcher));
         }
         
         // City pattern
         Pattern cityPattern = Pattern.compile("(?i)(?:city)[:\\s]*([A-Za-z\\s]+)", Pattern.CASE_INSENSITIVE);
         Matcher cityMatcher = cityPattern.matcher(text);
         if (cityMatcher.find()) {
-            addressFields.put("city", cityMatcher.group(1).trim());
+            addressFields.add(field("city", cityMatcher.group(1).trim(), "string", text, cityMatcher));
         }
         
         // ZIP/Postal Code pattern
         Pattern zipPattern = Pattern.compile("(?i)(?:zip|postal\\s*code|post\\s*code)[:\\s]*([A-Za-z0-9\\s-]+)", Pattern.CASE_INSENSITIVE);
         Matcher zipMatcher = zipPattern.matcher(text);
         if (zipMatcher.find()) {
-            addressFields.put("zipCode", zipMatcher.group(1).trim());
+            addressFields.add(field("zipCode", zipMatcher.group(1).trim(), "string", text, zipMatcher));
         }
         
         return addressFields;
@@ -143,14 +165,14 @@ public class JsonGenerationService {
     /**
      * Extract date-related fields
      */
-    private Map<String, Object> extractDateFields(String text) {
-        Map<String, Object> dateFields = new HashMap<>();
+    private List<ExtractedField> extractDateFields(String text) {
+        List<ExtractedField> dateFields = new ArrayList<>();
         
         // Date of Birth pattern
         Pattern dobPattern = Pattern.compile("(?i)(?:date\\s*of\\s*birth|birth\\s*date|dob)[:\\s]*([0-9]{1,2}[/-][0-9]{1,2}[/-][0-9]{2,4})", Pattern.CASE_INSENSITIVE);
         Matcher dobMatcher = dobPattern.matcher(text);
         if (dobMatcher.find()) {
-            dateFields.put("dateOfBirth", dobMatcher.group(1).trim());
+            dateFields.add(field("dateOfBirth", dobMatcher.group(1).trim(), "date", text, dobMatcher));
         }
         
         return dateFields;
@@ -159,45 +181,93 @@ public class JsonGenerationService {
     /**
      * Extract other common fields
      */
-    private Map<String, Object> extractOtherFields(String text) {
-        Map<String, Object> otherFields = new HashMap<>();
+    private List<ExtractedField> extractOtherFields(String text) {
+        List<ExtractedField> otherFields = new ArrayList<>();
         
         // Gender pattern
         Pattern genderPattern = Pattern.compile("(?i)(?:gender|sex)[:\\s]*(male|female|m|f|other)", Pattern.CASE_INSENSITIVE);
         Matcher genderMatcher = genderPattern.matcher(text);
         if (genderMatcher.find()) {
-            otherFields.put("gender", genderMatcher.group(1).trim());
+            otherFields.add(field("gender", genderMatcher.group(1).trim(), "string", text, genderMatcher));
         }
         
         // Age pattern
         Pattern agePattern = Pattern.compile("(?i)(?:age)[:\\s]*([0-9]{1,3})", Pattern.CASE_INSENSITIVE);
         Matcher ageMatcher = agePattern.matcher(text);
         if (ageMatcher.find()) {
-            otherFields.put("age", Integer.parseInt(ageMatcher.group(1).trim()));
+            otherFields.add(field("age", Integer.parseInt(ageMatcher.group(1).trim()), "integer", text, ageMatcher));
         }
         
         return otherFields;
     }
     
     /**
-     * Validate and format JSON
+     * Build a field from a match whose group 1 is the value and whose prefix is the form label
+     */
+    private static ExtractedField field(String name, Object value, String fieldType, String text, Matcher matcher) {
+        String label = text.substring(matcher.start(), matcher.start(1)).replaceAll("[:\\s]+$", "");
+        return new ExtractedField(name, value, fieldType, label, matcher.start(1));
+    }
+    
+    private static ExtractedField derived(ExtractedField field) {
+        return new ExtractedField(field.getName(), field.getValue(), field.getFieldType(), field.getSourceLabel(),
+            field.getOffset(), true);
+    }
+    
+    /**
+     * Validate JSON with the streaming parser; no tree is built
      */
     public boolean isValidJson(String json) {
-        try {
-            objectMapper.readTree(json);
-            return true;
-        } catch (JsonProcessingException e) {
+        if (json == null) {
             return false;
         }
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            // Tokenizes the whole value, so syntax errors anywhere inside surface here
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Flatten the top-level scalar fields of the extracted JSON, overridden by corrections
+     */
+    public Map<String, String> effectiveFields(String extractedJson, String correctedJson) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String json : new String[] {extractedJson, correctedJson}) {
+            if (json == null || json.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(json);
+                node.fields().forEachRemaining(entry -> {
+                    if (entry.getValue().isValueNode() && !entry.getValue().isNull()) {
+                        fields.put(entry.getKey(), entry.getValue().asText());
+                    }
+                });
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable JSON while collecting fields: {}", e.getOriginalMessage());
+            }
+        }
+        return fields;
     }
     
     /**
      * Merge extracted JSON with corrected JSON
      */
     public String mergeJsonData(String extractedJson, String correctedJson) throws JsonProcessingException {
-        JsonNode extractedNode = objectMapper.readTree(extractedJson);
-        JsonNode correctedNode = objectMapper.readTree(correctedJson);
-        
+        return objectMapper.writeValueAsString(
+            mergeJsonData(objectMapper.readTree(extractedJson), objectMapper.readTree(correctedJson)));
+    }
+    
+    /**
+     * Merge already parsed documents, for callers holding cached trees
+     */
+    public ObjectNode mergeJsonData(JsonNode extractedNode, JsonNode correctedNode) {
         ObjectNode merged = objectMapper.createObjectNode();
         
         // Start with extracted data
@@ -206,6 +276,6 @@ public class JsonGenerationService {
         // Override with corrected data
         merged.setAll((ObjectNode) correctedNode);
         
-        return objectMapper.writeValueAsString(merged);
+        return merged;
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies RFC 6902 JSON Patch documents.
+ * <p>
+ * Patches are applied to a copy, so the target is left untouched when an operation fails.
+ * Invalid or failing patches raise {@link IllegalArgumentException}.
+ */
+@Service
+public class JsonPatchService {
+    
+    /**
+     * Apply a patch (a JSON array of operations) and return the patched document
+     */
+    public JsonNode apply(JsonNode target, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON patch must be an array of operations");
+        }
+        
+        JsonNode result = target.deepCopy();
+        for (JsonNode operation : patch) {
+            result = applyOperation(result, operation);
+        }
+        return result;
+    }
+    
+    private JsonNode applyOperation(JsonNode root, JsonNode operation) {
+        String op = requiredText(operation, "op");
+        JsonPointer path = pointer(requiredText(operation, "path"));
+        
+        switch (op) {
+            case "add":
+                return add(root, path, requiredValue(operation));
+            case "remove":
+                return remove(root, path);
+            case "replace":
+                get(root, path);
+                return path.matches()
+                    ? requiredValue(operation).deepCopy()
+                    : add(remove(root, path), path, requiredValue(operation));
+            case "move": {
+                JsonPointer from = pointer(requiredText(operation, "from"));
+                if (path.toString().startsWith(from.toString() + "/")) {
+                    throw new IllegalArgumentException("Cannot move " + from + " into its own child " + path);
+                }
+                JsonNode value = get(root, from);
+                return add(remove(root, from), path, value);
+            }
+            case "copy":
+                return add(root, path, get(root, pointer(requiredText(operation, "from"))).deepCopy());
+            case "test":
+                if (!get(root, path).equals(requiredValue(operation))) {
+                    throw new IllegalArgumentException("Test failed at " + path);
+                }
+                return root;
+            default:
+                throw new IllegalArgumentException("Unsupported JSON patch operation: " + op);
+        }
+    }
+    
+    private JsonNode add(JsonNode root, JsonPointer path, JsonNode value) {
+        if (path.matches()) {
+            return value.deepCopy();
+        }
+        
+        JsonNode parent = root.at(path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object) {
+            object.set(token, value.deepCopy());
+        } else if (parent instanceof ArrayNode array) {
+            if ("-".equals(token)) {
+                array.add(value.deepCopy());
+            } else {
+                array.insert(arrayIndex(token, array.size() + 1, path), value.deepCopy());
+            }
+        } else {
+            throw new IllegalArgumentException("No container at " + path.head());
+        }
+        return root;
+    }
+    
+    private JsonNode remove(JsonNode root, JsonPointer path) {
+        get(root, path);
+        if (path.matches()) {
+            throw new IllegalArgumentException("Cannot remove the document root");
+        }
+        
+        JsonNode parent = root.at(path.head());
+        String token = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object) {
+            object.remove(token);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(arrayIndex(token, array.size(), path));
+        }
+        return root;
+    }
+    
+    private JsonNode get(JsonNode root, JsonPointer path) {
+        JsonNode value = root.at(path);
+        if (value.isMissingNode()) {
+            throw new IllegalArgumentException("No value at " + path);
+        }
+        return value;
+    }
+    
+    private static int arrayIndex(String token, int bound, JsonPointer path) {
+        if (!token.matches("0|[1-9][0-9]*")) {
+            throw new IllegalArgumentException("Invalid array index in " + path);
+        }
+        int index = Integer.parseInt(token);
+        if (index >= bound) {
+            throw new IllegalArgumentException("Array index out of bounds in " + path);
+        }
+        return index;
+    }
+    
+    private static JsonPointer pointer(String path) {
+        try {
+            return JsonPointer.compile(path);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid JSON pointer: " + path, e);
+        }
+    }
+    
+    private static String requiredText(JsonNode operation, String field) {
+        JsonNode value = operation.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException("JSON patch operation is missing '" + field + "'");
+        }
+        return value.asText();
+    }
+    
+    private static JsonNode requiredValue(JsonNode operation) {
+        if (!operation.has("value")) {
+            throw new IllegalArgumentException("JSON patch operation is missing 'value'");
+        }
+        return operation.get("value");
+    }
+}
@@ -0,0 +1,229 @@
+package com.picturetojson.service;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.util.Arrays;
+
+/**
+ * Coarse description of a page's layout for telling form types apart.
+ * <p>
+ * The page is box-reduced to a fixed long edge, then described by the mean ink of a grid of
+ * cells and by row and column profiles of ruled lines: the share of each row (column) covered
+ * by dark runs too long to be words. Text, including filled-in values, breaks up into short
+ * runs, so the profiles follow the printed boxes and rules, which move when the form changes
+ * but not with scanner noise or small offsets. Comparing two fingerprints is a few hundred
+ * multiplications.
+ */
+final class LayoutFingerprint {
+    
+    private static final int GRID = 16;
+    private static final int BANDS = 64;
+    // Profiles are compared at offsets of up to this many bands, absorbing scan offsets of about 5%
+    private static final int MAX_SHIFT = 3;
+    private static final double ASPECT_TOLERANCE = 0.08;
+    // Reduced pixels at least this dark (0-255) count as ink
+    private static final double INK = 32;
+    // Horizontal runs shorter than this share of the width are words rather than rules
+    private static final double MIN_ROW_RULE = 0.12;
+    // Text lines are only a few reduced pixels tall, so short vertical runs already mark box edges
+    private static final double MIN_COLUMN_RULE = 0.02;
+    
+    private final double aspect;
+    private final double[] cells;
+    private final double[] rows;
+    private final double[] columns;
+    
+    private LayoutFingerprint(double aspect, double[] cells, double[] rows, double[] columns) {
+        this.aspect = aspect;
+        this.cells = cells;
+        this.rows = rows;
+        this.columns = columns;
+    }
+    
+    /**
+     * Fingerprint of an image, reduced to the given long edge first so every source resolution
+     * gives comparable profiles
+     */
+    static LayoutFingerprint of(BufferedImage image, int longEdge) {
+        double scale = Math.min(1.0, (double) longEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        float[] ink = reduce(grayscale(image).getRaster(), width, height);
+        
+        double[] cells = new double[GRID * GRID];
+        for (int y = 0; y < height; y++) {
+            int cellRow = y * GRID / height;
+            for (int x = 0; x < width; x++) {
+                cells[cellRow * GRID + x * GRID / width] += ink[y * width + x];
+            }
+        }
+        
+        double[] rowRules = new double[height];
+        double[] columnRules = new double[width];
+        int minRowRun = Math.max(3, (int) Math.round(width * MIN_ROW_RULE));
+        int minColumnRun = Math.max(3, (int) Math.round(height * MIN_COLUMN_RULE));
+        for (int y = 0; y < height; y++) {
+            int run = 0;
+            for (int x = 0; x <= width; x++) {
+                if (x < width && ink[y * width + x] >= INK) {
+                    run++;
+                } else {
+                    rowRules[y] += run >= minRowRun ? (double) run / width : 0;
+                    run = 0;
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            int run = 0;
+            for (int y = 0; y <= height; y++) {
+                if (y < height && ink[y * width + x] >= INK) {
+                    run++;
+                } else {
+                    columnRules[x] += run >= minColumnRun ? (double) run / height : 0;
+                    run = 0;
+                }
+            }
+        }
+        return new LayoutFingerprint((double) image.getWidth() / image.getHeight(), cells,
+            profile(rowRules), profile(columnRules));
+    }
+    
+    /**
+     * Similarity from -1 to 1; pages of clearly different proportions score -1
+     */
+    double similarity(LayoutFingerprint other) {
+        if (Math.abs(Math.log(aspect / other.aspect)) > ASPECT_TOLERANCE) {
+            return -1.0;
+        }
+        return 0.2 * correlation(cells, other.cells, 0)
+            + 0.4 * shiftedCorrelation(rows, other.rows)
+            + 0.4 * shiftedCorrelation(columns, other.columns);
+    }
+    
+    /**
+     * Darkness (0-255) of each pixel of a width x height reduction, row by row, averaging every
+     * source pixel
+     */
+    private static float[] reduce(Raster raster, int width, int height) {
+        int sourceWidth = raster.getWidth();
+        int sourceHeight = raster.getHeight();
+        float[] ink = new float[width * height];
+        int[] line = new int[sourceWidth];
+        int[] columns = new int[sourceWidth];
+        int[] columnCounts = new int[width];
+        for (int x = 0; x < sourceWidth; x++) {
+            columns[x] = (int) ((long) x * width / sourceWidth);
+            columnCounts[columns[x]]++;
+        }
+        
+        // Source rows are summed until the next reduced row starts
+        long[] sums = new long[width];
+        int rowCount = 0;
+        int row = 0;
+        for (int y = 0; y <= sourceHeight; y++) {
+            int next = y < sourceHeight ? (int) ((long) y * height / sourceHeight) : height;
+            if (next != row) {
+                for (int x = 0; x < width; x++) {
+                    ink[row * width + x] = 255f - (float) sums[x] / Math.max(1, rowCount * columnCounts[x]);
+                }
+                Arrays.fill(sums, 0);
+                rowCount = 0;
+                row = next;
+            }
+            if (y < sourceHeight) {
+                readLine(raster, y, line);
+                for (int x = 0; x < sourceWidth; x++) {
+                    sums[columns[x]] += line[x];
+                }
+                rowCount++;
+            }
+        }
+        return ink;
+    }
+    
+    /**
+     * Gray values of one row; straight from the bytes of a plain gray raster, which avoids a
+     * virtual call per pixel
+     */
+    private static void readLine(Raster raster, int y, int[] line) {
+        if (raster.getDataBuffer() instanceof DataBufferByte buffer
+                && raster.getSampleModel() instanceof ComponentSampleModel model
+                && model.getNumBands() == 1 && model.getPixelStride() == 1) {
+            byte[] data = buffer.getData();
+            int offset = buffer.getOffset() + model.getOffset(raster.getMinX() - raster.getSampleModelTranslateX(),
+                raster.getMinY() - raster.getSampleModelTranslateY() + y);
+            for (int x = 0; x < line.length; x++) {
+                line[x] = data[offset + x] & 0xFF;
+            }
+        } else {
+            raster.getSamples(raster.getMinX(), raster.getMinY() + y, line.length, 1, 0, line);
+        }
+    }
+    
+    /**
+     * Strongest line of each band, smoothed so a rule on a band boundary counts for both
+     */
+    private static double[] profile(double[] lines) {
+        double[] bands = new double[BANDS];
+        for (int i = 0; i < lines.length; i++) {
+            int band = (int) ((long) i * BANDS / lines.length);
+            bands[band] = Math.max(bands[band], lines[i]);
+        }
+        double[] smoothed = new double[BANDS];
+        for (int i = 0; i < BANDS; i++) {
+            smoothed[i] = (bands[Math.max(0, i - 1)] + 2 * bands[i] + bands[Math.min(BANDS - 1, i + 1)]) / 4;
+        }
+        return smoothed;
+    }
+    
+    private static double shiftedCorrelation(double[] a, double[] b) {
+        double best = -1.0;
+        for (int shift = -MAX_SHIFT; shift <= MAX_SHIFT; shift++) {
+            best = Math.max(best, correlation(a, b, shift));
+        }
+        return best;
+    }
+    
+    /**
+     * Pearson correlation of a[i] and b[i + shift] over the overlapping range; 0 when either is flat
+     */
+    private static double correlation(double[] a, double[] b, int shift) {
+        int from = Math.max(0, -shift);
+        int to = Math.min(a.length, b.length - shift);
+        int n = to - from;
+        double meanA = 0;
+        double meanB = 0;
+        for (int i = from; i < to; i++) {
+            meanA += a[i];
+            meanB += b[i + shift];
+        }
+        meanA /= n;
+        meanB /= n;
+        
+        double covariance = 0;
+        double varianceA = 0;
+        double varianceB = 0;
+        for (int i = from; i < to; i++) {
+            double da = a[i] - meanA;
+            double db = b[i + shift] - meanB;
+            covariance += da * db;
+            varianceA += da * da;
+            varianceB += db * db;
+        }
+        return varianceA > 0 && varianceB > 0 ? covariance / Math.sqrt(varianceA * varianceB) : 0.0;
+    }
+    
+    private static BufferedImage grayscale(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return gray;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.picturetojson.service;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * Text recognized on one page together with line-level confidence from Tesseract.
+ */
+public class OcrResult {
+
+    private final List<Line> lines;
+    private final int refinedLines;
+
+    public OcrResult(List<Line> lines, int refinedLines) {
+        this.lines = List.copyOf(lines);
+        this.refinedLines = refinedLines;
+    }
+
+    public static OcrResult empty() {
+        return new OcrResult(List.of(), 0);
+    }
+
+    public List<Line> getLines() { return lines; }
+
+    /** Number of lines re-read with the accurate model. */
+    public int getRefinedLines() { return refinedLines; }
+
+    /** True when every line was accepted from the fast first pass. */
+    public boolean isFastPassOnly() { return refinedLines == 0; }
+
+    public String getText() {
+        StringBuilder text = new StringBuilder();
+        for (Line line : lines) {
+            if (!line.getText().isEmpty()) {
+                text.append(line.getText()).append('\n');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /** Line containing a character offset of {@link #getText()}, or null when out of range. */
+    public Line lineAt(int offset) {
+        int position = 0;
+        boolean leading = true;
+        for (Line line : lines) {
+            String text = line.getText();
+            if (text.isEmpty()) {
+                continue;
+            }
+            if (leading) {
+                // getText() trims leading whitespace off the first non-empty line
+                position -= text.length() - text.stripLeading().length();
+                leading = false;
+            }
+            if (offset < position + text.length() + 1) {
+                return offset >= 0 ? line : null;
+            }
+            position += text.length() + 1;
+        }
+        return null;
+    }
+
+    /** Mean line confidence weighted by line length, 0-100; zero when nothing was recognized. */
+    public int getConfidence() {
+        return weightedConfidence(lines);
+    }
+
+    static int weightedConfidence(List<Line> lines) {
+        long weight = 0;
+        double total = 0;
+        for (Line line : lines) {
+            int length = line.getText().length();
+            weight += length;
+            total += (double) line.getConfidence() * length;
+        }
+        return weight == 0 ? 0 : (int) Math.round(total / weight);
+    }
+
+    public static class Line {
+
+        private final String text;
+        private final float confidence;
+        private final Rectangle boundingBox;
+
+        public Line(String text, float confidence, Rectangle boundingBox) {
+            this.text = text;
+            this.confidence = confidence;
+            this.boundingBox = boundingBox;
+        }
+
+        public String getText() { return text; }
+
+        public float getConfidence() { return confidence; }
+
+        public Rectangle getBoundingBox() { return boundingBox; }
+    }
+}
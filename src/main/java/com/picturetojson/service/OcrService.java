@@ -1,76 +1,274 @@
 package com.picturetojson.service;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
+import com.picturetojson.config.OcrProperties;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.ITessAPI;
 import net.sourceforge.tess4j.TesseractException;
+import net.sourceforge.tess4j.Word;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class OcrService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(OcrService.class);
-    
-    private final ITesseract tesseract;
-    
-    public OcrService(@Value("${app.ocr.tesseract.data-path}") String tessDataPath,
-                     @Value("${app.ocr.tesseract.language}") String language) {
-        this.tesseract = new Tesseract();
-        
-        // Configure Tesseract
-        if (new File(tessDataPath).exists()) {
-            tesseract.setDatapath(tessDataPath);
-        }
-        tesseract.setLanguage(language);
-        
-        // OCR configuration for better form recognition
-        tesseract.setOcrEngineMode(1); // Use LSTM OCR Engine Mode
-        tesseract.setPageSegMode(1); // Automatic page segmentation with OSD
-        
-        logger.info("OCR Service initialized with language: {} and data path: {}", language, tessDataPath);
+
+    private static final int PSM_AUTO = ITessAPI.TessPageSegMode.PSM_AUTO_OSD;
+    private static final int PSM_SINGLE_LINE = ITessAPI.TessPageSegMode.PSM_SINGLE_LINE;
+    private static final int PSM_SINGLE_BLOCK = ITessAPI.TessPageSegMode.PSM_SINGLE_BLOCK;
+
+    private final OcrProperties.Tesseract tesseractProperties;
+    private final OcrProperties.Cascade cascade;
+
+    // Engines are not thread-safe; each call borrows one for its duration
+    private final TesseractEnginePool fastEngines;
+    private final TesseractEnginePool accurateEngines;
+
+    public OcrService(OcrProperties ocrProperties) {
+        this.tesseractProperties = ocrProperties.getTesseract();
+        this.cascade = ocrProperties.getCascade();
+        int engines = ocrProperties.effectiveMaxEngines();
+        this.fastEngines = new TesseractEnginePool(tesseractProperties.getFastDataPath(),
+            tesseractProperties.getFastLanguage(), engines);
+        this.accurateEngines = new TesseractEnginePool(tesseractProperties.getDataPath(),
+            tesseractProperties.getLanguage(), engines);
+
+        logger.info("OCR Service initialized with language: {} and data path: {} (cascade {}, fast model: {} at {}, "
+                + "at most {} engines per model)",
+            tesseractProperties.getLanguage(), tesseractProperties.getDataPath(),
+            cascade.isEnabled() ? "enabled" : "disabled",
+            tesseractProperties.getFastLanguage(), tesseractProperties.getFastDataPath(), engines);
     }
-    
+
     /**
      * Extract text from image file
      */
     public String extractTextFromImage(File imageFile) throws TesseractException {
         try {
             logger.debug("Extracting text from image: {}", imageFile.getName());
-            String result = tesseract.doOCR(imageFile);
+            BufferedImage image = ImageIO.read(imageFile);
+            if (image == null) {
+                throw new TesseractException("Could not read image file: " + imageFile.getName());
+            }
+            String result = recognize(image).getText();
             logger.debug("OCR extraction completed for: {}", imageFile.getName());
-            return result != null ? result.trim() : "";
-        } catch (TesseractException e) {
+            return result;
+        } catch (IOException e) {
             logger.error("OCR failed for file: {}", imageFile.getName(), e);
-            throw e;
+            throw new TesseractException(e);
         }
     }
-    
+
     /**
      * Extract text from BufferedImage
      */
     public String extractTextFromImage(BufferedImage image) throws TesseractException {
-        try {
-            logger.debug("Extracting text from BufferedImage");
-            String result = tesseract.doOCR(image);
-            logger.debug("OCR extraction completed from BufferedImage");
-            return result != null ? result.trim() : "";
-        } catch (TesseractException e) {
-            logger.error("OCR failed for BufferedImage", e);
-            throw e;
+        return recognize(image).getText();
+    }
+
+    /**
+     * Recognize a page with no deadline
+     */
+    public OcrResult recognize(BufferedImage image) throws TesseractException {
+        return recognize(image, ProcessingControl.NONE);
+    }
+
+    /**
+     * Recognize a page with line-level confidence.
+     * <p>
+     * The fast model reads a downscaled copy first; only lines below the confidence threshold are
+     * re-read with the accurate model from an upscaled crop of the full-resolution page. Throws
+     * {@link ProcessingStoppedException} once the control is cancelled or past a deadline, also
+     * from the middle of a Tesseract pass.
+     */
+    public OcrResult recognize(BufferedImage image, ProcessingControl control) throws TesseractException {
+        logger.debug("Extracting text from BufferedImage");
+
+        if (!cascade.isEnabled()) {
+            OcrResult result = new OcrResult(readLines(accurateEngines, image, 1.0, control), 0);
+            logger.debug("OCR extraction completed with confidence {}", result.getConfidence());
+            return result;
+        }
+
+        List<OcrResult.Line> lines = readLines(fastEngines, image, cascade.getFastScale(), control);
+        List<Integer> lowConfidence = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).getConfidence() < cascade.getMinLineConfidence()) {
+                lowConfidence.add(i);
+            }
+        }
+
+        if (lowConfidence.isEmpty()) {
+            OcrResult result = new OcrResult(lines, 0);
+            logger.debug("OCR extraction completed on fast pass with confidence {}", result.getConfidence());
+            return result;
+        }
+
+        // Too many weak lines: one accurate full-page pass is cheaper than many crops
+        if (lowConfidence.size() > lines.size() * cascade.getMaxRefineRatio()) {
+            List<OcrResult.Line> accurateLines = readLines(accurateEngines, image, 1.0, control);
+            OcrResult result = OcrResult.weightedConfidence(accurateLines) >= OcrResult.weightedConfidence(lines)
+                ? new OcrResult(accurateLines, accurateLines.size())
+                : new OcrResult(lines, 0);
+            logger.debug("OCR re-read full page with accurate model ({} of {} lines weak), confidence {}",
+                lowConfidence.size(), lines.size(), result.getConfidence());
+            return result;
         }
+
+        List<OcrResult.Line> merged = new ArrayList<>(lines);
+        int refined = 0;
+        for (int index : lowConfidence) {
+            OcrResult.Line candidate = refineLine(image, lines.get(index), control);
+            if (candidate != null && candidate.getConfidence() > lines.get(index).getConfidence()) {
+                merged.set(index, candidate);
+                refined++;
+            }
+        }
+
+        OcrResult result = new OcrResult(merged, refined);
+        logger.debug("OCR extraction completed, refined {} of {} low-confidence lines, confidence {}",
+            refined, lowConfidence.size(), result.getConfidence());
+        return result;
     }
-    
+
     /**
-     * Get basic confidence estimate (simplified implementation)
+     * Read fixed regions of a page with the accurate model, one line of text per region in the
+     * given order; a region with nothing legible gives an empty line. Multi-line regions are read
+     * as a block and their lines joined with newlines.
      */
-    public int getBasicConfidence() {
-        // Return a default confidence value for now
-        // In a full implementation, this would analyze the OCR results
-        return 85;
+    public List<OcrResult.Line> recognizeRegions(BufferedImage image, List<Rectangle> regions, List<Boolean> multiline,
+                                                 ProcessingControl control) throws TesseractException {
+        Rectangle bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        List<Rectangle> clipped = new ArrayList<>(regions.size());
+        List<Integer> modes = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i++) {
+            Rectangle region = regions.get(i).intersection(bounds);
+            // An empty rectangle would make Tesseract read the whole page
+            clipped.add(region.isEmpty() ? new Rectangle(0, 0, 1, 1) : region);
+            modes.add(multiline.get(i) ? PSM_SINGLE_BLOCK : PSM_SINGLE_LINE);
+        }
+
+        List<List<Word>> results = accurateEngines.use(control, engine -> engine.recognizeRegions(image, clipped, modes,
+            ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE, control));
+
+        List<OcrResult.Line> lines = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i++) {
+            StringBuilder text = new StringBuilder();
+            List<OcrResult.Line> parts = new ArrayList<>();
+            for (Word word : results.get(i)) {
+                if (!word.getText().isEmpty()) {
+                    if (text.length() > 0) {
+                        text.append(multiline.get(i) ? '\n' : ' ');
+                    }
+                    text.append(word.getText());
+                    parts.add(new OcrResult.Line(word.getText(), word.getConfidence(), word.getBoundingBox()));
+                }
+            }
+            lines.add(new OcrResult.Line(text.toString(), parts.isEmpty() ? 0 : OcrResult.weightedConfidence(parts),
+                regions.get(i)));
+        }
+        return lines;
+    }
+
+    /**
+     * Read text lines, optionally on a scaled copy, with boxes mapped back to original coordinates
+     */
+    private List<OcrResult.Line> readLines(TesseractEnginePool engines, BufferedImage image, double scale,
+                                           ProcessingControl control) throws TesseractException {
+        BufferedImage input = scale == 1.0 ? image : scale(image, scale);
+        List<Word> words = engines.use(control, engine ->
+            engine.recognize(input, null, PSM_AUTO, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE, control));
+        List<OcrResult.Line> lines = new ArrayList<>();
+        for (Word word : words) {
+            if (word.getText().isEmpty()) {
+                continue;
+            }
+            Rectangle box = word.getBoundingBox();
+            Rectangle original = scale == 1.0 ? box : new Rectangle(
+                (int) (box.x / scale), (int) (box.y / scale),
+                (int) Math.ceil(box.width / scale), (int) Math.ceil(box.height / scale));
+            lines.add(new OcrResult.Line(word.getText(), word.getConfidence(), original));
+        }
+        return lines;
+    }
+
+    /**
+     * Re-read a single line from the full-resolution page with the accurate model
+     */
+    private OcrResult.Line refineLine(BufferedImage image, OcrResult.Line line, ProcessingControl control)
+            throws TesseractException {
+        int padding = cascade.getRefinePadding();
+        Rectangle region = new Rectangle(line.getBoundingBox());
+        region.grow(padding, padding);
+        region = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (region.isEmpty()) {
+            return null;
+        }
+
+        BufferedImage crop = scale(image.getSubimage(region.x, region.y, region.width, region.height),
+            cascade.getRefineScale());
+        List<Word> words = accurateEngines.use(control, engine -> engine.recognize(crop, null, PSM_SINGLE_LINE,
+            ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE, control));
+
+        StringBuilder text = new StringBuilder();
+        List<OcrResult.Line> parts = new ArrayList<>();
+        for (Word word : words) {
+            if (!word.getText().isEmpty()) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(word.getText());
+                parts.add(new OcrResult.Line(word.getText(), word.getConfidence(), word.getBoundingBox()));
+            }
+        }
+
+        return text.length() == 0 ? null
+            : new OcrResult.Line(text.toString(), OcrResult.weightedConfidence(parts), line.getBoundingBox());
+    }
+
+    private static BufferedImage scale(BufferedImage image, double scale) {
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getType() == BufferedImage.TYPE_BYTE_GRAY
+            ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            scale < 1.0 ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * Load an engine of each model, or reuse an idle one, and run one tiny recognition on it, so
+     * the traineddata is loaded before the first real page arrives
+     */
+    public void warmUp() throws TesseractException {
+        BufferedImage blank = new BufferedImage(64, 32, BufferedImage.TYPE_BYTE_GRAY);
+        accurateEngines.use(ProcessingControl.NONE, engine ->
+            engine.recognize(blank, null, PSM_SINGLE_LINE, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE));
+        if (cascade.isEnabled()) {
+            fastEngines.use(ProcessingControl.NONE, engine ->
+                engine.recognize(blank, null, PSM_SINGLE_LINE, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE));
+        }
+    }
+
+    @PreDestroy
+    void releaseEngines() {
+        fastEngines.close();
+        accurateEngines.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.picturetojson.service;
+
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Prepares document workers in the background once the application is ready.
+ * <p>
+ * One task per core document-processing thread loads an engine of each model into the shared
+ * pool; the tasks run at once, so each creates its own. The first task also loads OpenCV and
+ * waits for the JPA bootstrap, keeping all three off the first request's path.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ocr.warm-up", havingValue = "true")
+public class OcrWarmup {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OcrWarmup.class);
+    
+    private final OcrService ocrService;
+    private final ObjectProvider<ImageProcessingService> imageProcessingService;
+    private final DocumentRepository documentRepository;
+    private final Executor taskExecutor;
+    
+    public OcrWarmup(OcrService ocrService,
+                     ObjectProvider<ImageProcessingService> imageProcessingService,
+                     DocumentRepository documentRepository,
+                     @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.ocrService = ocrService;
+        this.imageProcessingService = imageProcessingService;
+        this.documentRepository = documentRepository;
+        this.taskExecutor = taskExecutor;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // A pool below its core size starts a new thread per task, so each task lands on its own worker
+        int workers = taskExecutor instanceof ThreadPoolTaskExecutor pool ? pool.getCorePoolSize() : 1;
+        long start = System.nanoTime();
+        
+        taskExecutor.execute(() -> {
+            try {
+                imageProcessingService.getObject();
+                documentRepository.count();
+            } catch (RuntimeException | LinkageError e) {
+                logger.warn("Background initialization failed: {}", e.getMessage());
+            }
+            warmUpEngines(start);
+        });
+        for (int i = 1; i < workers; i++) {
+            taskExecutor.execute(() -> warmUpEngines(start));
+        }
+    }
+    
+    private void warmUpEngines(long start) {
+        try {
+            ocrService.warmUp();
+            logger.info("OCR engines ready on {} after {} ms", Thread.currentThread().getName(),
+                (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception | LinkageError e) {
+            logger.warn("OCR warm-up failed on {}: {}", Thread.currentThread().getName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.picturetojson.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Loads the OpenCV native library from a persistent extraction directory.
+ * <p>
+ * {@code nu.pattern.OpenCV.loadShared()} copies the library out of the jar into a fresh
+ * temporary directory on every start. Here it is extracted once into a cache directory and
+ * loaded from there afterwards, so a container image can ship it pre-extracted. The directory
+ * comes from the {@code opencv.native.cache-dir} system property or the
+ * {@code OPENCV_NATIVE_CACHE_DIR} environment variable; unsupported platforms and any
+ * extraction failure fall back to the library's own loader.
+ */
+final class OpenCvLoader {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OpenCvLoader.class);
+    
+    // Must match the natives bundled with the org.openpnp:opencv version in pom.xml
+    private static final String LIBRARY_NAME = "opencv_java490";
+    private static final String RESOURCE_ROOT = "/nu/pattern/opencv/";
+    
+    private static boolean loaded;
+    
+    private OpenCvLoader() {
+    }
+    
+    static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        String platform = platform();
+        if (platform != null) {
+            try {
+                Path library = extract(RESOURCE_ROOT + platform + "/" + System.mapLibraryName(LIBRARY_NAME), cacheDirectory());
+                System.load(library.toString());
+                loaded = true;
+                logger.info("OpenCV loaded from {} in {} ms", library, (System.nanoTime() - start) / 1_000_000);
+                return;
+            } catch (IOException | UnsatisfiedLinkError e) {
+                logger.warn("Could not load OpenCV from the native cache, extracting to a temporary directory: {}",
+                    e.getMessage());
+            }
+        }
+        
+        nu.pattern.OpenCV.loadShared();
+        loaded = true;
+        logger.info("OpenCV loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Extract the resource unless an identical copy is already cached, and return its path
+     */
+    private static Path extract(String resource, Path directory) throws IOException {
+        URL url = OpenCvLoader.class.getResource(resource);
+        if (url == null) {
+            throw new IOException("Native library " + resource + " not found on the classpath");
+        }
+        
+        URLConnection connection = url.openConnection();
+        long size = connection.getContentLengthLong();
+        Path target = directory.resolve(System.mapLibraryName(LIBRARY_NAME));
+        if (Files.isRegularFile(target) && (size < 0 ? Files.size(target) > 0 : Files.size(target) == size)) {
+            return target;
+        }
+        
+        // Extract next to the target and rename, so concurrent starts never load a partial file
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, LIBRARY_NAME, ".tmp");
+        try (InputStream in = connection.getInputStream()) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Extracted OpenCV native library to {}", target);
+        return target;
+    }
+    
+    private static Path cacheDirectory() {
+        String configured = System.getProperty("opencv.native.cache-dir", System.getenv("OPENCV_NATIVE_CACHE_DIR"));
+        return configured != null && !configured.isBlank()
+            ? Paths.get(configured)
+            : Paths.get(System.getProperty("java.io.tmpdir"), "picture-to-json", "native");
+    }
+    
+    /**
+     * Directory of the bundled library for this OS and architecture, or null if none is shipped
+     */
+    private static String platform() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String arch = System.getProperty("os.arch", "").toLowerCase(Locale.ROOT);
+        boolean x64 = arch.equals("amd64") || arch.equals("x86_64");
+        boolean arm64 = arch.equals("aarch64") || arch.equals("arm64");
+        
+        if (os.contains("linux")) {
+            return x64 ? "linux/x86_64" : arm64 ? "linux/ARMv8" : arch.startsWith("arm") ? "linux/ARMv7" : null;
+        } else if (os.contains("mac")) {
+            return x64 ? "osx/x86_64" : arm64 ? "osx/ARMv8" : null;
+        } else if (os.contains("windows")) {
+            return x64 ? "windows/x86_64" : arch.equals("x86") ? "windows/x86_32" : null;
+        }
+        return null;
+    }
+}
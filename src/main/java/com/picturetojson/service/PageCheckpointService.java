@@ -0,0 +1,116 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.picturetojson.entity.Document;
+import com.picturetojson.entity.PageResult;
+import com.picturetojson.repository.PageResultRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each page's OCR result as soon as the page finishes, so a retried or restarted
+ * document resumes with the pages that are still missing or failed.
+ */
+@Service
+public class PageCheckpointService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PageCheckpointService.class);
+    
+    private final PageResultRepository pageResultRepository;
+    private final ObjectMapper objectMapper;
+    
+    public PageCheckpointService(PageResultRepository pageResultRepository, ObjectMapper objectMapper) {
+        this.pageResultRepository = pageResultRepository;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Results of the pages already completed, by 1-based page number
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, OcrResult> getCompletedPages(Long documentId) {
+        Map<Integer, OcrResult> pages = new LinkedHashMap<>();
+        for (PageResult page : pageResultRepository.findByDocumentIdAndStatusOrderByPageNumberAsc(
+                documentId, PageResult.PageStatus.COMPLETED)) {
+            try {
+                pages.put(page.getPageNumber(), readLines(page));
+            } catch (JsonProcessingException e) {
+                // Unreadable checkpoint: the page is simply processed again
+                logger.warn("Ignoring checkpoint of page {} of document ID: {}", page.getPageNumber(), documentId, e);
+            }
+        }
+        return pages;
+    }
+    
+    @Transactional
+    public void saveCompleted(Document document, int pageNumber, OcrResult result, long processingMillis) {
+        PageResult page = find(document, pageNumber);
+        page.setStatus(PageResult.PageStatus.COMPLETED);
+        page.setLines(writeLines(result));
+        page.setRefinedLines(result.getRefinedLines());
+        page.setConfidence(result.getConfidence());
+        page.setErrorMessage(null);
+        page.setProcessingMillis(processingMillis);
+        pageResultRepository.save(page);
+    }
+    
+    @Transactional
+    public void saveFailed(Document document, int pageNumber, String errorMessage, long processingMillis) {
+        PageResult page = find(document, pageNumber);
+        page.setStatus(PageResult.PageStatus.FAILED);
+        page.setLines(null);
+        page.setErrorMessage(errorMessage);
+        page.setProcessingMillis(processingMillis);
+        pageResultRepository.save(page);
+    }
+    
+    /**
+     * Drop the checkpoints once the document's results are stored, so reprocessing starts fresh
+     */
+    @Transactional
+    public void clear(Long documentId) {
+        int deleted = pageResultRepository.deleteByDocumentId(documentId);
+        logger.debug("Removed {} page checkpoints of document ID: {}", deleted, documentId);
+    }
+    
+    private PageResult find(Document document, int pageNumber) {
+        return pageResultRepository.findByDocumentIdAndPageNumber(document.getId(), pageNumber)
+            .orElseGet(() -> new PageResult(document, pageNumber));
+    }
+    
+    private String writeLines(OcrResult result) {
+        ArrayNode lines = objectMapper.createArrayNode();
+        for (OcrResult.Line line : result.getLines()) {
+            Rectangle box = line.getBoundingBox();
+            lines.addObject()
+                .put("text", line.getText())
+                .put("confidence", line.getConfidence())
+                .put("x", box.x)
+                .put("y", box.y)
+                .put("width", box.width)
+                .put("height", box.height);
+        }
+        return lines.toString();
+    }
+    
+    private OcrResult readLines(PageResult page) throws JsonProcessingException {
+        List<OcrResult.Line> lines = new ArrayList<>();
+        for (JsonNode line : objectMapper.readTree(page.getLines())) {
+            lines.add(new OcrResult.Line(line.path("text").asText(), (float) line.path("confidence").asDouble(),
+                new Rectangle(line.path("x").asInt(), line.path("y").asInt(),
+                    line.path("width").asInt(), line.path("height").asInt())));
+        }
+        return new OcrResult(lines, page.getRefinedLines() != null ? page.getRefinedLines() : 0);
+    }
+}
\ No newline at end of file
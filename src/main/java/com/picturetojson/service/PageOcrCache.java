@@ -0,0 +1,189 @@
+package com.picturetojson.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picturetojson.config.OcrProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Bounded cache of OCR results keyed by the perceptual hash of the preprocessed page.
+ * <p>
+ * A page whose hash is within {@code max-distance} bits of a cached page of the same client with
+ * the same aspect ratio is a match. A match is only reused once {@code min-reads} matching pages
+ * were read with identical text: boilerplate such as terms and conditions reads the same every
+ * time, while a form whose copies carry different filled-in values never qualifies, even though
+ * its copies hash alike. Pages in which form fields are found are never cached, and every
+ * {@code verify-every}th hit is read again and compared, so an entry that stops matching what
+ * OCR reads is dropped from reuse. Lookups compare against every cached hash, which for a few
+ * thousand pages still takes well under a millisecond.
+ */
+@Component
+public class PageOcrCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PageOcrCache.class);
+    
+    // Rescans of one page keep their proportions; a different page size must never match
+    private static final double MAX_ASPECT_DIFFERENCE = 0.02;
+    
+    private final OcrProperties.PageCache properties;
+    private final JsonGenerationService jsonGenerationService;
+    private final Cache<Fingerprint, Entry> pages;
+    
+    public PageOcrCache(OcrProperties ocrProperties, JsonGenerationService jsonGenerationService,
+                        ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = ocrProperties.getPageCache();
+        this.jsonGenerationService = jsonGenerationService;
+        this.pages = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxSize())
+            .recordStats()
+            .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, pages, "ocrPages"));
+    }
+    
+    /**
+     * Look up a preprocessed page among those of the client (null for none); null when the cache is disabled
+     */
+    public Lookup find(BufferedImage image, String clientId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Fingerprint fingerprint = new Fingerprint(clientId, PerceptualHash.dHash(image, properties.getHashSize()),
+            (double) image.getWidth() / image.getHeight());
+        
+        Fingerprint closest = null;
+        int closestDistance = Integer.MAX_VALUE;
+        for (Fingerprint candidate : pages.asMap().keySet()) {
+            if (!Objects.equals(candidate.clientId, fingerprint.clientId)) {
+                continue;
+            }
+            if (Math.abs(candidate.aspectRatio - fingerprint.aspectRatio) > MAX_ASPECT_DIFFERENCE * fingerprint.aspectRatio) {
+                continue;
+            }
+            int distance = PerceptualHash.distance(candidate.hash, fingerprint.hash);
+            if (distance <= properties.getMaxDistance() && distance < closestDistance) {
+                closest = candidate;
+                closestDistance = distance;
+            }
+        }
+        
+        // Looked up through the cache so hits, misses and recency are recorded
+        Entry entry = pages.getIfPresent(closest != null ? closest : fingerprint);
+        OcrResult result = entry != null ? entry.reusable(properties.getMinReads(), properties.getVerifyEvery()) : null;
+        if (result != null) {
+            logger.debug("Reusing OCR result of a cached page {} bits apart", closestDistance);
+        }
+        return new Lookup(fingerprint, entry, result);
+    }
+    
+    /**
+     * Record the OCR result of a looked-up page that was not reused, or was read again to verify a hit
+     */
+    public void put(Lookup lookup, OcrResult result) {
+        if (lookup == null || result.getLines().isEmpty() || result.getConfidence() < properties.getMinConfidence()) {
+            return;
+        }
+        if (lookup.entry == null) {
+            // Filled-in fields belong to one person; such a page must never answer for another
+            if (!jsonGenerationService.extractFields(result.getText()).isEmpty()) {
+                return;
+            }
+            pages.put(lookup.fingerprint, new Entry(result));
+        } else {
+            lookup.entry.addRead(result);
+        }
+    }
+    
+    /**
+     * Outcome of a lookup, to be passed back to {@link #put} after OCR
+     */
+    public static final class Lookup {
+        
+        private final Fingerprint fingerprint;
+        private final Entry entry;
+        private final OcrResult result;
+        
+        private Lookup(Fingerprint fingerprint, Entry entry, OcrResult result) {
+            this.fingerprint = fingerprint;
+            this.entry = entry;
+            this.result = result;
+        }
+        
+        /** Cached result to use instead of OCR, or null. */
+        public OcrResult getResult() { return result; }
+    }
+    
+    /**
+     * Result of the first read of a page and how later reads of matching pages compared
+     */
+    private static final class Entry {
+        
+        private final OcrResult result;
+        private final String text;
+        private int reads = 1;
+        private int hits;
+        private boolean variable;
+        
+        Entry(OcrResult result) {
+            this.result = result;
+            this.text = normalize(result.getText());
+        }
+        
+        synchronized OcrResult reusable(int minReads, int verifyEvery) {
+            if (variable || reads < minReads) {
+                return null;
+            }
+            // A sampled hit is read again and passed to addRead like any other read
+            hits++;
+            return verifyEvery > 0 && hits % verifyEvery == 0 ? null : result;
+        }
+        
+        synchronized void addRead(OcrResult read) {
+            if (normalize(read.getText()).equals(text)) {
+                reads++;
+            } else {
+                // Same look, different text: a form with filled-in values, never reused
+                variable = true;
+            }
+        }
+        
+        private static String normalize(String text) {
+            return text.replaceAll("\\s+", " ").trim();
+        }
+    }
+    
+    /**
+     * Client, perceptual hash and aspect ratio of a page
+     */
+    private static final class Fingerprint {
+        
+        private final String clientId;
+        private final long[] hash;
+        private final double aspectRatio;
+        
+        Fingerprint(String clientId, long[] hash, double aspectRatio) {
+            this.clientId = clientId;
+            this.hash = hash;
+            this.aspectRatio = aspectRatio;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Fingerprint fingerprint && Objects.equals(clientId, fingerprint.clientId)
+                && Arrays.equals(hash, fingerprint.hash) && aspectRatio == fingerprint.aspectRatio;
+        }
+        
+        @Override
+        public int hashCode() {
+            return (Objects.hashCode(clientId) * 31 + Arrays.hashCode(hash)) * 31 + Double.hashCode(aspectRatio);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,259 @@
+package com.picturetojson.service;
+
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Preprocessing and OCR of a single page, shared by document processing, synchronous conversion
+ * and the batch converter.
+ */
+@Service
+public class PageRecognitionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PageRecognitionService.class);
+    
+    private final OcrService ocrService;
+    private final ImageProcessingService imageProcessingService;
+    private final PageOcrCache pageOcrCache;
+    private final ZonalOcrService zonalOcrService;
+    private final FormClassifier formClassifier;
+    
+    public PageRecognitionService(OcrService ocrService, ImageProcessingService imageProcessingService,
+                                  PageOcrCache pageOcrCache, ZonalOcrService zonalOcrService,
+                                  FormClassifier formClassifier) {
+        this.ocrService = ocrService;
+        this.imageProcessingService = imageProcessingService;
+        this.pageOcrCache = pageOcrCache;
+        this.zonalOcrService = zonalOcrService;
+        this.formClassifier = formClassifier;
+    }
+    
+    /**
+     * Form type of a multi-page document from a thumbnail of its first page, or null when no
+     * layout matches or classification is off
+     */
+    public String classifyPage(PageSource source, ProcessingControl control) {
+        if (!formClassifier.isEnabled()) {
+            return null;
+        }
+        ProcessingEvents.Classification event = new ProcessingEvents.Classification();
+        event.begin();
+        try {
+            return classify(source.readThumbnail(0, formClassifier.getThumbnailSize()), event, control);
+        } catch (IOException | RuntimeException e) {
+            // The full render reports the real problem; without a type the document is read in full
+            logger.warn("Could not classify the first page: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Form type of an image document, or null when no layout matches or classification is off
+     */
+    public String classifyImage(File file, ProcessingControl control) {
+        if (!formClassifier.isEnabled()) {
+            return null;
+        }
+        ProcessingEvents.Classification event = new ProcessingEvents.Classification();
+        event.begin();
+        try {
+            return classify(imageProcessingService.thumbnail(file, formClassifier.getThumbnailSize()), event, control);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not classify image {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * {@link #classifyImage(File, ProcessingControl)} of an encoded image held in memory
+     */
+    public String classifyImage(byte[] data, ProcessingControl control) {
+        if (!formClassifier.isEnabled()) {
+            return null;
+        }
+        ProcessingEvents.Classification event = new ProcessingEvents.Classification();
+        event.begin();
+        try {
+            return classify(imageProcessingService.thumbnail(data, formClassifier.getThumbnailSize()), event, control);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not classify image: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Decode, preprocess and recognize one page (0-based) of a multi-page document
+     */
+    public OcrResult recognizePage(PageSource source, int page, ProcessingControl control)
+            throws IOException, TesseractException {
+        return recognizePage(source, page, null, control);
+    }
+    
+    /**
+     * Decode, preprocess and recognize one page (0-based), reading only the zones of the form
+     * layout when a form type is given
+     */
+    public OcrResult recognizePage(PageSource source, int page, String formType, ProcessingControl control)
+            throws IOException, TesseractException {
+        int pageNumber = page + 1;
+        if (formType != null && !zonalOcrService.hasZones(formType, pageNumber)) {
+            // Nothing to read on this page of the form
+            return OcrResult.empty();
+        }
+        
+        // Render or decode page as image
+        ProcessingEvents.PageRender event = new ProcessingEvents.PageRender();
+        event.begin();
+        BufferedImage image = source.readPage(page);
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = control.getDocumentId();
+            event.pageNumber = pageNumber;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.bytes = ProcessingEvents.imageBytes(image);
+            event.commit();
+        }
+        control.checkpoint();
+        
+        // Preprocess the rendered page as is, without a round trip through an encoded file
+        BufferedImage processedImage = preprocess(() -> imageProcessingService.preprocessImage(image),
+            ProcessingEvents.imageBytes(image), pageNumber, control);
+        control.checkpoint();
+        
+        // Extract text using OCR
+        return formType != null
+            ? recognizeForm(processedImage, formType, pageNumber, control)
+            : recognize(processedImage, pageNumber, control);
+    }
+    
+    /**
+     * Preprocess and recognize an image file
+     */
+    public OcrResult recognizeImage(File file, ProcessingControl control) throws IOException, TesseractException {
+        return recognizeImage(file, null, control);
+    }
+    
+    /**
+     * Preprocess and recognize an image file, only the zones of the form layout when a form type is given
+     */
+    public OcrResult recognizeImage(File file, String formType, ProcessingControl control)
+            throws IOException, TesseractException {
+        BufferedImage processedImage = preprocess(file, 1, control);
+        control.checkpoint();
+        return formType != null ? recognizeForm(processedImage, formType, 1, control) : recognize(processedImage, 1, control);
+    }
+    
+    /**
+     * Preprocess and recognize an encoded image held in memory, only the zones of the form layout
+     * when a form type is given
+     */
+    public OcrResult recognizeImage(byte[] data, String formType, ProcessingControl control)
+            throws IOException, TesseractException {
+        BufferedImage processedImage = preprocess(() -> imageProcessingService.preprocessImage(data), data.length, 1,
+            control);
+        control.checkpoint();
+        return formType != null ? recognizeForm(processedImage, formType, 1, control) : recognize(processedImage, 1, control);
+    }
+    
+    /**
+     * Decode and clean up a page image for OCR
+     */
+    public BufferedImage preprocess(File file, int pageNumber, ProcessingControl control) throws IOException {
+        return preprocess(() -> imageProcessingService.preprocessImage(file), file.length(), pageNumber, control);
+    }
+    
+    private BufferedImage preprocess(Preprocessor preprocessor, long inputSize, int pageNumber, ProcessingControl control)
+            throws IOException {
+        ProcessingEvents.Preprocessing event = new ProcessingEvents.Preprocessing();
+        event.begin();
+        BufferedImage processedImage = preprocessor.preprocess();
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = control.getDocumentId();
+            event.pageNumber = pageNumber;
+            event.fileSize = inputSize;
+            event.width = processedImage.getWidth();
+            event.height = processedImage.getHeight();
+            event.bytes = ProcessingEvents.imageBytes(processedImage);
+            event.commit();
+        }
+        return processedImage;
+    }
+    
+    /**
+     * Recognize a preprocessed page, reusing the result of a cached page that looks the same
+     */
+    public OcrResult recognize(BufferedImage image, int pageNumber, ProcessingControl control) throws TesseractException {
+        ProcessingEvents.Ocr event = new ProcessingEvents.Ocr();
+        event.begin();
+        PageOcrCache.Lookup lookup = pageOcrCache.find(image, control.getClientId());
+        OcrResult result = lookup != null ? lookup.getResult() : null;
+        boolean cached = result != null;
+        if (!cached) {
+            result = ocrService.recognize(image, control);
+            pageOcrCache.put(lookup, result);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = control.getDocumentId();
+            event.pageNumber = pageNumber;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.bytes = ProcessingEvents.imageBytes(image);
+            event.lines = result.getLines().size();
+            event.refinedLines = result.getRefinedLines();
+            event.confidence = result.getConfidence();
+            event.cached = cached;
+            event.commit();
+        }
+        return result;
+    }
+    
+    /**
+     * Read the zones of a form page; one line per zone, see {@link ZonalOcrService}
+     */
+    public OcrResult recognizeForm(BufferedImage image, String formType, int pageNumber, ProcessingControl control)
+            throws TesseractException {
+        ProcessingEvents.Ocr event = new ProcessingEvents.Ocr();
+        event.begin();
+        OcrResult result = zonalOcrService.recognize(image, formType, pageNumber, control);
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = control.getDocumentId();
+            event.pageNumber = pageNumber;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.bytes = ProcessingEvents.imageBytes(image);
+            event.lines = result.getLines().size();
+            event.confidence = result.getConfidence();
+            event.zonal = true;
+            event.commit();
+        }
+        return result;
+    }
+    
+    private String classify(BufferedImage thumbnail, ProcessingEvents.Classification event, ProcessingControl control) {
+        String formType = formClassifier.classify(thumbnail);
+        event.end();
+        if (event.shouldCommit()) {
+            event.documentId = control.getDocumentId();
+            event.width = thumbnail.getWidth();
+            event.height = thumbnail.getHeight();
+            event.formType = formType != null ? formType : "";
+            event.commit();
+        }
+        return formType;
+    }
+    
+    @FunctionalInterface
+    private interface Preprocessor {
+        BufferedImage preprocess() throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.picturetojson.service;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Pages of a multi-page document, decoded one at a time so memory stays bounded by a single page
+ * regardless of the page count.
+ */
+public interface PageSource extends Closeable {
+    
+    String PDF = "application/pdf";
+    String TIFF = "image/tiff";
+    
+    int getPageCount();
+    
+    /**
+     * Decode one page (0-based) as an image ready for preprocessing
+     */
+    BufferedImage readPage(int page) throws IOException;
+    
+    /**
+     * Decode one page (0-based) reduced to about the given long edge, for a quick look at its
+     * layout; sources that cannot decode at a reduced size return the full page
+     */
+    default BufferedImage readThumbnail(int page, int longEdge) throws IOException {
+        return readPage(page);
+    }
+    
+    /**
+     * True for content types read through a page source; single images are preprocessed directly
+     */
+    static boolean isPaged(String contentType) {
+        return PDF.equals(contentType) || TIFF.equals(contentType);
+    }
+    
+    static PageSource open(File file, String contentType) throws IOException {
+        if (PDF.equals(contentType)) {
+            return new PdfPageSource(file);
+        } else if (TIFF.equals(contentType)) {
+            return new TiffPageSource(file);
+        }
+        throw new IOException("Not a multi-page content type: " + contentType);
+    }
+    
+    /**
+     * Open a document held in memory; nothing is written to disk
+     */
+    static PageSource open(byte[] data, String contentType) throws IOException {
+        if (PDF.equals(contentType)) {
+            return new PdfPageSource(data);
+        } else if (TIFF.equals(contentType)) {
+            return new TiffPageSource(data);
+        }
+        throw new IOException("Not a multi-page content type: " + contentType);
+    }
+}
\ No newline at end of file
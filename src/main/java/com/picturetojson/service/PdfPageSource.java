@@ -0,0 +1,63 @@
+package com.picturetojson.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PDF pages rasterized with PDFBox.
+ */
+class PdfPageSource implements PageSource {
+    
+    // PDF pages are rasterized at this resolution before preprocessing
+    private static final int RENDER_DPI = 300;
+    
+    private final PDDocument document;
+    private final PDFRenderer renderer;
+    private PDFRenderer thumbnailRenderer;
+    
+    PdfPageSource(File file) throws IOException {
+        this(PDDocument.load(file));
+    }
+    
+    PdfPageSource(byte[] data) throws IOException {
+        this(PDDocument.load(data));
+    }
+    
+    private PdfPageSource(PDDocument document) {
+        this.document = document;
+        this.renderer = new PDFRenderer(document);
+    }
+    
+    @Override
+    public int getPageCount() {
+        return document.getNumberOfPages();
+    }
+    
+    @Override
+    public BufferedImage readPage(int page) throws IOException {
+        return renderer.renderImageWithDPI(page, RENDER_DPI);
+    }
+    
+    @Override
+    public BufferedImage readThumbnail(int page, int longEdge) throws IOException {
+        if (thumbnailRenderer == null) {
+            // Scanned pages are decoded at a fraction of their resolution instead of in full
+            thumbnailRenderer = new PDFRenderer(document);
+            thumbnailRenderer.setSubsamplingAllowed(true);
+        }
+        PDRectangle box = document.getPage(page).getCropBox();
+        float scale = longEdge / Math.max(box.getWidth(), box.getHeight());
+        return thumbnailRenderer.renderImage(page, scale, ImageType.GRAY);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.picturetojson.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+/**
+ * Difference hash (dHash) of a page image.
+ * <p>
+ * The page is reduced to a (size + 1) x (size + 1) grid of mean brightness, and each bit records
+ * whether a cell is clearly darker than its right neighbour, then whether it is clearly darker
+ * than the one below. Rescans of the same page differ in noise, contrast and a few pixels of
+ * offset, which barely move the cell means, so their hashes differ in only a few bits.
+ */
+final class PerceptualHash {
+    
+    // Blank neighbouring cells differ only by scanner noise; without a minimum step their bits would be random
+    private static final double MIN_STEP = 2.0;
+    
+    private PerceptualHash() {
+    }
+    
+    /**
+     * Hash of 2 * size * size bits, packed into longs
+     */
+    static long[] dHash(BufferedImage image, int size) {
+        double[][] cells = cellMeans(image.getRaster(), size + 1);
+        long[] bits = new long[(2 * size * size + 63) / 64];
+        int bit = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (cells[row][column + 1] - cells[row][column] > MIN_STEP) {
+                    bits[bit / 64] |= 1L << (bit % 64);
+                }
+                bit++;
+                if (cells[row + 1][column] - cells[row][column] > MIN_STEP) {
+                    bits[bit / 64] |= 1L << (bit % 64);
+                }
+                bit++;
+            }
+        }
+        return bits;
+    }
+    
+    /**
+     * Number of differing bits
+     */
+    static int distance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+    
+    /**
+     * Mean brightness of a grid x grid division of the image, averaging every pixel
+     */
+    private static double[][] cellMeans(Raster raster, int grid) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int bands = raster.getNumBands();
+        double[][] sums = new double[grid][grid];
+        long[][] counts = new long[grid][grid];
+        int[] row = new int[width * bands];
+        
+        for (int y = 0; y < height; y++) {
+            int cellRow = (int) ((long) y * grid / height);
+            raster.getPixels(raster.getMinX(), raster.getMinY() + y, width, 1, row);
+            for (int x = 0; x < width; x++) {
+                int cellColumn = (int) ((long) x * grid / width);
+                int offset = x * bands;
+                sums[cellRow][cellColumn] += bands >= 3
+                    ? 0.299 * row[offset] + 0.587 * row[offset + 1] + 0.114 * row[offset + 2]
+                    : row[offset];
+                counts[cellRow][cellColumn]++;
+            }
+        }
+        
+        for (int r = 0; r < grid; r++) {
+            for (int c = 0; c < grid; c++) {
+                sums[r][c] = counts[r][c] > 0 ? sums[r][c] / counts[r][c] : 0;
+            }
+        }
+        return sums;
+    }
+}
\ No newline at end of file
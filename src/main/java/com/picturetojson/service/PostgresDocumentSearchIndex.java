@@ -0,0 +1,92 @@
+package com.picturetojson.service;
+
+import com.picturetojson.entity.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index stored in a GIN-indexed {@code tsvector} column on the documents table.
+ * <p>
+ * OCR text and field values are parsed with the {@code simple} configuration; exact field
+ * matches are added verbatim as {@code field:name=value} lexemes so both kinds of lookup
+ * are answered by the same index. The column and its index are created by the schema migrations.
+ */
+@Service
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "postgres")
+public class PostgresDocumentSearchIndex implements DocumentSearchIndex {
+    
+    private static final String UPDATE_VECTOR =
+        "UPDATE documents SET search_vector = " +
+        "to_tsvector('simple', COALESCE(extracted_text, '') || ' ' || ?) || setweight(array_to_tsvector(?), 'A') " +
+        "WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonGenerationService jsonGenerationService;
+    
+    public PostgresDocumentSearchIndex(JdbcTemplate jdbcTemplate, JsonGenerationService jsonGenerationService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonGenerationService = jsonGenerationService;
+    }
+    
+    @Override
+    public void index(Document document, String correctedJson) {
+        Map<String, String> fields = jsonGenerationService.effectiveFields(document.getExtractedJson(), correctedJson);
+        
+        String[] fieldTerms = fields.entrySet().stream()
+            .map(entry -> DocumentSearchIndex.fieldTerm(entry.getKey(), entry.getValue()))
+            .toArray(String[]::new);
+        String fieldText = String.join(" ", fields.values());
+        
+        jdbcTemplate.update(UPDATE_VECTOR, statement -> {
+            statement.setString(1, fieldText);
+            statement.setArray(2, statement.getConnection().createArrayOf("text", fieldTerms));
+            statement.setLong(3, document.getId());
+        });
+    }
+    
+    @Override
+    public void remove(Long documentId) {
+        jdbcTemplate.update("UPDATE documents SET search_vector = NULL WHERE id = ?", documentId);
+    }
+    
+    @Override
+    public void documentsDeleted(Collection<Long> documentIds) {
+        // The vectors were stored in the deleted rows
+    }
+    
+    @Override
+    public List<Long> search(String query, Map<String, String> fieldFilters, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        
+        if (query != null && !query.isBlank()) {
+            conditions.add("search_vector @@ plainto_tsquery('simple', ?)");
+            parameters.add(query);
+        }
+        fieldFilters.forEach((field, value) -> {
+            conditions.add("search_vector @@ CAST(? AS tsquery)");
+            parameters.add(quoteLexeme(DocumentSearchIndex.fieldTerm(field, value)));
+        });
+        if (conditions.isEmpty()) {
+            return List.of();
+        }
+        
+        parameters.add(limit);
+        return jdbcTemplate.queryForList(
+            "SELECT id FROM documents WHERE " + String.join(" AND ", conditions) + " ORDER BY id DESC LIMIT ?",
+            Long.class, parameters.toArray());
+    }
+    
+    /**
+     * Quote a lexeme so tsquery input takes it verbatim instead of parsing operators
+     */
+    private static String quoteLexeme(String lexeme) {
+        return "'" + lexeme.replace("\\", "\\\\").replace("'", "''") + "'";
+    }
+}
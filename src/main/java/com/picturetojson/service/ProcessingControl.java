@@ -0,0 +1,121 @@
+package com.picturetojson.service;
+
+import com.picturetojson.entity.Document;
+
+import java.time.Duration;
+
+/**
+ * Stop signal for one processing run: an explicit cancel, the document deadline or the
+ * deadline of the current page.
+ * <p>
+ * Processing calls {@link #checkpoint()} between steps, and OCR polls {@link #shouldStop()}
+ * from inside Tesseract, so a run stops within one word of being cancelled or timing out.
+ */
+public class ProcessingControl {
+    
+    /** Never stops; used when no deadline applies. */
+    public static final ProcessingControl NONE = new ProcessingControl(null, null);
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    
+    private final long documentId;
+    private final Duration pageTimeout;
+    private final long startNanos = System.nanoTime();
+    private volatile Duration documentTimeout;
+    private volatile long documentDeadlineNanos;
+    private volatile long pageDeadlineNanos;
+    private volatile boolean cancelled;
+    private volatile String clientId;
+    
+    public ProcessingControl(Duration documentTimeout, Duration pageTimeout) {
+        this(0, documentTimeout, pageTimeout);
+    }
+    
+    public ProcessingControl(long documentId, Duration documentTimeout, Duration pageTimeout) {
+        this.documentId = documentId;
+        this.documentTimeout = documentTimeout;
+        this.pageTimeout = pageTimeout;
+        this.documentDeadlineNanos = documentTimeout != null ? startNanos + documentTimeout.toNanos() : NO_DEADLINE;
+        this.pageDeadlineNanos = NO_DEADLINE;
+    }
+    
+    /**
+     * Document the run belongs to, 0 outside document processing; recorded on pipeline events
+     */
+    public long getDocumentId() {
+        return documentId;
+    }
+    
+    /**
+     * Client the run belongs to, null when there is none; cached OCR results are never shared across clients
+     */
+    public String getClientId() {
+        return clientId;
+    }
+    
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+    
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Replace the document deadline, e.g. once the page count is known; still measured from the start
+     */
+    public void setDocumentTimeout(Duration timeout) {
+        documentTimeout = timeout;
+        documentDeadlineNanos = startNanos + timeout.toNanos();
+    }
+    
+    /**
+     * Start the page clock
+     */
+    public void startPage() {
+        pageDeadlineNanos = pageTimeout != null ? System.nanoTime() + pageTimeout.toNanos() : NO_DEADLINE;
+    }
+    
+    public boolean shouldStop() {
+        long now = System.nanoTime();
+        return cancelled || passed(documentDeadlineNanos, now) || passed(pageDeadlineNanos, now);
+    }
+    
+    /**
+     * Milliseconds until the nearer of the document and page deadlines, at least 1
+     */
+    public long remainingMillis() {
+        long deadline = documentDeadlineNanos;
+        if (deadline == NO_DEADLINE || (pageDeadlineNanos != NO_DEADLINE && pageDeadlineNanos - deadline < 0)) {
+            deadline = pageDeadlineNanos;
+        }
+        return deadline == NO_DEADLINE ? Long.MAX_VALUE : Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+    }
+    
+    /**
+     * Throw if the run has been cancelled or has passed a deadline
+     */
+    public void checkpoint() {
+        if (cancelled) {
+            throw new ProcessingStoppedException(Document.ProcessingStatus.CANCELLED, "Processing cancelled");
+        }
+        long now = System.nanoTime();
+        if (passed(documentDeadlineNanos, now)) {
+            throw new ProcessingStoppedException(Document.ProcessingStatus.TIMED_OUT,
+                "Processing exceeded the document deadline of " + documentTimeout);
+        }
+        if (passed(pageDeadlineNanos, now)) {
+            throw new ProcessingStoppedException(Document.ProcessingStatus.TIMED_OUT,
+                "Processing exceeded the page deadline of " + pageTimeout);
+        }
+    }
+    
+    // nanoTime values may wrap, so deadlines are compared by difference
+    private static boolean passed(long deadline, long now) {
+        return deadline != NO_DEADLINE && now - deadline > 0;
+    }
+}
\ No newline at end of file
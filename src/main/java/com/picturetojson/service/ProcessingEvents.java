@@ -0,0 +1,221 @@
+package com.picturetojson.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for the processing pipeline.
+ * <p>
+ * Events are committed only while a recording has them enabled; otherwise creating and
+ * committing one costs next to nothing, so they stay in place in production. Start a recording
+ * with the {@code flightrecorder} actuator endpoint or {@code jcmd <pid> JFR.start}.
+ */
+public final class ProcessingEvents {
+    
+    /** All event types, for enabling them on a recording. */
+    public static final List<Class<? extends Event>> TYPES = List.of(
+        DocumentProcessing.class, Classification.class, PageRender.class, Preprocessing.class, Ocr.class,
+        Extraction.class, Persistence.class);
+    
+    private ProcessingEvents() {
+    }
+    
+    /**
+     * Bytes of an image's pixel data
+     */
+    static long imageBytes(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+    
+    @Name("picturetojson.DocumentProcessing")
+    @Label("Document Processing")
+    @Description("One processing run of a document, from start to its final status")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class DocumentProcessing extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Content Type")
+        String contentType;
+        
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+        
+        @Label("Pages")
+        int pages;
+        
+        @Label("Status")
+        String status;
+    }
+    
+    @Name("picturetojson.Classification")
+    @Label("Form Classification")
+    @Description("Reading a first-page thumbnail and matching it against the form layouts")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class Classification extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Width")
+        int width;
+        
+        @Label("Height")
+        int height;
+        
+        @Label("Form Type")
+        @Description("Detected form type, empty when no layout matched")
+        String formType;
+    }
+    
+    @Name("picturetojson.PageRender")
+    @Label("Page Render")
+    @Description("Rendering or decoding one page of a PDF or TIFF")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class PageRender extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Page")
+        int pageNumber;
+        
+        @Label("Width")
+        int width;
+        
+        @Label("Height")
+        int height;
+        
+        @Label("Image Size")
+        @DataAmount
+        long bytes;
+    }
+    
+    @Name("picturetojson.Preprocessing")
+    @Label("Preprocessing")
+    @Description("Decoding and cleanup of a page image before OCR")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class Preprocessing extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Page")
+        int pageNumber;
+        
+        @Label("Input Size")
+        @Description("Encoded size of an image file or upload, pixel data of a rendered page")
+        @DataAmount
+        long fileSize;
+        
+        @Label("Width")
+        int width;
+        
+        @Label("Height")
+        int height;
+        
+        @Label("Image Size")
+        @DataAmount
+        long bytes;
+    }
+    
+    @Name("picturetojson.Ocr")
+    @Label("OCR")
+    @Description("Text recognition of one page, including line re-reads and page cache lookups")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class Ocr extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Page")
+        int pageNumber;
+        
+        @Label("Width")
+        int width;
+        
+        @Label("Height")
+        int height;
+        
+        @Label("Image Size")
+        @DataAmount
+        long bytes;
+        
+        @Label("Lines")
+        int lines;
+        
+        @Label("Refined Lines")
+        int refinedLines;
+        
+        @Label("Confidence")
+        int confidence;
+        
+        @Label("Cached")
+        @Description("Result reused from a page with a near-identical perceptual hash")
+        boolean cached;
+        
+        @Label("Zonal")
+        @Description("Only the field zones of a known form layout were read")
+        boolean zonal;
+    }
+    
+    @Name("picturetojson.Extraction")
+    @Label("Field Extraction")
+    @Description("Field extraction from the text of one page")
+    @Category({"Picture to JSON", "Processing"})
+    @StackTrace(false)
+    public static class Extraction extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Page")
+        int pageNumber;
+        
+        @Label("Text Length")
+        int characters;
+        
+        @Label("Fields")
+        int fields;
+    }
+    
+    @Name("picturetojson.Persistence")
+    @Label("Persistence")
+    @Description("A database write of processing state or results")
+    @Category({"Picture to JSON", "Database"})
+    @StackTrace(false)
+    public static class Persistence extends Event {
+        
+        @Label("Document ID")
+        long documentId;
+        
+        @Label("Page")
+        @Description("Page the write belongs to, 0 for the whole document")
+        int pageNumber;
+        
+        @Label("Operation")
+        String operation;
+        
+        @Label("Size")
+        @Description("Characters of text and JSON written")
+        @DataAmount
+        long bytes;
+    }
+}
\ No newline at end of file
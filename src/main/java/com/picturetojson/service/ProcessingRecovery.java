@@ -0,0 +1,59 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.config.QuotaProperties;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Re-queues documents that were still processing when the application stopped. Their completed
+ * pages are checkpointed, so each resumes at its first incomplete page.
+ */
+@Component
+public class ProcessingRecovery {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingRecovery.class);
+    
+    private final DocumentRepository documentRepository;
+    private final FairShareDispatcher fairShareDispatcher;
+    private final ProcessingProperties processingProperties;
+    private final QuotaProperties quotaProperties;
+    
+    public ProcessingRecovery(DocumentRepository documentRepository,
+                              FairShareDispatcher fairShareDispatcher,
+                              ProcessingProperties processingProperties,
+                              QuotaProperties quotaProperties) {
+        this.documentRepository = documentRepository;
+        this.fairShareDispatcher = fairShareDispatcher;
+        this.processingProperties = processingProperties;
+        this.quotaProperties = quotaProperties;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!processingProperties.isResumeOnStartup()) {
+            return;
+        }
+        
+        List<Document> interrupted = documentRepository.findByStatus(Document.ProcessingStatus.PROCESSING);
+        // Back into each submitter's fair-share queue
+        Map<String, List<Long>> byClient = interrupted.stream()
+            .collect(Collectors.groupingBy(
+                document -> Objects.requireNonNullElse(document.getClientId(), quotaProperties.getDefaultClient()),
+                Collectors.mapping(Document::getId, Collectors.toList())));
+        byClient.forEach(fairShareDispatcher::submit);
+        if (!interrupted.isEmpty()) {
+            logger.info("Resumed {} documents interrupted by the last shutdown", interrupted.size());
+        }
+    }
+}
\ No newline at end of file
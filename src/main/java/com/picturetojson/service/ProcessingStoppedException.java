@@ -0,0 +1,23 @@
+package com.picturetojson.service;
+
+import com.picturetojson.entity.Document;
+
+/**
+ * Processing ended early because it was cancelled or ran past a deadline.
+ */
+public class ProcessingStoppedException extends RuntimeException {
+    
+    private final Document.ProcessingStatus status;
+    
+    public ProcessingStoppedException(Document.ProcessingStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+    
+    /**
+     * {@code CANCELLED} or {@code TIMED_OUT}
+     */
+    public Document.ProcessingStatus getStatus() {
+        return status;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.picturetojson.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picturetojson.config.QuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token-bucket limits on uploads and processing requests.
+ * <p>
+ * Clients are identified by a request header (see {@link QuotaProperties#getClientHeader()}).
+ * Only clients configured under {@code app.quotas.clients} keep their own identity; any other
+ * header value counts as the default client, so callers cannot escape their limits or grow the
+ * per-client state and meters by inventing ids. Every decision is counted as {@code quota.requests} tagged with client, operation and outcome.
+ */
+@Service
+public class RateLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    
+    public enum Operation {
+        UPLOAD,
+        PROCESS
+    }
+    
+    private final QuotaProperties properties;
+    private final MeterRegistry meterRegistry;
+    
+    // Buckets of idle clients are dropped; a returning client starts with a full bucket
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+        .expireAfterAccess(Duration.ofHours(1))
+        .build();
+    
+    public RateLimiter(QuotaProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Client of a request: the configured client named by the header, otherwise the default client
+     */
+    public String resolveClient(HttpServletRequest request) {
+        String clientId = request.getHeader(properties.getClientHeader());
+        if (clientId == null || !properties.getClients().containsKey(clientId.trim())) {
+            return properties.getDefaultClient();
+        }
+        return clientId.trim();
+    }
+    
+    /**
+     * Take permits for a number of documents, or throw if the client's bucket is empty
+     */
+    public void acquire(String clientId, Operation operation, int documents) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        
+        TokenBucket bucket = buckets.get(clientId + '/' + operation, key -> newBucket(clientId, operation));
+        if (bucket.tryConsume(documents)) {
+            count(clientId, operation, "accepted");
+            return;
+        }
+        
+        count(clientId, operation, "rejected");
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(bucket.nanosUntilAvailable(documents) + 999_999_999L));
+        logger.info("Rate limit exceeded for client {} on {} ({} documents), retry after {} s",
+            clientId, operation, documents, retryAfter);
+        throw new RateLimitExceededException("Rate limit exceeded for " + operation.name().toLowerCase(Locale.ROOT)
+            + "; retry after " + retryAfter + " s", retryAfter);
+    }
+    
+    private TokenBucket newBucket(String clientId, Operation operation) {
+        QuotaProperties.Limit limit = operation == Operation.UPLOAD
+            ? properties.uploadLimit(clientId)
+            : properties.processLimit(clientId);
+        return new TokenBucket(limit.getBurst(), limit.getRatePerSecond());
+    }
+    
+    private void count(String clientId, Operation operation, String outcome) {
+        Counter.builder("quota.requests")
+            .description("Upload and process requests by client and rate-limit outcome")
+            .tag("client", clientId)
+            .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.picturetojson.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs queries that tolerate slightly stale data on the read replica, when one is configured.
+ * <p>
+ * The query gets its own read-only transaction, marked for the replica before it begins, because
+ * JPA takes the connection before the transaction's read-only flag is visible.
+ * {@link com.picturetojson.config.ReplicaRoutingDataSource} claims the mark for the first connection
+ * taken, so transactions started further in still go to the primary; it uses the primary anyway
+ * while the replica lags too far or cannot be reached. Called inside a transaction, the query
+ * joins it on whichever database that transaction uses. Without a replica the query runs
+ * read-only on the one database.
+ */
+@Component
+public class ReplicaReads {
+    
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public ReplicaReads(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+    
+    public <T> T read(Supplier<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        REQUESTED.set(Boolean.TRUE);
+        try {
+            return transactionTemplate.execute(status -> query.get());
+        } finally {
+            REQUESTED.remove();
+        }
+    }
+    
+    /**
+     * True once for a connection requested on behalf of {@link #read}
+     */
+    public static boolean claim() {
+        if (REQUESTED.get() == null) {
+            return false;
+        }
+        REQUESTED.remove();
+        return true;
+    }
+}
\ No newline at end of file
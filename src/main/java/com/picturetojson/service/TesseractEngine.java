@@ -0,0 +1,173 @@
+package com.picturetojson.service;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI;
+import net.sourceforge.tess4j.TesseractException;
+import net.sourceforge.tess4j.Word;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Tesseract API handle that stays initialized between calls.
+ * <p>
+ * {@link net.sourceforge.tess4j.Tesseract} creates and tears down the native API (reloading the
+ * traineddata) on every call. An engine is not thread-safe; {@link TesseractEnginePool} lends each
+ * one to a single thread at a time.
+ */
+class TesseractEngine implements AutoCloseable {
+
+    private final TessAPI api;
+    private final ITessAPI.TessBaseAPI handle;
+    private final String description;
+
+    TesseractEngine(String dataPath, String language, int ocrEngineMode) throws TesseractException {
+        this.api = TessAPI.INSTANCE;
+        this.handle = api.TessBaseAPICreate();
+        String resolvedDataPath = dataPath != null && new File(dataPath).exists() ? dataPath : null;
+        if (api.TessBaseAPIInit2(handle, resolvedDataPath, language, ocrEngineMode) != 0) {
+            api.TessBaseAPIDelete(handle);
+            throw new TesseractException("Could not initialize Tesseract with language '" + language
+                + "' and data path '" + dataPath + "'");
+        }
+        this.description = language + "@" + (resolvedDataPath != null ? resolvedDataPath : "default");
+    }
+
+    /**
+     * Recognize the image (or a region of it) and return results at the given iterator level,
+     * with bounding boxes in image coordinates and confidence in the 0-100 range.
+     */
+    List<Word> recognize(BufferedImage image, Rectangle region, int pageSegMode, int level) throws TesseractException {
+        return recognize(image, region, pageSegMode, level, ProcessingControl.NONE);
+    }
+
+    /**
+     * Recognize under a processing control: Tesseract polls it between words and gives up at its
+     * deadline, and a stopped run surfaces as {@link ProcessingStoppedException}
+     */
+    List<Word> recognize(BufferedImage image, Rectangle region, int pageSegMode, int level, ProcessingControl control)
+            throws TesseractException {
+        return recognizeRegions(image, Collections.singletonList(region), List.of(pageSegMode), level, control).get(0);
+    }
+
+    /**
+     * Recognize several regions of one image, each with its own page segmentation mode. The image
+     * is handed to Tesseract once; each rectangle then only clears the previous results.
+     */
+    List<List<Word>> recognizeRegions(BufferedImage image, List<Rectangle> regions, List<Integer> pageSegModes,
+                                      int level, ProcessingControl control) throws TesseractException {
+        control.checkpoint();
+        setImage(image);
+
+        ITessAPI.ETEXT_DESC monitor = null;
+        ITessAPI.TessCancelFunc cancelFunc = null;
+        if (control != ProcessingControl.NONE) {
+            monitor = api.TessMonitorCreate();
+            // The monitor is owned by native code; copying the Java fields back would clear the callback
+            monitor.setAutoSynch(false);
+            cancelFunc = (cancelThis, words) -> control.shouldStop();
+            api.TessMonitorSetCancelFunc(monitor, cancelFunc);
+        }
+
+        try {
+            List<List<Word>> results = new ArrayList<>(regions.size());
+            for (int i = 0; i < regions.size(); i++) {
+                api.TessBaseAPISetPageSegMode(handle, pageSegModes.get(i));
+                Rectangle region = regions.get(i);
+                if (region != null) {
+                    api.TessBaseAPISetRectangle(handle, region.x, region.y, region.width, region.height);
+                }
+                if (monitor != null) {
+                    api.TessMonitorSetDeadlineMSecs(monitor, (int) Math.min(Integer.MAX_VALUE, control.remainingMillis()));
+                }
+                if (api.TessBaseAPIRecognize(handle, monitor) != 0) {
+                    control.checkpoint();
+                    throw new TesseractException("Tesseract recognition failed (" + description + ")");
+                }
+                control.checkpoint();
+                results.add(collect(level));
+            }
+            return results;
+        } finally {
+            api.TessBaseAPIClear(handle);
+            if (monitor != null) {
+                api.TessMonitorDelete(monitor);
+            }
+            // Native code holds the callback only by address
+            Reference.reachabilityFence(cancelFunc);
+        }
+    }
+
+    private void setImage(BufferedImage image) {
+        ByteBuffer buffer = ImageIOHelper.getImageByteBuffer(image);
+        int bitsPerPixel = bitsPerPixel(image);
+        int bytesPerPixel = bitsPerPixel / 8;
+        int bytesPerLine = (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0);
+        api.TessBaseAPISetImage(handle, buffer, image.getWidth(), image.getHeight(), bytesPerPixel, bytesPerLine);
+    }
+
+    /**
+     * Pixel depth of the buffer {@link ImageIOHelper#getImageByteBuffer} returns: the image's own
+     * for byte rasters, 8-bit gray for everything else, which it converts
+     */
+    static int bitsPerPixel(BufferedImage image) {
+        return image.getRaster().getDataBuffer() instanceof DataBufferByte ? image.getColorModel().getPixelSize() : 8;
+    }
+
+    private List<Word> collect(int level) {
+        List<Word> results = new ArrayList<>();
+        ITessAPI.TessResultIterator resultIterator = api.TessBaseAPIGetIterator(handle);
+        if (resultIterator == null) {
+            return results;
+        }
+
+        try {
+            ITessAPI.TessPageIterator pageIterator = api.TessResultIteratorGetPageIterator(resultIterator);
+            api.TessPageIteratorBegin(pageIterator);
+            do {
+                Pointer textPointer = api.TessResultIteratorGetUTF8Text(resultIterator, level);
+                if (textPointer == null) {
+                    continue;
+                }
+                String text = textPointer.getString(0);
+                api.TessDeleteText(textPointer);
+
+                float confidence = api.TessResultIteratorConfidence(resultIterator, level);
+                IntBuffer left = IntBuffer.allocate(1);
+                IntBuffer top = IntBuffer.allocate(1);
+                IntBuffer right = IntBuffer.allocate(1);
+                IntBuffer bottom = IntBuffer.allocate(1);
+                api.TessPageIteratorBoundingBox(pageIterator, level, left, top, right, bottom);
+
+                Rectangle box = new Rectangle(left.get(0), top.get(0),
+                    right.get(0) - left.get(0), bottom.get(0) - top.get(0));
+                results.add(new Word(text.trim(), confidence, box));
+            } while (api.TessPageIteratorNext(pageIterator, level) == ITessAPI.TRUE);
+        } finally {
+            api.TessResultIteratorDelete(resultIterator);
+        }
+
+        return results;
+    }
+
+    @Override
+    public void close() {
+        api.TessBaseAPIEnd(handle);
+        api.TessBaseAPIDelete(handle);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,109 @@
+package com.picturetojson.service;
+
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engines for one Tesseract model, lent to one thread at a time.
+ * <p>
+ * Engines are created on first demand up to the limit and kept for reuse, so the native memory
+ * held stays bounded whichever threads run OCR: request threads, document workers, zone threads
+ * or the batch converter. A thread that finds every engine in use waits for one, checking its
+ * processing control while it does.
+ */
+class TesseractEnginePool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TesseractEnginePool.class);
+
+    // How often a waiting thread checks for cancellation and deadlines
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    private final EngineFactory factory;
+    private final int size;
+    private final Semaphore permits;
+    private final Deque<TesseractEngine> idle = new ConcurrentLinkedDeque<>();
+    private final Queue<TesseractEngine> all = new ConcurrentLinkedQueue<>();
+
+    TesseractEnginePool(String dataPath, String language, int size) {
+        // LSTM OCR Engine Mode
+        this(() -> new TesseractEngine(dataPath, language, ITessAPI.TessOcrEngineMode.OEM_LSTM_ONLY), size);
+    }
+
+    TesseractEnginePool(EngineFactory factory, int size) {
+        this.factory = factory;
+        this.size = size;
+        this.permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Run a call with an engine to itself; the engine is returned to the pool afterwards
+     */
+    <T> T use(ProcessingControl control, EngineCall<T> call) throws TesseractException {
+        TesseractEngine engine = borrow(control);
+        try {
+            return call.apply(engine);
+        } finally {
+            // The engine clears its image and results after every call, so it is ready for the next one
+            idle.addFirst(engine);
+            permits.release();
+        }
+    }
+
+    private TesseractEngine borrow(ProcessingControl control) throws TesseractException {
+        try {
+            while (!permits.tryAcquire(Math.min(control.remainingMillis(), WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS)) {
+                control.checkpoint();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TesseractException(e);
+        }
+
+        TesseractEngine engine = idle.pollFirst();
+        if (engine != null) {
+            return engine;
+        }
+        try {
+            engine = factory.create();
+        } catch (TesseractException | RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+        all.add(engine);
+        logger.debug("Initialized Tesseract engine {} ({} of at most {})", engine, all.size(), size);
+        return engine;
+    }
+
+    /** Engines created so far. */
+    int created() {
+        return all.size();
+    }
+
+    @Override
+    public void close() {
+        TesseractEngine engine;
+        while ((engine = all.poll()) != null) {
+            engine.close();
+        }
+        idle.clear();
+    }
+
+    @FunctionalInterface
+    interface EngineFactory {
+        TesseractEngine create() throws TesseractException;
+    }
+
+    @FunctionalInterface
+    interface EngineCall<T> {
+        T apply(TesseractEngine engine) throws TesseractException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.picturetojson.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Frames of a (multi-page) TIFF, such as a fax, read through the JDK TIFF {@link ImageReader}.
+ * <p>
+ * The file is read through a random-access stream and only the requested frame is decoded;
+ * counting frames walks the directory chain without decoding image data. Fax frames are often
+ * scanned at half the vertical resolution (204x98 dpi), so frames with unequal resolutions are
+ * stretched to square pixels before OCR.
+ */
+class TiffPageSource implements PageSource {
+    
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private final int pageCount;
+    
+    TiffPageSource(File file) throws IOException {
+        this(ImageIO.createImageInputStream(file), file.getName());
+    }
+    
+    TiffPageSource(byte[] data) throws IOException {
+        // Memory-cached, as ImageIO's default for plain input streams may buffer to a temporary file
+        this(new MemoryCacheImageInputStream(new ByteArrayInputStream(data)), "TIFF data");
+    }
+    
+    private TiffPageSource(ImageInputStream input, String name) throws IOException {
+        this.input = input;
+        if (input == null) {
+            throw new IOException("Could not open TIFF file: " + name);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IOException("Not a readable TIFF file: " + name);
+        }
+        this.reader = readers.next();
+        // Not seek-forward-only, so frames can be counted first; metadata is needed for the resolution
+        reader.setInput(input, false, false);
+        try {
+            this.pageCount = reader.getNumImages(true);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+    
+    @Override
+    public BufferedImage readPage(int page) throws IOException {
+        IIOImage frame = reader.readAll(page, null);
+        BufferedImage image = (BufferedImage) frame.getRenderedImage();
+        double stretch = verticalStretch(frame.getMetadata());
+        return stretch == 1.0 ? image : stretchVertically(image, stretch);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        input.close();
+    }
+    
+    /**
+     * Ratio of horizontal to vertical resolution, 1.0 when unknown or square
+     */
+    private static double verticalStretch(IIOMetadata metadata) {
+        if (metadata == null) {
+            return 1.0;
+        }
+        try {
+            TIFFDirectory directory = TIFFDirectory.createFromMetadata(metadata);
+            TIFFField x = directory.getTIFFField(BaselineTIFFTagSet.TAG_X_RESOLUTION);
+            TIFFField y = directory.getTIFFField(BaselineTIFFTagSet.TAG_Y_RESOLUTION);
+            if (x == null || y == null || x.getAsDouble(0) <= 0 || y.getAsDouble(0) <= 0) {
+                return 1.0;
+            }
+            double ratio = x.getAsDouble(0) / y.getAsDouble(0);
+            // Only correct clearly non-square pixels, not rounding differences
+            return Math.abs(ratio - 1.0) < 0.1 ? 1.0 : ratio;
+        } catch (IIOInvalidTreeException | IllegalArgumentException e) {
+            return 1.0;
+        }
+    }
+    
+    private static BufferedImage stretchVertically(BufferedImage image, double stretch) {
+        int height = Math.max(1, (int) Math.round(image.getHeight() * stretch));
+        // Grayscale, so interpolated edges of bilevel fax frames survive until thresholding
+        BufferedImage stretched = new BufferedImage(image.getWidth(), height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = stretched.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, image.getWidth(), height, null);
+        graphics.dispose();
+        return stretched;
+    }
+}
\ No newline at end of file
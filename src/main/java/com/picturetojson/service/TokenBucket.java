@@ -0,0 +1,57 @@
+package com.picturetojson.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at a fixed rate up to its capacity.
+ * <p>
+ * A request for more tokens than the capacity is granted once the bucket is full and leaves it
+ * in debt, so large batches are accepted but delay the client's following requests accordingly.
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+    private double tokens;
+    private long lastRefill;
+    
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System::nanoTime);
+    }
+    
+    TokenBucket(int capacity, double tokensPerSecond, LongSupplier clock) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.clock = clock;
+        this.tokens = this.capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+    
+    public synchronized boolean tryConsume(int permits) {
+        refill();
+        if (tokens >= Math.min(permits, capacity)) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Nanoseconds until a request for the given permits would succeed
+     */
+    public synchronized long nanosUntilAvailable(int permits) {
+        refill();
+        double missing = Math.min(permits, capacity) - tokens;
+        if (missing <= 0) {
+            return 0;
+        }
+        return tokensPerNano > 0 ? (long) Math.ceil(missing / tokensPerNano) : Long.MAX_VALUE;
+    }
+    
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OCR restricted to the field zones of a known form layout.
+ * <p>
+ * Zones are registered onto the page by {@link FormAligner}, split across the zone threads and
+ * read with Tesseract rectangles, so each thread hands the page to its engine once. The result
+ * has one line per zone in layout order, which maps straight to the JSON fields without
+ * searching the text; a page stored as a checkpoint maps back to its fields the same way.
+ */
+@Service
+public class ZonalOcrService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ZonalOcrService.class);
+    
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4})[-/.](\\d{1,2})[-/.](\\d{1,2})");
+    private static final Pattern US_DATE = Pattern.compile("(\\d{1,2})[-/.](\\d{1,2})[-/.](\\d{4}|\\d{2})");
+    
+    private final OcrService ocrService;
+    private final FormAligner formAligner;
+    private final FormProperties properties;
+    private final ExecutorService zoneExecutor;
+    
+    public ZonalOcrService(OcrService ocrService, FormAligner formAligner, FormProperties properties) {
+        this.ocrService = ocrService;
+        this.formAligner = formAligner;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        // The calling thread reads one share itself, so the pool covers the rest
+        this.zoneExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getZoneThreads() - 1), runnable -> {
+            Thread thread = new Thread(runnable, "ZoneOcr-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public boolean hasLayout(String formType) {
+        return formType != null && properties.getLayouts().containsKey(formType);
+    }
+    
+    public boolean hasZones(String formType, int pageNumber) {
+        return !layout(formType).zonesOnPage(pageNumber).isEmpty();
+    }
+    
+    /**
+     * Read the zones of one page of a form; a page without zones gives an empty result
+     */
+    public OcrResult recognize(BufferedImage page, String formType, int pageNumber, ProcessingControl control)
+            throws TesseractException {
+        FormProperties.Layout layout = layout(formType);
+        List<FormProperties.Zone> zones = new ArrayList<>(layout.zonesOnPage(pageNumber).values());
+        if (zones.isEmpty()) {
+            return OcrResult.empty();
+        }
+        
+        List<Rectangle> regions = formAligner.locate(page, layout, pageNumber, zones);
+        List<Boolean> multiline = zones.stream().map(FormProperties.Zone::isMultiline).toList();
+        control.checkpoint();
+        
+        // Contiguous shares so the lines come back in zone order
+        int shares = Math.min(zones.size(), Math.max(1, properties.getZoneThreads()));
+        List<Future<List<OcrResult.Line>>> futures = new ArrayList<>();
+        for (int share = 1; share < shares; share++) {
+            int from = share * zones.size() / shares;
+            int to = (share + 1) * zones.size() / shares;
+            futures.add(zoneExecutor.submit(() ->
+                ocrService.recognizeRegions(page, regions.subList(from, to), multiline.subList(from, to), control)));
+        }
+        
+        List<OcrResult.Line> lines = new ArrayList<>(zones.size());
+        try {
+            int firstShare = zones.size() / shares;
+            lines.addAll(ocrService.recognizeRegions(page, regions.subList(0, firstShare),
+                multiline.subList(0, firstShare), control));
+            for (Future<List<OcrResult.Line>> future : futures) {
+                lines.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TesseractException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TesseractException tesseractException) {
+                throw tesseractException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new TesseractException(e.getCause());
+        } finally {
+            // A failed share leaves the others nothing to contribute
+            futures.forEach(future -> future.cancel(false));
+        }
+        
+        logger.debug("Read {} zones of page {} of form {}", zones.size(), pageNumber, formType);
+        return new OcrResult(lines, 0);
+    }
+    
+    /**
+     * Fields of a page read by {@link #recognize}, one per zone with text, typed by the zone
+     */
+    public List<ExtractedField> extractFields(String formType, int pageNumber, OcrResult page) {
+        Map<String, FormProperties.Zone> zones = layout(formType).zonesOnPage(pageNumber);
+        List<OcrResult.Line> lines = page.getLines();
+        List<ExtractedField> fields = new ArrayList<>();
+        
+        // Offsets into page.getText(), counted the way OcrResult.lineAt does, so confidence is found per zone
+        int position = 0;
+        boolean leading = true;
+        int index = 0;
+        for (Map.Entry<String, FormProperties.Zone> zone : zones.entrySet()) {
+            if (index >= lines.size()) {
+                break;
+            }
+            String text = lines.get(index++).getText();
+            if (text.isEmpty()) {
+                continue;
+            }
+            if (leading) {
+                position -= text.length() - text.stripLeading().length();
+                leading = false;
+            }
+            String value = text.strip();
+            if (!value.isEmpty()) {
+                String type = zone.getValue().getType();
+                fields.add(new ExtractedField(zone.getKey(), typed(value, type), type, zone.getKey(),
+                    position + text.indexOf(value)));
+            }
+            position += text.length() + 1;
+        }
+        return fields;
+    }
+    
+    private FormProperties.Layout layout(String formType) {
+        FormProperties.Layout layout = properties.getLayouts().get(formType);
+        if (layout == null) {
+            throw new IllegalArgumentException("Unknown form type: " + formType);
+        }
+        return layout;
+    }
+    
+    /**
+     * Normalize a zone's text for its field type; a value that does not parse is kept as read
+     */
+    static Object typed(String value, String type) {
+        switch (type) {
+            case "integer": {
+                String digits = value.replaceAll("[^0-9-]", "");
+                try {
+                    return Integer.parseInt(digits);
+                } catch (NumberFormatException e) {
+                    return value;
+                }
+            }
+            case "date":
+                return date(value.replaceAll("\\s+", ""), value);
+            case "email":
+                return value.replaceAll("\\s+", "");
+            case "phone":
+                return value.replaceAll("[^0-9+]", "");
+            default:
+                return value.replaceAll("[ \\t]+", " ");
+        }
+    }
+    
+    /**
+     * ISO date of a year-first or month-first date; a two-digit year is the latest one not in the future
+     */
+    private static Object date(String compact, String value) {
+        int year;
+        int month;
+        int day;
+        Matcher matcher = ISO_DATE.matcher(compact);
+        if (matcher.matches()) {
+            year = Integer.parseInt(matcher.group(1));
+            month = Integer.parseInt(matcher.group(2));
+            day = Integer.parseInt(matcher.group(3));
+        } else if ((matcher = US_DATE.matcher(compact)).matches()) {
+            month = Integer.parseInt(matcher.group(1));
+            day = Integer.parseInt(matcher.group(2));
+            year = Integer.parseInt(matcher.group(3));
+            if (matcher.group(3).length() == 2) {
+                int currentYear = Year.now().getValue();
+                year += currentYear - currentYear % 100;
+                if (year > currentYear) {
+                    year -= 100;
+                }
+            }
+        } else {
+            return value;
+        }
+        try {
+            return LocalDate.of(year, month, day).toString();
+        } catch (DateTimeException e) {
+            return value;
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        zoneExecutor.shutdownNow();
+    }
+}
\ No newline at end of file
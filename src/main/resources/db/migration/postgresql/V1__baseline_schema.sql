@@ -0,0 +1,88 @@
+-- Schema as Hibernate generated it with ddl-auto: update.
+-- Databases created that way are baselined at version 0, so this script also runs on them: every
+-- statement is idempotent and adds what earlier releases of the entities did not have yet.
+
+CREATE TABLE IF NOT EXISTS documents (
+    id bigserial NOT NULL,
+    content_type varchar(255) NOT NULL,
+    corrected_json JSON,
+    created_at timestamp(6) NOT NULL,
+    error_message TEXT,
+    extracted_json JSON,
+    extracted_text TEXT,
+    file_path varchar(255) NOT NULL,
+    file_size bigint NOT NULL,
+    filename varchar(255) NOT NULL,
+    original_filename varchar(255) NOT NULL,
+    processing_progress integer,
+    status varchar(255) NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE documents
+    ADD COLUMN IF NOT EXISTS correction_version integer DEFAULT 0 NOT NULL,
+    ADD COLUMN IF NOT EXISTS snapshot_version integer DEFAULT 0 NOT NULL,
+    ADD COLUMN IF NOT EXISTS ocr_confidence integer,
+    ADD COLUMN IF NOT EXISTS client_id varchar(64),
+    ADD COLUMN IF NOT EXISTS form_type varchar(64),
+    ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+-- Matches Document.ProcessingStatus; a new status needs a later migration replacing this constraint
+ALTER TABLE documents DROP CONSTRAINT IF EXISTS documents_status_check,
+    ADD CONSTRAINT documents_status_check CHECK (status IN
+        ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'CORRECTED', 'CANCELLED', 'TIMED_OUT'));
+
+CREATE INDEX IF NOT EXISTS idx_documents_search_vector ON documents USING GIN (search_vector);
+
+CREATE TABLE IF NOT EXISTS field_mappings (
+    id bigint NOT NULL,
+    confidence integer,
+    corrected_value varchar(255),
+    extracted_value varchar(255),
+    field_type varchar(255) NOT NULL,
+    source_field varchar(255) NOT NULL,
+    target_field varchar(255) NOT NULL,
+    validation_rule varchar(255),
+    document_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FK51xa9era70bp1pq3vgvs8xqy7 FOREIGN KEY (document_id) REFERENCES documents
+);
+
+CREATE INDEX IF NOT EXISTS idx_field_mappings_document ON field_mappings (document_id);
+CREATE INDEX IF NOT EXISTS idx_field_mappings_target_value ON field_mappings (target_field, extracted_value);
+CREATE INDEX IF NOT EXISTS idx_field_mappings_target_confidence ON field_mappings (target_field, confidence);
+
+-- Field mapping ids moved from an identity column to a pooled sequence; start it past the ids
+-- already handed out, which ddl-auto did not do
+CREATE SEQUENCE IF NOT EXISTS field_mappings_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('field_mappings_seq', GREATEST(
+    (SELECT last_value FROM field_mappings_seq),
+    (SELECT COALESCE(MAX(id), 0) + 50 FROM field_mappings)));
+
+CREATE TABLE IF NOT EXISTS page_results (
+    id bigserial NOT NULL,
+    confidence integer,
+    error_message TEXT,
+    lines JSON,
+    page_number integer NOT NULL,
+    processing_millis bigint,
+    refined_lines integer,
+    status varchar(255) NOT NULL CHECK (status IN ('COMPLETED', 'FAILED')),
+    updated_at timestamp(6) NOT NULL,
+    document_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK4jiptlf3kg7ru2htka2kseuos UNIQUE (document_id, page_number),
+    CONSTRAINT FKlp8o0ebvt4hl9f0akvppljufb FOREIGN KEY (document_id) REFERENCES documents
+);
+
+CREATE TABLE IF NOT EXISTS correction_patches (
+    id bigserial NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    patch JSON NOT NULL,
+    version integer NOT NULL,
+    document_id bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UKmdla4yy7r3dta157yw7tsn5bk UNIQUE (document_id, version),
+    CONSTRAINT FKd4k50hxlbm5hm4vy1jvpq934m FOREIGN KEY (document_id) REFERENCES documents
+);
@@ -0,0 +1,99 @@
+-- Range-partition documents by created_at, one partition per month, so old months can be dropped
+-- whole instead of deleted row by row. DocumentRetentionService creates the coming months and
+-- drops expired ones; rows outside every month land in documents_default until their month is
+-- created. Rows never move between partitions, as created_at is never updated.
+--
+-- The primary key of a partitioned table must include the partition key, so other tables can no
+-- longer reference documents with foreign keys; the retention job deletes their rows with the
+-- partition. Copying an existing table takes a while: run this in a maintenance window.
+
+ALTER TABLE documents RENAME TO documents_unpartitioned;
+ALTER TABLE documents_unpartitioned RENAME CONSTRAINT documents_pkey TO documents_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_documents_search_vector RENAME TO idx_documents_unpartitioned_search_vector;
+
+DO $$
+DECLARE
+    foreign_key record;
+BEGIN
+    FOR foreign_key IN
+        SELECT conrelid::regclass AS referencing, conname FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = 'documents_unpartitioned'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', foreign_key.referencing, foreign_key.conname);
+    END LOOP;
+END $$;
+
+CREATE TABLE documents (
+    id bigint NOT NULL DEFAULT nextval('documents_id_seq'),
+    content_type varchar(255) NOT NULL,
+    corrected_json JSON,
+    created_at timestamp(6) NOT NULL,
+    error_message TEXT,
+    extracted_json JSON,
+    extracted_text TEXT,
+    file_path varchar(255) NOT NULL,
+    file_size bigint NOT NULL,
+    filename varchar(255) NOT NULL,
+    original_filename varchar(255) NOT NULL,
+    processing_progress integer,
+    status varchar(255) NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    correction_version integer DEFAULT 0 NOT NULL,
+    snapshot_version integer DEFAULT 0 NOT NULL,
+    ocr_confidence integer,
+    client_id varchar(64),
+    form_type varchar(64),
+    search_vector tsvector,
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT documents_status_check CHECK (status IN
+        ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'CORRECTED', 'CANCELLED', 'TIMED_OUT'))
+) PARTITION BY RANGE (created_at);
+
+-- The id sequence outlives the old table
+ALTER SEQUENCE documents_id_seq OWNED BY documents.id;
+
+CREATE TABLE documents_default PARTITION OF documents DEFAULT;
+
+CREATE INDEX idx_documents_search_vector ON documents USING GIN (search_vector);
+CREATE INDEX idx_documents_status_created ON documents (status, created_at);
+-- Orphan-file sweeps look files up by name
+CREATE INDEX idx_documents_filename ON documents (filename);
+
+-- Create the partition for the month containing the given day, moving any of its rows out of
+-- documents_default. Returns false when it already exists.
+CREATE FUNCTION create_documents_partition(day date) RETURNS boolean AS $$
+DECLARE
+    month_start date := date_trunc('month', day)::date;
+    month_end date := (date_trunc('month', day) + interval '1 month')::date;
+    partition_name text := 'documents_p' || to_char(day, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE documents INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM documents_default WHERE created_at >= %L AND created_at < %L '
+        'RETURNING *) INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE documents ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        partition_name, month_start, month_end);
+    RETURN true;
+END $$ LANGUAGE plpgsql;
+
+-- Partitions for every month with documents and the next three; the rest is created by the
+-- retention job
+SELECT create_documents_partition(month::date)
+FROM generate_series(
+    date_trunc('month', COALESCE((SELECT MIN(created_at) FROM documents_unpartitioned), now())),
+    date_trunc('month', now()) + interval '3 months',
+    interval '1 month') AS month;
+
+INSERT INTO documents (id, content_type, corrected_json, created_at, error_message, extracted_json,
+                       extracted_text, file_path, file_size, filename, original_filename, processing_progress,
+                       status, updated_at, correction_version, snapshot_version, ocr_confidence, client_id,
+                       form_type, search_vector)
+SELECT id, content_type, corrected_json, created_at, error_message, extracted_json,
+       extracted_text, file_path, file_size, filename, original_filename, processing_progress,
+       status, updated_at, correction_version, snapshot_version, ocr_confidence, client_id,
+       form_type, search_vector
+FROM documents_unpartitioned;
+
+DROP TABLE documents_unpartitioned;
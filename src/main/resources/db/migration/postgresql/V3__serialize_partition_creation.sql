@@ -0,0 +1,24 @@
+-- Every instance creates the coming monthly partitions, whether or not it runs retention, so
+-- concurrent calls wait on a transaction-level advisory lock instead of racing to create the same
+-- table. Everything else is unchanged from V2.
+--
+-- documents_status_check and the search_vector column and index are owned by the migrations
+-- (V1, V2); a new Document.ProcessingStatus value needs a migration replacing the constraint.
+
+CREATE OR REPLACE FUNCTION create_documents_partition(day date) RETURNS boolean AS $$
+DECLARE
+    month_start date := date_trunc('month', day)::date;
+    month_end date := (date_trunc('month', day) + interval '1 month')::date;
+    partition_name text := 'documents_p' || to_char(day, 'YYYYMM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('create_documents_partition'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE documents INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM documents_default WHERE created_at >= %L AND created_at < %L '
+        'RETURNING *) INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE documents ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        partition_name, month_start, month_end);
+    RETURN true;
+END $$ LANGUAGE plpgsql;
@@ -0,0 +1,95 @@
+package com.picturetojson.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.service.JsonGenerationService;
+import com.picturetojson.service.OcrResult;
+import com.picturetojson.service.PageRecognitionService;
+import com.picturetojson.service.ZonalOcrService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class BatchConverterTest {
+    
+    @TempDir
+    Path input;
+    
+    @TempDir
+    Path work;
+    
+    @Test
+    void testParse_optionsAndPassThroughArguments() {
+        BatchConverter.Options options = BatchConverter.Options.parse(new String[] {
+            "--input=" + input, "--output=" + work.resolve("out.ndjson"), "--threads=3", "--form-type=intake",
+            "--app.ocr.language=deu", "--spring.profiles.active=fast-start"});
+        
+        assertEquals(input, options.input);
+        assertEquals(3, options.threads);
+        assertEquals("intake", options.formType);
+        assertEquals(Path.of(work.resolve("out.ndjson") + ".manifest"), options.manifest);
+        assertEquals(List.of("--app.ocr.language=deu", "--spring.profiles.active=fast-start"), options.applicationArgs);
+    }
+    
+    @Test
+    void testParse_rejectsBadValues() {
+        String inputArg = "--input=" + input;
+        for (String[] args : List.of(
+                new String[] {inputArg, "--threads=0"},
+                new String[] {inputArg, "--threads=many"},
+                new String[] {inputArg, "--form-type="},
+                new String[] {inputArg, "--thread=4"},
+                new String[] {inputArg, "threads"},
+                new String[] {"--input=" + input.resolve("missing")},
+                new String[] {"--threads=2"})) {
+            assertThrows(IllegalArgumentException.class, () -> BatchConverter.Options.parse(args), String.join(" ", args));
+        }
+    }
+    
+    @Test
+    void testConvert_secondRunSkipsConvertedAndRetriesFailed() throws Exception {
+        for (String name : List.of("a.png", "b.png", "c.png")) {
+            Files.writeString(input.resolve(name), "x");
+        }
+        Files.writeString(input.resolve("notes.txt"), "x");
+        PageRecognitionService recognition = mock(PageRecognitionService.class);
+        OcrResult page = new OcrResult(List.of(new OcrResult.Line("Name: John", 90f, new Rectangle(0, 0, 10, 10))), 0);
+        when(recognition.recognizeImage(any(File.class), isNull(), any())).thenReturn(page);
+        when(recognition.recognizeImage(argThat((File file) -> file.getName().equals("b.png")), isNull(), any()))
+            .thenThrow(new IOException("unreadable"));
+        
+        assertEquals(1, converter(recognition).convert());
+        assertEquals(List.of("a.png", "c.png"),
+            Files.readAllLines(work.resolve("out.ndjson.manifest")).stream().sorted().toList());
+        
+        reset(recognition);
+        when(recognition.recognizeImage(any(File.class), isNull(), any())).thenReturn(page);
+        assertEquals(0, converter(recognition).convert());
+        
+        verify(recognition, times(1)).recognizeImage(any(File.class), isNull(), any());
+        verify(recognition).recognizeImage(argThat((File file) -> file.getName().equals("b.png")), isNull(), any());
+        List<String> lines = Files.readAllLines(work.resolve("out.ndjson"));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(3).contains("\"path\":\"b.png\"") && lines.get(3).contains("\"fields\""), lines.get(3));
+    }
+    
+    private BatchConverter converter(PageRecognitionService recognition) {
+        BatchConverter.Options options = BatchConverter.Options.parse(new String[] {
+            "--input=" + input, "--output=" + work.resolve("out.ndjson"), "--threads=2"});
+        ObjectMapper objectMapper = new ObjectMapper();
+        return new BatchConverter(options, recognition, mock(ZonalOcrService.class),
+            new JsonGenerationService(objectMapper), new ProcessingProperties(), objectMapper);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.picturetojson.config;
+
+import com.picturetojson.service.ReplicaReads;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+    
+    private ReplicaRoutingDataSource dataSource;
+    private ReplicaReads replicaReads;
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        setUp(database("primary"), database("replica"));
+    }
+    
+    @Test
+    void testReadsGoToReplicaOnlyOnceItIsChecked() {
+        assertEquals("primary", replicaReads.read(this::whichDatabase));
+        
+        dataSource.checkReplica();
+        
+        assertTrue(dataSource.isReplicaUsable());
+        assertEquals(0.0, dataSource.getLagSeconds());
+        assertEquals("replica", replicaReads.read(this::whichDatabase));
+        assertEquals("primary", whichDatabase());
+    }
+    
+    @Test
+    void testReadsFallBackToPrimaryWhenReplicaIsUnreachable() {
+        DriverManagerDataSource unreachable = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";IFEXISTS=TRUE", "sa", "");
+        setUp(database("primary"), unreachable);
+        
+        dataSource.checkReplica();
+        
+        assertFalse(dataSource.isReplicaUsable());
+        assertTrue(Double.isNaN(dataSource.getLagSeconds()));
+        assertEquals("primary", replicaReads.read(this::whichDatabase));
+    }
+    
+    private void setUp(DriverManagerDataSource primary, DriverManagerDataSource replica) {
+        dataSource = new ReplicaRoutingDataSource(primary, replica, new ReplicaProperties());
+        replicaReads = new ReplicaReads(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+    
+    private String whichDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+    
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource database = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(database);
+        template.execute("CREATE TABLE marker (name VARCHAR(16))");
+        template.update("INSERT INTO marker (name) VALUES (?)", name);
+        return database;
+    }
+}
\ No newline at end of file
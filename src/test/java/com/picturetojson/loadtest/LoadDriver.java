@@ -0,0 +1,357 @@
+package com.picturetojson.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.PictureToJsonApplication;
+import com.picturetojson.loadtest.SyntheticFormGenerator.Format;
+import com.picturetojson.loadtest.SyntheticFormGenerator.SyntheticForm;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives upload and processing load against the application and reports latency percentiles,
+ * throughput and extraction accuracy.
+ * <p>
+ * Without {@code --base-url} the application is started in-process on H2 with a random port.
+ * Driver options use {@code --name=value}; any other {@code --spring.*} or {@code --app.*} argument
+ * is passed to the started application. Run with {@code mvn -Ploadtest verify}.
+ */
+public class LoadDriver {
+    
+    private static final long TIMEOUT_MICROS = TimeUnit.HOURS.toMicros(1);
+    
+    private final Options options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private final Histogram uploadLatency = new ConcurrentHistogram(TIMEOUT_MICROS, 3);
+    private final Histogram triggerLatency = new ConcurrentHistogram(TIMEOUT_MICROS, 3);
+    private final Histogram processingLatency = new ConcurrentHistogram(TIMEOUT_MICROS, 3);
+    private final Histogram endToEndLatency = new ConcurrentHistogram(TIMEOUT_MICROS, 3);
+    
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger fullyCorrect = new AtomicInteger();
+    private final Map<String, LongAdder> fieldMatches = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> fieldTotals = new ConcurrentHashMap<>();
+    
+    public LoadDriver(Options options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.baseUrl;
+        if (baseUrl == null) {
+            context = startApplication(options.applicationArgs);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api";
+        }
+        
+        try {
+            new LoadDriver(options, baseUrl).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private static ConfigurableApplicationContext startApplication(List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.picturetojson=INFO",
+            "--logging.level.org.springframework.web=WARN"));
+        args.addAll(applicationArgs);
+        return SpringApplication.run(PictureToJsonApplication.class, args.toArray(String[]::new));
+    }
+    
+    public void run() throws Exception {
+        System.out.printf(Locale.ROOT, "Generating %d synthetic forms (%s, %d dpi, noise %.3f, skew ±%.1f°)%n",
+            options.documents, options.formats, options.dpi, options.noise, options.skew);
+        
+        // Rendering is kept out of the measured window
+        SyntheticFormGenerator generator = new SyntheticFormGenerator(options.dpi, options.noise, options.skew, options.seed);
+        List<SyntheticForm> forms = new ArrayList<>(options.documents);
+        for (int i = 0; i < options.documents; i++) {
+            forms.add(generator.generate(i, options.formats.get(i % options.formats.size())));
+        }
+        
+        System.out.printf(Locale.ROOT, "Driving %s with %d concurrent clients%n", baseUrl, options.concurrency);
+        ExecutorService clients = Executors.newFixedThreadPool(options.concurrency);
+        long start = System.nanoTime();
+        for (SyntheticForm form : forms) {
+            clients.submit(() -> drive(form));
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.DAYS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        
+        report(System.out, elapsedSeconds);
+        writeHistograms();
+    }
+    
+    /**
+     * Upload, start processing and poll one form until it reaches a final status
+     */
+    private void drive(SyntheticForm form) {
+        try {
+            long uploadStart = System.nanoTime();
+            HttpResponse<String> upload = httpClient.send(multipartUpload(form), HttpResponse.BodyHandlers.ofString());
+            uploadLatency.recordValue(micros(uploadStart));
+            if (upload.statusCode() != 200) {
+                throw new IOException("Upload returned " + upload.statusCode());
+            }
+            long id = objectMapper.readTree(upload.body()).get("id").asLong();
+            
+            long triggerStart = System.nanoTime();
+            HttpResponse<String> trigger = httpClient.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/documents/" + id + "/process"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build(),
+                HttpResponse.BodyHandlers.ofString());
+            triggerLatency.recordValue(micros(triggerStart));
+            if (trigger.statusCode() != 200) {
+                throw new IOException("Process returned " + trigger.statusCode());
+            }
+            
+            JsonNode document = awaitResult(id);
+            processingLatency.recordValue(micros(triggerStart));
+            endToEndLatency.recordValue(micros(uploadStart));
+            
+            if ("COMPLETED".equals(document.path("status").asText())) {
+                completed.incrementAndGet();
+                score(form, document.path("extractedJson").asText("{}"));
+            } else {
+                failed.incrementAndGet();
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            System.err.printf("%s: %s%n", form.getFilename(), e.getMessage());
+        }
+    }
+    
+    private JsonNode awaitResult(long id) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        String etag = null;
+        JsonNode document = null;
+        
+        while (System.nanoTime() < deadline) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/documents/" + id)).GET();
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            
+            if (response.statusCode() == 200) {
+                etag = response.headers().firstValue("ETag").orElse(null);
+                document = objectMapper.readTree(response.body());
+                String status = document.path("status").asText();
+                if (!"PENDING".equals(status) && !"PROCESSING".equals(status)) {
+                    return document;
+                }
+            } else if (response.statusCode() != 304) {
+                throw new IOException("Status poll returned " + response.statusCode());
+            }
+            Thread.sleep(options.pollIntervalMillis);
+        }
+        throw new IOException("Timed out after " + options.timeoutSeconds + "s waiting for document " + id);
+    }
+    
+    private void score(SyntheticForm form, String extractedJson) throws IOException {
+        JsonNode extracted = objectMapper.readTree(extractedJson);
+        boolean allCorrect = true;
+        for (Map.Entry<String, String> field : form.getExpected().entrySet()) {
+            fieldTotals.computeIfAbsent(field.getKey(), key -> new LongAdder()).increment();
+            JsonNode value = extracted.get(field.getKey());
+            if (value != null && value.asText().trim().equalsIgnoreCase(field.getValue())) {
+                fieldMatches.computeIfAbsent(field.getKey(), key -> new LongAdder()).increment();
+            } else {
+                allCorrect = false;
+            }
+        }
+        if (allCorrect) {
+            fullyCorrect.incrementAndGet();
+        }
+    }
+    
+    private void report(PrintStream out, double elapsedSeconds) {
+        out.println();
+        out.printf(Locale.ROOT, "Documents: %d completed, %d failed, %d errors in %.1f s%n",
+            completed.get(), failed.get(), errors.get(), elapsedSeconds);
+        out.printf(Locale.ROOT, "Throughput: %.2f documents/s%n", completed.get() / elapsedSeconds);
+        
+        out.println();
+        out.printf(Locale.ROOT, "%-14s %9s %9s %9s %9s %9s %9s%n", "Latency (ms)", "p50", "p90", "p95", "p99", "p99.9", "max");
+        printLatency(out, "upload", uploadLatency);
+        printLatency(out, "process call", triggerLatency);
+        printLatency(out, "processing", processingLatency);
+        printLatency(out, "end-to-end", endToEndLatency);
+        
+        out.println();
+        out.printf(Locale.ROOT, "Extraction accuracy: %d/%d documents fully correct%n", fullyCorrect.get(), completed.get());
+        Map<String, LongAdder> totals = new TreeMap<>(fieldTotals);
+        totals.forEach((field, total) -> {
+            long matches = fieldMatches.getOrDefault(field, new LongAdder()).sum();
+            out.printf(Locale.ROOT, "  %-12s %6.1f%% (%d/%d)%n", field, 100.0 * matches / total.sum(), matches, total.sum());
+        });
+    }
+    
+    private static void printLatency(PrintStream out, String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            out.printf(Locale.ROOT, "%-14s %9s%n", name, "-");
+            return;
+        }
+        out.printf(Locale.ROOT, "%-14s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name,
+            histogram.getValueAtPercentile(50) / 1000.0,
+            histogram.getValueAtPercentile(90) / 1000.0,
+            histogram.getValueAtPercentile(95) / 1000.0,
+            histogram.getValueAtPercentile(99) / 1000.0,
+            histogram.getValueAtPercentile(99.9) / 1000.0,
+            histogram.getMaxValue() / 1000.0);
+    }
+    
+    /**
+     * Full percentile distributions in HdrHistogram's .hgrm format, for plotting or comparing runs
+     */
+    private void writeHistograms() throws IOException {
+        Path directory = Paths.get(options.outputDirectory);
+        Files.createDirectories(directory);
+        writeHistogram(directory.resolve("upload.hgrm"), uploadLatency);
+        writeHistogram(directory.resolve("processing.hgrm"), processingLatency);
+        writeHistogram(directory.resolve("end-to-end.hgrm"), endToEndLatency);
+        System.out.println();
+        System.out.println("Latency distributions written to " + directory.toAbsolutePath());
+    }
+    
+    private static void writeHistogram(Path path, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(path), false, StandardCharsets.UTF_8)) {
+            // Values are recorded in microseconds; report milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+    
+    private HttpRequest multipartUpload(SyntheticForm form) throws IOException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(form.getContent().length + 512);
+        body.write(("--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"" + form.getFilename() + "\"\r\n" +
+            "Content-Type: " + form.getFormat().getContentType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(form.getContent());
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/documents/upload"))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+            .build();
+    }
+    
+    private static long micros(long startNanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), TIMEOUT_MICROS);
+    }
+    
+    static class Options {
+        
+        String baseUrl;
+        int documents = 100;
+        int concurrency = 8;
+        List<Format> formats = List.of(Format.PNG, Format.JPEG, Format.PDF);
+        int dpi = 200;
+        double noise = 0.005;
+        double skew = 1.5;
+        long seed = 42;
+        int timeoutSeconds = 300;
+        long pollIntervalMillis = 250;
+        String outputDirectory = "target/loadtest";
+        List<String> applicationArgs = new ArrayList<>();
+        
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "base-url":
+                        options.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                        break;
+                    case "documents":
+                        options.documents = Integer.parseInt(value);
+                        break;
+                    case "concurrency":
+                        options.concurrency = Integer.parseInt(value);
+                        break;
+                    case "formats":
+                        options.formats = Arrays.stream(value.split(","))
+                            .map(format -> Format.valueOf(format.trim().toUpperCase(Locale.ROOT)))
+                            .toList();
+                        break;
+                    case "dpi":
+                        options.dpi = Integer.parseInt(value);
+                        break;
+                    case "noise":
+                        options.noise = Double.parseDouble(value);
+                        break;
+                    case "skew":
+                        options.skew = Double.parseDouble(value);
+                        break;
+                    case "seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "timeout":
+                        options.timeoutSeconds = Integer.parseInt(value);
+                        break;
+                    case "poll-interval":
+                        options.pollIntervalMillis = Long.parseLong(value);
+                        break;
+                    case "output":
+                        options.outputDirectory = value;
+                        break;
+                    default:
+                        options.applicationArgs.add(arg);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.picturetojson.loadtest;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Renders signup forms with known values for the fields {@code JsonGenerationService} extracts,
+ * degraded with scanner-like noise and skew.
+ */
+public class SyntheticFormGenerator {
+    
+    public enum Format {
+        PNG("image/png", "png"),
+        JPEG("image/jpeg", "jpg"),
+        PDF("application/pdf", "pdf");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+    }
+    
+    private static final String[] FIRST_NAMES = {"John", "Maria", "Ahmed", "Yuki", "Olivia", "Liam", "Sofia", "Noah", "Emma", "Lucas"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Khan", "Tanaka", "Brown", "Miller", "Rossi", "Novak", "Wilson", "Silva"};
+    private static final String[] STREETS = {"Main Street", "Oak Avenue", "Park Road", "Elm Street", "Hill Lane"};
+    private static final String[] CITIES = {"Springfield", "Riverton", "Lakewood", "Fairview", "Georgetown"};
+    
+    private final int dpi;
+    private final double noise;
+    private final double maxSkewDegrees;
+    private final Random random;
+    
+    /**
+     * @param noise share of pixels flipped to salt-and-pepper noise, e.g. 0.01
+     * @param maxSkewDegrees pages are rotated by a random angle up to this, either way
+     */
+    public SyntheticFormGenerator(int dpi, double noise, double maxSkewDegrees, long seed) {
+        this.dpi = dpi;
+        this.noise = noise;
+        this.maxSkewDegrees = maxSkewDegrees;
+        this.random = new Random(seed);
+    }
+    
+    /**
+     * A rendered form and the values it contains, keyed by extracted JSON field name
+     */
+    public static class SyntheticForm {
+        
+        private final String filename;
+        private final Format format;
+        private final byte[] content;
+        private final Map<String, String> expected;
+        
+        SyntheticForm(String filename, Format format, byte[] content, Map<String, String> expected) {
+            this.filename = filename;
+            this.format = format;
+            this.content = content;
+            this.expected = expected;
+        }
+        
+        public String getFilename() { return filename; }
+        public Format getFormat() { return format; }
+        public byte[] getContent() { return content; }
+        public Map<String, String> getExpected() { return expected; }
+    }
+    
+    public synchronized SyntheticForm generate(int index, Format format) throws IOException {
+        Map<String, String> values = randomValues();
+        List<String[]> rows = rows(values);
+        String filename = String.format(Locale.ROOT, "synthetic-%05d.%s", index, format.getExtension());
+        
+        switch (format) {
+            case PNG:
+                return new SyntheticForm(filename, format, encode(renderPage(rows, 0, rows.size()), "png", 1f), values);
+            case JPEG:
+                return new SyntheticForm(filename, format, encode(renderPage(rows, 0, rows.size()), "jpeg", 0.85f), values);
+            default:
+                // Names and contact details on the first page, the rest on the second
+                int split = 4;
+                return new SyntheticForm(filename, format, pdf(List.of(
+                    renderPage(rows, 0, split), renderPage(rows, split, rows.size()))), values);
+        }
+    }
+    
+    private Map<String, String> randomValues() {
+        String firstName = pick(FIRST_NAMES);
+        String lastName = pick(LAST_NAMES);
+        
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("firstName", firstName);
+        values.put("lastName", lastName);
+        values.put("email", (firstName + "." + lastName).toLowerCase(Locale.ROOT) + random.nextInt(100) + "@example.com");
+        values.put("phone", "5" + String.format(Locale.ROOT, "%09d", random.nextInt(1_000_000_000)));
+        values.put("address", (1 + random.nextInt(999)) + " " + pick(STREETS));
+        values.put("city", pick(CITIES));
+        values.put("zipCode", String.format(Locale.ROOT, "%05d", random.nextInt(100_000)));
+        values.put("dateOfBirth", String.format(Locale.ROOT, "%02d/%02d/%d",
+            1 + random.nextInt(28), 1 + random.nextInt(12), 1940 + random.nextInt(65)));
+        values.put("gender", random.nextBoolean() ? "Male" : "Female");
+        values.put("age", String.valueOf(18 + random.nextInt(70)));
+        return values;
+    }
+    
+    private static List<String[]> rows(Map<String, String> values) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] {"First Name", values.get("firstName")});
+        rows.add(new String[] {"Last Name", values.get("lastName")});
+        rows.add(new String[] {"Email", values.get("email")});
+        rows.add(new String[] {"Phone", values.get("phone")});
+        rows.add(new String[] {"Date of Birth", values.get("dateOfBirth")});
+        rows.add(new String[] {"Gender", values.get("gender")});
+        rows.add(new String[] {"Age", values.get("age")});
+        rows.add(new String[] {"Address", values.get("address")});
+        rows.add(new String[] {"City", values.get("city")});
+        rows.add(new String[] {"Zip Code", values.get("zipCode")});
+        return rows;
+    }
+    
+    private BufferedImage renderPage(List<String[]> rows, int from, int to) {
+        int width = (int) (8.5 * dpi);
+        int height = 11 * dpi;
+        BufferedImage page = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        
+        // Skew the whole sheet around its centre, as a slightly crooked scan would
+        double skew = (random.nextDouble() * 2 - 1) * maxSkewDegrees;
+        graphics.rotate(Math.toRadians(skew), width / 2.0, height / 2.0);
+        
+        int margin = dpi;
+        int lineHeight = dpi / 2;
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, dpi / 5));
+        graphics.drawString("Member Signup Form", margin, margin);
+        
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, dpi / 7));
+        graphics.setStroke(new BasicStroke(Math.max(1, dpi / 150f)));
+        int y = margin + lineHeight;
+        for (int i = from; i < to; i++) {
+            String text = rows.get(i)[0] + ": " + rows.get(i)[1];
+            graphics.drawString(text, margin, y);
+            graphics.drawLine(margin, y + dpi / 20, width - margin, y + dpi / 20);
+            y += lineHeight;
+        }
+        graphics.dispose();
+        
+        addNoise(page);
+        return page;
+    }
+    
+    private void addNoise(BufferedImage page) {
+        long pixels = (long) (page.getWidth() * (double) page.getHeight() * noise);
+        for (long i = 0; i < pixels; i++) {
+            int x = random.nextInt(page.getWidth());
+            int y = random.nextInt(page.getHeight());
+            page.setRGB(x, y, random.nextBoolean() ? 0xFF000000 : 0xFFFFFFFF);
+        }
+    }
+    
+    private static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!"jpeg".equals(format)) {
+            ImageIO.write(image, format, output);
+            return output.toByteArray();
+        }
+        
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+    
+    /**
+     * Multi-page PDF with each page as a scanned image, like the output of a document feeder
+     */
+    private static byte[] pdf(List<BufferedImage> pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (BufferedImage image : pages) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                document.addPage(page);
+                PDImageXObject scan = JPEGFactory.createFromImage(document, image, 0.85f);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(scan, 0, 0, page.getMediaBox().getWidth(), page.getMediaBox().getHeight());
+                }
+            }
+            
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            document.save(output);
+            return output.toByteArray();
+        }
+    }
+    
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,71 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.dto.BulkCorrectionResponseDto;
+import com.picturetojson.dto.BulkCorrectionResponseDto.ItemResult;
+import com.picturetojson.dto.BulkCorrectionResponseDto.ItemStatus;
+import com.picturetojson.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BulkCorrectionServiceTest {
+    
+    private JdbcTemplate jdbcTemplate;
+    private DocumentCache documentCache;
+    private BulkCorrectionService service;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE documents (id BIGINT PRIMARY KEY, corrected_json JSON, " +
+            "correction_version INT, snapshot_version INT, status VARCHAR(32), updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE correction_patches (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "document_id BIGINT, version INT, patch JSON, created_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO documents (id, correction_version, snapshot_version, status) " +
+            "VALUES (1, 0, 0, 'COMPLETED'), (2, 3, 3, 'CORRECTED')");
+        
+        ObjectMapper objectMapper = new ObjectMapper();
+        documentCache = mock(DocumentCache.class);
+        service = new BulkCorrectionService(jdbcTemplate, new DataSourceTransactionManager(dataSource), objectMapper,
+            new JsonGenerationService(objectMapper), mock(CorrectionService.class), mock(DocumentRepository.class),
+            mock(DocumentSearchIndex.class), documentCache, 500);
+    }
+    
+    @Test
+    void testApplyCorrections_appliedMissingAndConflictingInOneBatch() throws Exception {
+        String body = "[" +
+            "{\"documentId\":1,\"expectedVersion\":0,\"correctedJson\":{\"name\":\"John\"}}," +
+            "{\"documentId\":99,\"correctedJson\":{\"name\":\"Nobody\"}}," +
+            "{\"documentId\":2,\"expectedVersion\":1,\"correctedJson\":\"{\\\"name\\\":\\\"Jane\\\"}\"}]";
+        
+        BulkCorrectionResponseDto response = service.applyCorrections(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        
+        assertEquals(1, response.getApplied());
+        assertEquals(2, response.getRejected());
+        List<ItemResult> results = response.getResults();
+        assertEquals(List.of(ItemStatus.APPLIED, ItemStatus.NOT_FOUND, ItemStatus.CONFLICT),
+            results.stream().map(ItemResult::getStatus).toList());
+        assertEquals(1, results.get(0).getCorrectionVersion());
+        assertEquals(3, results.get(2).getCorrectionVersion());
+        
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT correction_version FROM documents WHERE id = 1", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT correction_version FROM documents WHERE id = 2", Integer.class));
+        assertEquals(List.of(1L), jdbcTemplate.queryForList("SELECT document_id FROM correction_patches", Long.class));
+        verify(documentCache).evict(1L);
+        verify(documentCache, never()).evict(2L);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.entity.CorrectionPatch;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.CorrectionPatchRepository;
+import com.picturetojson.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CorrectionServiceTest {
+    
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final CorrectionPatchRepository correctionPatchRepository = mock(CorrectionPatchRepository.class);
+    private final CorrectionService correctionService = new CorrectionService(documentRepository,
+        correctionPatchRepository, new JsonPatchService(), new ObjectMapper(), 10, 100, Duration.ofMinutes(1));
+    
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+    
+    @Test
+    void testApplyPatch_viewPublishedOnlyAfterCommit() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setExtractedJson("{\"name\":\"Jonh\"}");
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        correctionService.applyPatch(1L, "[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"John\"}]", null);
+        
+        // Until commit, readers replay what the database holds (no patch rows here)
+        assertEquals("{\"name\":\"Jonh\"}", correctionService.getCorrectedJson(document));
+        
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        
+        assertEquals("{\"name\":\"John\"}", correctionService.getCorrectedJson(document));
+    }
+    
+    @Test
+    void testGetCorrectedJson_replayFailureIsNotServedAsTheSnapshot() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setCorrectedJson("{\"name\":\"Jonh\"}");
+        document.setSnapshotVersion(1);
+        document.setCorrectionVersion(2);
+        when(correctionPatchRepository.findByDocumentIdAndVersionGreaterThanOrderByVersionAsc(1L, 1))
+            .thenReturn(List.of(new CorrectionPatch(document, 2, "[{\"op\":\"replace\",\"path\":\"/missing\",\"value\":1}]")));
+        
+        assertThrows(CorrectionReplayException.class, () -> correctionService.getCorrectedJson(document));
+    }
+    
+    @Test
+    void testApplyPatch_unknownDocument() {
+        when(documentRepository.findById(2L)).thenReturn(Optional.empty());
+        
+        assertThrows(DocumentNotFoundException.class, () -> correctionService.applyPatch(2L, "[]", null));
+    }
+}
\ No newline at end of file
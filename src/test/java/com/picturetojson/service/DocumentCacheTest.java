@@ -0,0 +1,38 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.ReplicaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+    
+    @Test
+    void testRecentlyWritten_keptThroughAWriteBurstLargerThanTheCache() {
+        ReplicaProperties replicaProperties = new ReplicaProperties();
+        replicaProperties.setUrl("jdbc:postgresql://replica/picturetojson");
+        DocumentCache cache = new DocumentCache(10, Duration.ofMinutes(10), replicaProperties, new SimpleMeterRegistry());
+        
+        for (long id = 1; id <= 1000; id++) {
+            cache.evict(id);
+        }
+        
+        for (long id = 1; id <= 1000; id++) {
+            assertTrue(cache.isRecentlyWritten(id), "document " + id);
+        }
+        assertFalse(cache.isRecentlyWritten(1001L));
+    }
+    
+    @Test
+    void testRecentlyWritten_notTrackedWithoutReplica() {
+        DocumentCache cache = new DocumentCache(10, Duration.ofMinutes(10), new ReplicaProperties(),
+            new SimpleMeterRegistry());
+        
+        cache.evict(1L);
+        
+        assertFalse(cache.isRecentlyWritten(1L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.ConvertProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DocumentConversionServiceTest {
+    
+    private static final byte[] IMAGE = {1, 2, 3};
+    
+    @Test
+    void testConvert_refusesWhenAllSlotsAreBusy() throws Exception {
+        ConvertProperties properties = new ConvertProperties();
+        properties.setMaxConcurrent(1);
+        properties.setQueueTimeout(Duration.ofMillis(50));
+        
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PageRecognitionService recognition = mock(PageRecognitionService.class);
+        when(recognition.recognizeImage(any(byte[].class), isNull(), any())).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().getName().startsWith("Convert-"), "OCR stays off the request thread");
+            started.countDown();
+            release.await();
+            return new OcrResult(List.of(new OcrResult.Line("Name: Jane", 90f, new Rectangle(0, 0, 10, 10))), 0);
+        });
+        JsonGenerationService json = mock(JsonGenerationService.class);
+        when(json.extractFields(anyString())).thenReturn(List.of());
+        when(json.generateJson(any())).thenReturn("{}");
+        
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DocumentConversionService service = new DocumentConversionService(recognition, mock(ZonalOcrService.class),
+            json, properties, registry);
+        
+        CompletableFuture<DocumentConversionService.ConversionResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.convert(new ByteArrayInputStream(IMAGE), "image/png", null, "anonymous");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        CapacityExceededException busy = assertThrows(CapacityExceededException.class,
+            () -> service.convert(new ByteArrayInputStream(IMAGE), "image/png", null, "anonymous"));
+        assertEquals(1, busy.getRetryAfterSeconds());
+        
+        release.countDown();
+        DocumentConversionService.ConversionResult result = first.get(5, TimeUnit.SECONDS);
+        assertEquals("{}", result.getJson());
+        assertEquals(1, result.getPages());
+        assertEquals(90, result.getConfidence());
+        assertEquals(1, registry.get("documents.convert").tag("outcome", "rejected").timer().count());
+        assertEquals(1, registry.get("documents.convert").tag("outcome", "completed").timer().count());
+    }
+    
+    @Test
+    void testConvert_rejectsUnsupportedContentTypeBeforeTakingASlot() {
+        ConvertProperties properties = new ConvertProperties();
+        PageRecognitionService recognition = mock(PageRecognitionService.class);
+        DocumentConversionService service = new DocumentConversionService(recognition, mock(ZonalOcrService.class),
+            mock(JsonGenerationService.class), properties, new SimpleMeterRegistry());
+        
+        assertThrows(IllegalArgumentException.class, () -> service.convert(new ByteArrayInputStream(IMAGE), "text/plain", null, "anonymous"));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.convert(new ByteArrayInputStream(new byte[0]), "image/png", null, "anonymous"));
+        verifyNoInteractions(recognition);
+    }
+    
+    @Test
+    void testConvert_bodyReadOnlyOnceASlotIsHeld() throws Exception {
+        ConvertProperties properties = new ConvertProperties();
+        properties.setMaxConcurrent(1);
+        properties.setQueueTimeout(Duration.ofMillis(50));
+        properties.setMaxSize(2);
+        PageRecognitionService recognition = mock(PageRecognitionService.class);
+        JsonGenerationService json = mock(JsonGenerationService.class);
+        when(json.generateJson(any())).thenReturn("{}");
+        DocumentConversionService service = new DocumentConversionService(recognition, mock(ZonalOcrService.class),
+            json, properties, new SimpleMeterRegistry());
+        
+        // Over the limit: rejected after reading one byte past it, and the slot is given back
+        InputStream oversized = spy(new ByteArrayInputStream(IMAGE));
+        assertThrows(MaxUploadSizeExceededException.class, () -> service.convert(oversized, "image/png", null, "anonymous"));
+        verify(oversized).readNBytes(3);
+        
+        // While the slot is held, another request is refused without touching its body
+        InputStream waiting = mock(InputStream.class);
+        when(recognition.recognizeImage(any(byte[].class), isNull(), any())).thenAnswer(invocation -> {
+            assertThrows(CapacityExceededException.class, () -> service.convert(waiting, "image/png", null, "anonymous"));
+            return OcrResult.empty();
+        });
+        assertEquals("{}", service.convert(new ByteArrayInputStream(new byte[] {1}), "image/png", null, "anonymous")
+            .getJson());
+        verifyNoInteractions(waiting);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.config.ReplicaProperties;
+import com.picturetojson.entity.Document;
+import com.picturetojson.entity.PageResult;
+import com.picturetojson.repository.DocumentRepository;
+import com.picturetojson.repository.PageResultRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sourceforge.tess4j.TesseractException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class DocumentProcessingServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final PageResultRepository pageResultRepository = mock(PageResultRepository.class);
+    private final PageRecognitionService pageRecognitionService = mock(PageRecognitionService.class);
+    // Checkpoint rows by page number, as the page_results table would hold them
+    private final Map<Integer, PageResult> checkpoints = new TreeMap<>();
+    private Document document;
+    private DocumentProcessingService service;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        File file = tempDir.resolve("scan.tif").toFile();
+        writeTiff(file, 3);
+        document = new Document("scan.tif", "scan.tif", PageSource.TIFF, file.length(), file.getPath());
+        document.setId(7L);
+        when(documentRepository.findById(7L)).thenAnswer(invocation -> Optional.of(document));
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(documentRepository.findStatusById(7L)).thenAnswer(invocation -> Optional.of(document.getStatus()));
+        when(documentRepository.completeProcessing(eq(7L), any(), any(), any(), eq(Document.ProcessingStatus.PROCESSING),
+            eq(Document.ProcessingStatus.COMPLETED), any())).thenReturn(1);
+        
+        when(pageResultRepository.findByDocumentIdAndPageNumber(eq(7L), anyInt()))
+            .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<Integer>getArgument(1))));
+        when(pageResultRepository.save(any(PageResult.class))).thenAnswer(invocation -> {
+            PageResult page = invocation.getArgument(0);
+            checkpoints.put(page.getPageNumber(), page);
+            return page;
+        });
+        when(pageResultRepository.findByDocumentIdAndStatusOrderByPageNumberAsc(eq(7L), any()))
+            .thenAnswer(invocation -> checkpoints.values().stream()
+                .filter(page -> page.getStatus() == invocation.getArgument(1))
+                .toList());
+        when(pageResultRepository.deleteByDocumentId(anyLong())).thenAnswer(invocation -> {
+            int deleted = checkpoints.size();
+            checkpoints.clear();
+            return deleted;
+        });
+        
+        service = new DocumentProcessingService(documentRepository, pageRecognitionService, mock(ZonalOcrService.class),
+            new JsonGenerationService(new ObjectMapper()), mock(DocumentSearchIndex.class), mock(CorrectionService.class),
+            new DocumentCache(10, Duration.ofMinutes(1), new ReplicaProperties(), new SimpleMeterRegistry()),
+            mock(ReplicaReads.class), mock(FieldMappingService.class),
+            new PageCheckpointService(pageResultRepository, new ObjectMapper()), new ProcessingProperties(),
+            tempDir.toString());
+    }
+    
+    @Test
+    void testProcessDocumentAsync_failedPageIsRedoneAloneOnRetry() throws Exception {
+        List<Integer> read = new ArrayList<>();
+        when(pageRecognitionService.recognizePage(any(PageSource.class), anyInt(), isNull(), any()))
+            .thenAnswer(invocation -> {
+                int page = invocation.getArgument(1);
+                read.add(page + 1);
+                if (page == 1 && read.size() == 2) {
+                    throw new TesseractException("engine crashed");
+                }
+                return page(page + 1);
+            });
+        
+        // First run: page 2 fails, pages 1 and 3 are still read and checkpointed
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> service.processDocumentAsync(7L));
+        
+        assertEquals(List.of(1, 2, 3), read);
+        assertEquals(Document.ProcessingStatus.FAILED, document.getStatus());
+        assertTrue(document.getErrorMessage().contains("page(s) [2]"), document.getErrorMessage());
+        assertTrue(failure.getCause().getMessage().contains("page(s) [2]"));
+        assertEquals(PageResult.PageStatus.COMPLETED, checkpoints.get(1).getStatus());
+        assertEquals(PageResult.PageStatus.FAILED, checkpoints.get(2).getStatus());
+        assertEquals("engine crashed", checkpoints.get(2).getErrorMessage());
+        assertEquals(PageResult.PageStatus.COMPLETED, checkpoints.get(3).getStatus());
+        verify(documentRepository, never()).completeProcessing(any(), any(), any(), any(), any(), any(), any());
+        
+        // Retry: only page 2 is read again, the others come from their checkpoints
+        read.clear();
+        service.processDocumentAsync(7L).get();
+        
+        assertEquals(List.of(2), read);
+        verify(pageRecognitionService, times(1)).classifyPage(any(), any());
+        verify(documentRepository).completeProcessing(eq(7L), eq("Page 1\nPage 2\nPage 3"), any(), any(),
+            eq(Document.ProcessingStatus.PROCESSING), eq(Document.ProcessingStatus.COMPLETED), any());
+        assertEquals(Document.ProcessingStatus.COMPLETED, document.getStatus());
+        assertTrue(checkpoints.isEmpty(), "checkpoints are cleared once the results are stored");
+    }
+    
+    private static OcrResult page(int pageNumber) {
+        return new OcrResult(List.of(new OcrResult.Line("Page " + pageNumber, 90f, new Rectangle(0, 0, 100, 20))), 0);
+    }
+    
+    private static void writeTiff(File file, int frames) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames; i++) {
+                writer.writeToSequence(new IIOImage(new BufferedImage(50, 50, BufferedImage.TYPE_BYTE_GRAY), null, null),
+                    null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+}
\ No newline at end of file
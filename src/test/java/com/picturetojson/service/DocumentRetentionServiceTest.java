@@ -0,0 +1,99 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.RetentionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DocumentRetentionServiceTest {
+    
+    @TempDir
+    Path uploadDirectory;
+    
+    private JdbcTemplate jdbcTemplate;
+    private DocumentSearchIndex searchIndex;
+    private DocumentCache documentCache;
+    private DocumentRetentionService service;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE documents (id BIGINT PRIMARY KEY, filename VARCHAR(255), " +
+            "file_path VARCHAR(255), created_at TIMESTAMP)");
+        for (String table : List.of("page_results", "correction_patches", "field_mappings")) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, document_id BIGINT)");
+        }
+        
+        RetentionProperties properties = new RetentionProperties();
+        properties.setBatchSize(2);
+        properties.setOrphanGrace(Duration.ofHours(1));
+        searchIndex = mock(DocumentSearchIndex.class);
+        documentCache = mock(DocumentCache.class);
+        service = new DocumentRetentionService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+            mock(DocumentExportService.class), searchIndex, documentCache, mock(CorrectionService.class),
+            properties, new SimpleMeterRegistry(), uploadDirectory.toString());
+    }
+    
+    @Test
+    void testDeleteExpiredDocuments_deletesOldRowsDependentsAndFiles() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= 5; id++) {
+            addDocument(id, now.minusDays(id <= 3 ? 400 : 10));
+        }
+        
+        assertEquals(3, service.deleteExpiredDocuments(now.minusDays(365)));
+        
+        assertEquals(List.of(4L, 5L), jdbcTemplate.queryForList("SELECT id FROM documents ORDER BY id", Long.class));
+        assertEquals(List.of(4L, 5L), jdbcTemplate.queryForList(
+            "SELECT document_id FROM page_results ORDER BY document_id", Long.class));
+        assertFalse(Files.exists(uploadDirectory.resolve("doc1.png")));
+        assertFalse(Files.exists(uploadDirectory.resolve("doc3.png")));
+        assertTrue(Files.exists(uploadDirectory.resolve("doc4.png")));
+        verify(documentCache).evict(1L);
+        verify(documentCache, never()).evict(4L);
+        verify(searchIndex).documentsDeleted(List.of(3L));
+    }
+    
+    @Test
+    void testSweepOrphanFiles_deletesOnlyOldUnreferencedFiles() throws Exception {
+        addDocument(1, LocalDateTime.now());
+        Path referenced = uploadDirectory.resolve("doc1.png");
+        Path orphan = Files.writeString(uploadDirectory.resolve("orphan.png"), "x");
+        Path recent = Files.writeString(uploadDirectory.resolve("recent.png"), "x");
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        Files.setLastModifiedTime(referenced, old);
+        Files.setLastModifiedTime(orphan, old);
+        
+        assertEquals(1, service.sweepOrphanFiles());
+        
+        assertTrue(Files.exists(referenced));
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(recent));
+    }
+    
+    private void addDocument(long id, LocalDateTime createdAt) throws Exception {
+        Path file = Files.writeString(uploadDirectory.resolve("doc" + id + ".png"), "x");
+        jdbcTemplate.update("INSERT INTO documents (id, filename, file_path, created_at) VALUES (?, ?, ?, ?)",
+            id, file.getFileName().toString(), file.toString(), createdAt);
+        jdbcTemplate.update("INSERT INTO page_results (document_id) VALUES (?)", id);
+        jdbcTemplate.update("INSERT INTO field_mappings (document_id) VALUES (?)", id);
+    }
+}
\ No newline at end of file
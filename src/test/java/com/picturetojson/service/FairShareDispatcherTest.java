@@ -0,0 +1,57 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.QuotaProperties;
+import com.picturetojson.dto.DocumentResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class FairShareDispatcherTest {
+    
+    @Test
+    void testSubmit_sharesWorkersByWeight() {
+        QuotaProperties properties = new QuotaProperties();
+        properties.setConcurrency(1);
+        QuotaProperties.Client heavy = new QuotaProperties.Client();
+        heavy.setWeight(3);
+        properties.getClients().put("heavy", heavy);
+        
+        List<Long> started = new ArrayList<>();
+        List<CompletableFuture<DocumentResponseDto>> running = new ArrayList<>();
+        DocumentProcessingService processingService = mock(DocumentProcessingService.class);
+        when(processingService.processDocumentAsync(anyLong())).thenAnswer(invocation -> {
+            started.add(invocation.getArgument(0));
+            CompletableFuture<DocumentResponseDto> future = new CompletableFuture<>();
+            running.add(future);
+            return future;
+        });
+        
+        FairShareDispatcher dispatcher = new FairShareDispatcher(processingService, properties,
+            new SimpleMeterRegistry(), Runnable::run);
+        // Heavy documents are 1-20, light ones 101-120
+        dispatcher.submit("heavy", LongStream.rangeClosed(1, 20).boxed().toList());
+        dispatcher.submit("light", LongStream.rangeClosed(101, 120).boxed().toList());
+        assertEquals(1, started.size());
+        
+        while (started.size() < 8) {
+            running.get(started.size() - 1).complete(null);
+        }
+        
+        long light = started.stream().filter(id -> id > 100).count();
+        assertEquals(2, light);
+        assertEquals(List.of(1L, 101L, 2L, 3L), started.subList(0, 4));
+        assertEquals(Map.of("heavy", 14, "light", 18), dispatcher.getQueued());
+        // The document still running counts against its client
+        assertEquals(15, dispatcher.getInFlight("heavy"));
+        assertEquals(18, dispatcher.getInFlight("light"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldAccumulatorTest {
+    
+    private final JsonGenerationService jsonGenerationService = new JsonGenerationService(new ObjectMapper());
+    
+    @Test
+    void testAddPage_higherConfidenceWinsThenEarlierPage() {
+        FieldAccumulator accumulator = new FieldAccumulator();
+        
+        add(accumulator, 1, new OcrResult.Line("Email: first@example.com", 60f, null),
+            new OcrResult.Line("Phone: 1111111111", 90f, null));
+        add(accumulator, 2, new OcrResult.Line("Email: second@example.com", 85f, null),
+            new OcrResult.Line("Phone: 2222222222", 90f, null));
+        
+        Map<String, ExtractedField> fields = byName(accumulator);
+        assertEquals("second@example.com", fields.get("email").getValue());
+        assertEquals(2, fields.get("email").getPageNumber());
+        assertEquals(85, fields.get("email").getConfidence());
+        assertEquals("1111111111", fields.get("phone").getValue());
+        assertEquals(2, accumulator.getPages());
+    }
+    
+    @Test
+    void testAddPage_labelledNameBeatsDerivedName() {
+        FieldAccumulator accumulator = new FieldAccumulator();
+        
+        add(accumulator, 1, new OcrResult.Line("Name: Madonna", 95f, null));
+        assertEquals("Madonna", byName(accumulator).get("fullName").getValue());
+        
+        add(accumulator, 2, new OcrResult.Line("First Name: Jane", 70f, null));
+        
+        Map<String, ExtractedField> fields = byName(accumulator);
+        assertEquals("Jane", fields.get("firstName").getValue());
+        assertFalse(fields.containsKey("fullName"));
+    }
+    
+    private void add(FieldAccumulator accumulator, int pageNumber, OcrResult.Line... lines) {
+        OcrResult page = new OcrResult(List.of(lines), 0);
+        accumulator.addPage(pageNumber, jsonGenerationService.extractFields(page.getText()), page);
+    }
+    
+    private static Map<String, ExtractedField> byName(FieldAccumulator accumulator) {
+        return accumulator.getFields().stream()
+            .collect(Collectors.toMap(ExtractedField::getName, field -> field));
+    }
+}
\ No newline at end of file
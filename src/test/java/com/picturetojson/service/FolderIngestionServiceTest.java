@@ -0,0 +1,142 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.IngestionProperties;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FolderIngestionServiceTest {
+    
+    @TempDir
+    Path inbox;
+    
+    @TempDir
+    Path uploadDirectory;
+    
+    private DocumentProcessingService documentProcessingService;
+    private DocumentRepository documentRepository;
+    private FairShareDispatcher fairShareDispatcher;
+    private IngestionProperties properties;
+    private FolderIngestionService service;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        documentProcessingService = mock(DocumentProcessingService.class);
+        documentRepository = mock(DocumentRepository.class);
+        fairShareDispatcher = mock(FairShareDispatcher.class);
+        properties = new IngestionProperties();
+        properties.setDirectory(inbox.toString());
+        properties.setStableWindow(Duration.ZERO);
+        Files.createDirectories(inbox.resolve("failed"));
+        service = new FolderIngestionService(documentProcessingService, documentRepository, fairShareDispatcher,
+            properties, uploadDirectory.toString());
+    }
+    
+    @Test
+    void testTakeStable_waitsUntilSizeSettlesAndSkipsPartialFiles() throws Exception {
+        Path growing = Files.writeString(inbox.resolve("scan.png"), "x");
+        Files.writeString(inbox.resolve("scan2.png.part"), "x");
+        Files.writeString(inbox.resolve("empty.png"), "");
+        
+        service.scan(inbox);
+        assertTrue(service.takeStable(100).isEmpty(), "first sighting only records size and time");
+        
+        Files.writeString(growing, "xx");
+        assertTrue(service.takeStable(100).isEmpty(), "changed since the last check");
+        
+        assertEquals(List.of(growing), service.takeStable(100));
+        assertTrue(service.takeStable(100).isEmpty(), "empty files and partial copies are never taken");
+    }
+    
+    @Test
+    void testTakeStable_returnsAtMostOneBatch() throws Exception {
+        properties.setBatchSize(2);
+        for (String name : List.of("a.png", "b.png", "c.png")) {
+            Files.writeString(inbox.resolve(name), "x");
+        }
+        service.scan(inbox);
+        service.takeStable(100);
+        
+        assertEquals(2, service.takeStable(100).size());
+        assertEquals(1, service.takeStable(100).size());
+        assertTrue(service.takeStable(100).isEmpty());
+    }
+    
+    @Test
+    void testTakeStable_takesNoMoreThanTheLimit() throws Exception {
+        for (String name : List.of("a.png", "b.png", "c.png")) {
+            Files.writeString(inbox.resolve(name), "x");
+        }
+        service.scan(inbox);
+        service.takeStable(100);
+        
+        assertEquals(1, service.takeStable(1).size());
+        assertEquals(2, service.takeStable(100).size());
+    }
+    
+    @Test
+    void testIngest_movesRegistersAndQueuesBatch() throws Exception {
+        Path scan = Files.writeString(inbox.resolve("scan.png"), "x");
+        Path notes = Files.writeString(inbox.resolve("notes.txt"), "x");
+        AtomicLong ids = new AtomicLong();
+        when(documentProcessingService.registerDocuments(anyList())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            documents.forEach(document -> document.setId(ids.incrementAndGet()));
+            return documents;
+        });
+        
+        service.ingest(inbox, List.of(scan, notes));
+        
+        assertFalse(Files.exists(scan));
+        assertFalse(Files.exists(notes));
+        try (var uploaded = Files.list(uploadDirectory)) {
+            List<String> names = uploaded.map(path -> path.getFileName().toString()).toList();
+            assertEquals(1, names.size());
+            assertTrue(names.get(0).endsWith("_scan.png"));
+        }
+        try (var failed = Files.list(inbox.resolve("failed"))) {
+            assertEquals(1, failed.count());
+        }
+        verify(fairShareDispatcher).submit("watch-folder", List.of(1L));
+    }
+    
+    @Test
+    void testIngest_returnsFilesWhenRegistrationFails() throws Exception {
+        Path first = Files.writeString(inbox.resolve("first.png"), "1");
+        Path second = Files.writeString(inbox.resolve("second.pdf"), "2");
+        when(documentProcessingService.registerDocuments(anyList())).thenThrow(new RuntimeException("database down"));
+        
+        assertThrows(RuntimeException.class, () -> service.ingest(inbox, List.of(first, second)));
+        
+        assertEquals("1", Files.readString(first));
+        assertEquals("2", Files.readString(second));
+        try (var uploaded = Files.list(uploadDirectory)) {
+            assertEquals(0, uploaded.count());
+        }
+        verify(fairShareDispatcher, never()).submit(any(), anyList());
+    }
+    
+    @Test
+    void testRequeuePending_queuesIngestedDocumentsLeftPending() {
+        when(documentRepository.findIdsByStatusAndClientId(Document.ProcessingStatus.PENDING, "watch-folder"))
+            .thenReturn(List.of(4L, 7L));
+        
+        service.requeuePending();
+        
+        verify(fairShareDispatcher).submit(eq("watch-folder"), eq(List.of(4L, 7L)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormAlignerTest {
+    
+    private final FormAligner aligner = new FormAligner(new FormProperties());
+    
+    @Test
+    void testLocate_followsShiftedScan(@TempDir Path directory) throws Exception {
+        BufferedImage template = template();
+        File templateFile = directory.resolve("template.png").toFile();
+        ImageIO.write(template, "png", templateFile);
+        
+        // The scan lands 60 px right and 45 px down on a larger sheet
+        BufferedImage page = new BufferedImage(1000, 1100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, page.getWidth(), page.getHeight());
+        graphics.drawImage(template, 60, 45, null);
+        graphics.dispose();
+        
+        FormProperties.Layout layout = layout(List.of(templateFile.getPath()));
+        Rectangle zone = aligner.locate(page, layout, 1, List.copyOf(layout.getFields().values())).get(0);
+        
+        assertEquals(160, zone.x, 3);
+        assertEquals(245, zone.y, 3);
+        assertEquals(300, zone.width, 3);
+        assertEquals(50, zone.height, 3);
+    }
+    
+    @Test
+    void testLocate_scalesWithoutTemplate() {
+        BufferedImage page = new BufferedImage(450, 500, BufferedImage.TYPE_INT_RGB);
+        
+        FormProperties.Layout layout = layout(List.of());
+        Rectangle zone = aligner.locate(page, layout, 1, List.copyOf(layout.getFields().values())).get(0);
+        
+        assertEquals(new Rectangle(50, 100, 150, 25), zone);
+    }
+    
+    private static FormProperties.Layout layout(List<String> templates) {
+        FormProperties.Zone zone = new FormProperties.Zone();
+        zone.setX(100);
+        zone.setY(200);
+        zone.setWidth(300);
+        zone.setHeight(50);
+        FormProperties.Layout layout = new FormProperties.Layout();
+        layout.setTemplates(templates);
+        layout.setWidth(900);
+        layout.setHeight(1000);
+        layout.getFields().put("name", zone);
+        return layout;
+    }
+    
+    // Printed labels and boxes, enough corners for feature matching
+    private static BufferedImage template() {
+        BufferedImage image = new BufferedImage(900, 1000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 28));
+        Random random = new Random(7);
+        for (int row = 0; row < 12; row++) {
+            int y = 80 + row * 75;
+            graphics.drawString("Field " + (char) ('A' + row) + random.nextInt(1000), 40, y);
+            graphics.drawRect(360 + random.nextInt(60), y - 30, 300 + random.nextInt(150), 40);
+        }
+        graphics.dispose();
+        return image;
+    }
+}
\ No newline at end of file
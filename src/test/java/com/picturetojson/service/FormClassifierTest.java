@@ -0,0 +1,100 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormClassifierTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private FormClassifier classifier;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        FormProperties properties = new FormProperties();
+        for (int seed = 1; seed <= 2; seed++) {
+            File template = tempDir.resolve("form" + seed + ".png").toFile();
+            ImageIO.write(form(seed, false, 1.0, 0, 0), "png", template);
+            FormProperties.Layout layout = new FormProperties.Layout();
+            layout.setTemplates(List.of(template.getPath()));
+            properties.getLayouts().put("form" + seed, layout);
+        }
+        classifier = new FormClassifier(properties);
+    }
+    
+    @Test
+    void testClassify_filledShiftedScanMatchesItsTemplate() {
+        assertTrue(classifier.isEnabled());
+        // Half the template's resolution, values filled in, offset by about 3%
+        BufferedImage scan = form(2, true, 0.5, 20, 15);
+        
+        assertEquals("form2", classifier.classify(scan));
+    }
+    
+    @Test
+    void testClassify_freeTextPageMatchesNothing() {
+        BufferedImage letter = new BufferedImage(620, 877, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = letter.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, letter.getWidth(), letter.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(new Font(Font.SERIF, Font.PLAIN, 11));
+        Random random = new Random(9);
+        for (int line = 0; line < 40; line++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 60; i++) {
+                text.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+            graphics.drawString(text.toString(), 50, 75 + line * 18);
+        }
+        graphics.dispose();
+        
+        assertNull(classifier.classify(letter));
+    }
+    
+    // Labelled boxes placed by the seed, on a 1240 x 1754 page at the given scale
+    private static BufferedImage form(long seed, boolean filled, double scale, int dx, int dy) {
+        BufferedImage image = new BufferedImage((int) (1240 * scale), (int) (1754 * scale), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.translate(dx, dy);
+        graphics.scale(scale, scale);
+        graphics.setColor(Color.BLACK);
+        graphics.setStroke(new BasicStroke(2));
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 20));
+        graphics.drawLine(60, 120, 1180, 120);
+        
+        Random random = new Random(seed);
+        int y = 170;
+        for (int field = 0; y < 1650; field++) {
+            int height = 40 + random.nextInt(3) * 40;
+            int x = 60 + random.nextInt(2) * 560;
+            int width = Math.min(500 + random.nextInt(2) * 560, 1180 - x);
+            graphics.drawString("Label " + field, x, y - 6);
+            graphics.drawRect(x, y, width, height);
+            if (filled) {
+                graphics.drawString("Value " + field * 7919, x + 10, y + 28);
+            }
+            y += height + 50;
+        }
+        graphics.dispose();
+        return image;
+    }
+}
\ No newline at end of file
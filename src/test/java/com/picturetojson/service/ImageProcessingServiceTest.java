@@ -0,0 +1,83 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.PreprocessingProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageProcessingServiceTest {
+
+    private final PreprocessingProperties properties = new PreprocessingProperties();
+    private final ImageProcessingService imageProcessingService = new ImageProcessingService(properties);
+
+    @Test
+    void testSelectProfile_cleanScan() {
+        Mat page = new Mat(3300, 2550, CvType.CV_8UC3, new Scalar(255, 255, 255));
+        Imgproc.putText(page, "First Name: John", new Point(200, 400), Imgproc.FONT_HERSHEY_SIMPLEX, 3, new Scalar(0, 0, 0), 6);
+
+        ImageStatistics statistics = imageProcessingService.computeStatistics(page);
+
+        assertTrue(statistics.getBinaryRatio() > 0.9);
+        assertEquals("clean-scan", imageProcessingService.selectProfile(statistics));
+    }
+
+    @Test
+    void testSelectProfile_lowResolutionBilevelIsFax() {
+        Mat page = new Mat(2200, 1728, CvType.CV_8UC1, new Scalar(255));
+
+        ImageStatistics statistics = imageProcessingService.computeStatistics(page);
+
+        assertEquals("fax", imageProcessingService.selectProfile(statistics));
+    }
+
+    @Test
+    void testSelectProfile_tintedPhoto() {
+        Mat page = new Mat(3000, 4000, CvType.CV_8UC3, new Scalar(90, 150, 200));
+
+        ImageStatistics statistics = imageProcessingService.computeStatistics(page);
+
+        assertTrue(statistics.getSaturation() > 40);
+        assertEquals("phone-photo", imageProcessingService.selectProfile(statistics));
+    }
+
+    @Test
+    void testSelectProfile_autoSelectDisabled() {
+        properties.setAutoSelect(false);
+        Mat page = new Mat(3000, 4000, CvType.CV_8UC3, new Scalar(90, 150, 200));
+
+        assertEquals("standard", imageProcessingService.selectProfile(imageProcessingService.computeStatistics(page)));
+    }
+
+    @Test
+    void testReductionFactor_keepsTargetResolution() {
+        // 48 MP photo, Letter page at 300 dpi
+        assertEquals(2, ImageProcessingService.reductionFactor(8000, 3300));
+        // 12 MP photo is already close to the target
+        assertEquals(1, ImageProcessingService.reductionFactor(4000, 3300));
+        assertEquals(8, ImageProcessingService.reductionFactor(40000, 3300));
+    }
+
+    @Test
+    void testPreprocessImage_decodesLargeJpegReduced(@TempDir Path tempDir) throws Exception {
+        properties.getDecode().setTargetDpi(50);
+        File photo = tempDir.resolve("photo.jpg").toFile();
+        ImageIO.write(new BufferedImage(2400, 1800, BufferedImage.TYPE_3BYTE_BGR), "jpg", photo);
+
+        BufferedImage result = imageProcessingService.preprocessImage(photo);
+
+        // 11 in x 50 dpi = 550 px: 1/4 keeps 600 px, 1/8 would drop below
+        assertEquals(600, result.getWidth());
+        assertEquals(450, result.getHeight());
+    }
+}
\ No newline at end of file
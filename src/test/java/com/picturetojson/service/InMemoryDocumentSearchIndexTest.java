@@ -0,0 +1,91 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.entity.Document;
+import com.picturetojson.repository.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDocumentSearchIndexTest {
+    
+    private final InMemoryDocumentSearchIndex index = new InMemoryDocumentSearchIndex(
+        Mockito.mock(DocumentRepository.class), new JsonGenerationService(new ObjectMapper()),
+        Mockito.mock(CorrectionService.class));
+    
+    @Test
+    void testSearch_byTextAndField() {
+        index.index(document(1L, "First Name: John Last Name: Doe", "{\"lastName\":\"Doe\",\"email\":\"john@example.com\"}"), null);
+        index.index(document(2L, "First Name: Jane Last Name: Doe", "{\"lastName\":\"Doe\",\"email\":\"jane@example.com\"}"), null);
+        
+        assertEquals(List.of(2L, 1L), index.search("doe", Map.of(), 10));
+        assertEquals(List.of(1L), index.search("john doe", Map.of(), 10));
+        assertEquals(List.of(2L), index.search(null, Map.of("email", "JANE@example.com"), 10));
+        assertEquals(List.of(2L), index.search("jane@example.com", Map.of(), 10));
+        assertEquals(List.of(2L), index.search("doe", Map.of(), 1));
+        assertTrue(index.search("smith", Map.of(), 10).isEmpty());
+    }
+    
+    @Test
+    void testIndex_correctionsReplaceExtractedValues() {
+        Document document = document(1L, "Last Name: Dae", "{\"lastName\":\"Dae\"}");
+        index.index(document, null);
+        
+        index.index(document, "{\"lastName\":\"Doe\"}");
+        
+        assertEquals(List.of(1L), index.search(null, Map.of("lastName", "doe"), 10));
+        assertTrue(index.search(null, Map.of("lastName", "dae"), 10).isEmpty());
+        
+        index.remove(1L);
+        assertTrue(index.search("dae", Map.of(), 10).isEmpty());
+    }
+    
+    @Test
+    void testIndex_addRacingRemovalOfLastPostingIsKept() throws Exception {
+        int rounds = 5000;
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Each round one document leaves a term while another joins it
+            Future<?> remover = executor.submit(() -> {
+                for (int round = 1; round <= rounds; round++) {
+                    index.index(document(0L, "term" + round, "{}"), null);
+                    barrier.await();
+                    index.remove(0L);
+                }
+                return null;
+            });
+            Future<?> indexer = executor.submit(() -> {
+                for (int round = 1; round <= rounds; round++) {
+                    barrier.await();
+                    index.index(document((long) round, "term" + round, "{}"), null);
+                }
+                return null;
+            });
+            remover.get();
+            indexer.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        for (int round = 1; round <= rounds; round++) {
+            assertEquals(List.of((long) round), index.search("term" + round, Map.of(), 10), "term" + round);
+        }
+    }
+    
+    private static Document document(Long id, String text, String extractedJson) {
+        Document document = new Document();
+        document.setId(id);
+        document.setExtractedText(text);
+        document.setExtractedJson(extractedJson);
+        return document;
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -38,4 +40,20 @@ class JsonGenerationServiceTest {
         assertTrue(jsonGenerationService.isValidJson(result));
         assertEquals("{}", result);
     }
+    
+    @Test
+    void testExtractFields_labelsAndLineConfidence() {
+        OcrResult ocrResult = new OcrResult(List.of(
+            new OcrResult.Line("First Name: John", 91f, null),
+            new OcrResult.Line("Email: john.doe@example.com", 62f, null)), 0);
+        
+        List<ExtractedField> fields = jsonGenerationService.extractFields(ocrResult.getText());
+        ExtractedField email = fields.stream().filter(f -> f.getName().equals("email")).findFirst().orElseThrow();
+        
+        assertEquals("Email", email.getSourceLabel());
+        assertEquals("john.doe@example.com", email.getValue());
+        assertEquals(62f, ocrResult.lineAt(email.getOffset()).getConfidence());
+        assertEquals("First Name", fields.get(0).getSourceLabel());
+        assertEquals(91f, ocrResult.lineAt(fields.get(0).getOffset()).getConfidence());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPatchServiceTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonPatchService jsonPatchService = new JsonPatchService();
+    
+    @Test
+    void testApply_fieldCorrections() throws Exception {
+        JsonNode extracted = objectMapper.readTree("{\"firstName\":\"Jonh\",\"phone\":\"555\",\"tags\":[\"a\"]}");
+        JsonNode patch = objectMapper.readTree("[" +
+            "{\"op\":\"test\",\"path\":\"/firstName\",\"value\":\"Jonh\"}," +
+            "{\"op\":\"replace\",\"path\":\"/firstName\",\"value\":\"John\"}," +
+            "{\"op\":\"move\",\"from\":\"/phone\",\"path\":\"/phoneNumber\"}," +
+            "{\"op\":\"add\",\"path\":\"/tags/-\",\"value\":\"b\"}," +
+            "{\"op\":\"copy\",\"from\":\"/firstName\",\"path\":\"/displayName\"}]");
+        
+        JsonNode result = jsonPatchService.apply(extracted, patch);
+        
+        assertEquals(objectMapper.readTree(
+            "{\"firstName\":\"John\",\"tags\":[\"a\",\"b\"],\"phoneNumber\":\"555\",\"displayName\":\"John\"}"), result);
+        assertEquals("Jonh", extracted.get("firstName").asText());
+    }
+    
+    @Test
+    void testApply_rejectsInvalidPatches() throws Exception {
+        JsonNode extracted = objectMapper.readTree("{\"firstName\":\"John\",\"tags\":[\"a\"]}");
+        
+        assertThrows(IllegalArgumentException.class, () -> jsonPatchService.apply(extracted,
+            objectMapper.readTree("[{\"op\":\"remove\",\"path\":\"/lastName\"}]")));
+        assertThrows(IllegalArgumentException.class, () -> jsonPatchService.apply(extracted,
+            objectMapper.readTree("[{\"op\":\"add\",\"path\":\"/tags/5\",\"value\":\"b\"}]")));
+        assertThrows(IllegalArgumentException.class, () -> jsonPatchService.apply(extracted,
+            objectMapper.readTree("[{\"op\":\"test\",\"path\":\"/firstName\",\"value\":\"Jane\"}]")));
+        assertThrows(IllegalArgumentException.class, () -> jsonPatchService.apply(extracted,
+            objectMapper.readTree("{\"op\":\"remove\",\"path\":\"/firstName\"}")));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.entity.Document;
+import com.picturetojson.entity.PageResult;
+import com.picturetojson.repository.PageResultRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PageCheckpointServiceTest {
+    
+    private final PageResultRepository repository = Mockito.mock(PageResultRepository.class);
+    private final PageCheckpointService service = new PageCheckpointService(repository, new ObjectMapper());
+    
+    @Test
+    void testCompletedPage_roundTrip() {
+        Document document = new Document("f.pdf", "f.pdf", "application/pdf", 10L, "/tmp/f.pdf");
+        document.setId(7L);
+        OcrResult result = new OcrResult(List.of(
+            new OcrResult.Line("First Name: John", 91.5f, new Rectangle(10, 20, 300, 40)),
+            new OcrResult.Line("Phone: 555-1234", 62f, new Rectangle(10, 80, 280, 40))), 1);
+        when(repository.findByDocumentIdAndPageNumber(7L, 3)).thenReturn(Optional.empty());
+        
+        service.saveCompleted(document, 3, result, 1200);
+        
+        ArgumentCaptor<PageResult> saved = ArgumentCaptor.forClass(PageResult.class);
+        verify(repository).save(saved.capture());
+        assertEquals(PageResult.PageStatus.COMPLETED, saved.getValue().getStatus());
+        when(repository.findByDocumentIdAndStatusOrderByPageNumberAsc(7L, PageResult.PageStatus.COMPLETED))
+            .thenReturn(List.of(saved.getValue()));
+        
+        Map<Integer, OcrResult> pages = service.getCompletedPages(7L);
+        
+        OcrResult restored = pages.get(3);
+        assertEquals(result.getText(), restored.getText());
+        assertEquals(result.getConfidence(), restored.getConfidence());
+        assertEquals(1, restored.getRefinedLines());
+        assertEquals(new Rectangle(10, 80, 280, 40), restored.getLines().get(1).getBoundingBox());
+    }
+}
\ No newline at end of file
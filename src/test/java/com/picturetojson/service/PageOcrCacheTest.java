@@ -0,0 +1,100 @@
+package com.picturetojson.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picturetojson.config.OcrProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PageOcrCacheTest {
+    
+    private final OcrProperties properties = new OcrProperties();
+    @SuppressWarnings("unchecked")
+    private final PageOcrCache cache = new PageOcrCache(properties, new JsonGenerationService(new ObjectMapper()),
+        mock(ObjectProvider.class));
+    
+    @Test
+    void testFind_reusedAfterIdenticalReads() {
+        OcrResult terms = result("Terms and conditions apply");
+        
+        PageOcrCache.Lookup first = cache.find(page(0), "partner-a");
+        assertNull(first.getResult());
+        cache.put(first, terms);
+        
+        // One read is not enough to tell boilerplate from a form
+        PageOcrCache.Lookup second = cache.find(page(2), "partner-a");
+        assertNull(second.getResult());
+        cache.put(second, result("Terms and  conditions apply"));
+        
+        assertSame(terms, cache.find(page(1), "partner-a").getResult());
+        assertNull(cache.find(page(1), "partner-b").getResult(), "entries are never shared across clients");
+        assertNull(cache.find(page(1), null).getResult());
+    }
+    
+    @Test
+    void testFind_notReusedWhenMatchingPagesReadDifferently() {
+        PageOcrCache.Lookup first = cache.find(page(0), null);
+        cache.put(first, result("Dear John Smith"));
+        PageOcrCache.Lookup second = cache.find(page(1), null);
+        cache.put(second, result("Dear Jane Doe"));
+        
+        PageOcrCache.Lookup third = cache.find(page(0), null);
+        assertNull(third.getResult());
+        cache.put(third, result("Dear John Smith"));
+        assertNull(cache.find(page(0), null).getResult());
+    }
+    
+    @Test
+    void testPut_pagesWithFormFieldsAreNeverCached() {
+        for (int read = 0; read < 3; read++) {
+            PageOcrCache.Lookup lookup = cache.find(page(0), null);
+            assertNull(lookup.getResult());
+            cache.put(lookup, result("Name: John Smith"));
+        }
+    }
+    
+    @Test
+    void testFind_sampledHitIsReadAgainAndRetiredWhenItDiffers() {
+        properties.getPageCache().setVerifyEvery(2);
+        OcrResult terms = result("Terms and conditions apply");
+        cache.put(cache.find(page(0), null), terms);
+        cache.put(cache.find(page(1), null), terms);
+        
+        assertSame(terms, cache.find(page(1), null).getResult());
+        PageOcrCache.Lookup verified = cache.find(page(1), null);
+        assertNull(verified.getResult(), "every second hit runs OCR");
+        cache.put(verified, terms);
+        assertSame(terms, cache.find(page(1), null).getResult());
+        
+        PageOcrCache.Lookup changed = cache.find(page(2), null);
+        assertNull(changed.getResult());
+        cache.put(changed, result("Terms and conditions apply to John Smith"));
+        assertNull(cache.find(page(0), null).getResult());
+    }
+    
+    private static BufferedImage page(int offset) {
+        BufferedImage page = new BufferedImage(850, 1100, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 850, 1100);
+        graphics.setColor(Color.BLACK);
+        for (int line = 0; line < 30; line++) {
+            graphics.fillRect(80 + offset, 100 + line * 30 + offset, 300 + (line * 137) % 400, 12);
+        }
+        graphics.dispose();
+        return page;
+    }
+    
+    private static OcrResult result(String text) {
+        return new OcrResult(List.of(new OcrResult.Line(text, 95f, new Rectangle(80, 100, 600, 12))), 0);
+    }
+}
\ No newline at end of file
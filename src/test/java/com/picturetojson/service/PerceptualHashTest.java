@@ -0,0 +1,73 @@
+package com.picturetojson.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerceptualHashTest {
+    
+    private static final int HASH_SIZE = 12;
+    private static final int MAX_DISTANCE = 24;
+    
+    @Test
+    void testDistance_rescannedPageMatches() {
+        BufferedImage page = page(1);
+        BufferedImage rescan = rescan(page, 4, 3, new Random(7));
+        
+        int distance = PerceptualHash.distance(PerceptualHash.dHash(page, HASH_SIZE), PerceptualHash.dHash(rescan, HASH_SIZE));
+        
+        assertTrue(distance <= MAX_DISTANCE, "rescan differs in " + distance + " bits");
+    }
+    
+    @Test
+    void testDistance_differentPagesDoNotMatch() {
+        long[] first = PerceptualHash.dHash(page(1), HASH_SIZE);
+        long[] second = PerceptualHash.dHash(page(2), HASH_SIZE);
+        
+        assertEquals((2 * HASH_SIZE * HASH_SIZE + 63) / 64, first.length);
+        assertEquals(0, PerceptualHash.distance(first, first));
+        assertTrue(PerceptualHash.distance(first, second) > 2 * MAX_DISTANCE);
+    }
+    
+    /**
+     * Letter-sized page at 100 dpi with lines of "text" drawn as bars of varying length
+     */
+    private static BufferedImage page(long layout) {
+        Random random = new Random(layout);
+        BufferedImage page = new BufferedImage(850, 1100, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 850, 1100);
+        graphics.setColor(Color.BLACK);
+        for (int y = 80; y < 1020; y += 24 + random.nextInt(30)) {
+            int x = 60 + random.nextInt(80);
+            graphics.fillRect(x, y, 200 + random.nextInt(550 - x + 60), 12);
+        }
+        graphics.dispose();
+        return page;
+    }
+    
+    /**
+     * Copy shifted by a few pixels, slightly darker, with scattered noise
+     */
+    private static BufferedImage rescan(BufferedImage page, int dx, int dy, Random random) {
+        BufferedImage copy = new BufferedImage(page.getWidth(), page.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < page.getHeight(); y++) {
+            for (int x = 0; x < page.getWidth(); x++) {
+                int sourceX = Math.min(page.getWidth() - 1, Math.max(0, x - dx));
+                int sourceY = Math.min(page.getHeight() - 1, Math.max(0, y - dy));
+                int value = page.getRaster().getSample(sourceX, sourceY, 0) * 9 / 10;
+                if (random.nextInt(100) == 0) {
+                    value = 255 - value;
+                }
+                copy.getRaster().setSample(x, y, 0, value);
+            }
+        }
+        return copy;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.ProcessingProperties;
+import com.picturetojson.entity.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingControlTest {
+    
+    @Test
+    void testCheckpoint_cancelled() {
+        ProcessingControl control = new ProcessingControl(Duration.ofMinutes(5), Duration.ofMinutes(1));
+        control.startPage();
+        assertFalse(control.shouldStop());
+        
+        control.cancel();
+        
+        assertTrue(control.shouldStop());
+        ProcessingStoppedException e = assertThrows(ProcessingStoppedException.class, control::checkpoint);
+        assertEquals(Document.ProcessingStatus.CANCELLED, e.getStatus());
+    }
+    
+    @Test
+    void testCheckpoint_pageDeadline() throws Exception {
+        ProcessingControl control = new ProcessingControl(Duration.ofMinutes(5), Duration.ofMillis(1));
+        control.checkpoint();
+        
+        control.startPage();
+        Thread.sleep(5);
+        
+        assertTrue(control.shouldStop());
+        ProcessingStoppedException e = assertThrows(ProcessingStoppedException.class, control::checkpoint);
+        assertEquals(Document.ProcessingStatus.TIMED_OUT, e.getStatus());
+    }
+    
+    @Test
+    void testDocumentDeadline_scalesWithSizeAndIsCapped() {
+        ProcessingProperties properties = new ProcessingProperties();
+        
+        assertEquals(Duration.ofMinutes(3), properties.documentDeadline(100_000, 1));
+        assertEquals(Duration.ofMinutes(12).plusSeconds(20), properties.documentDeadline(2 * 1024 * 1024, 10));
+        assertEquals(properties.getMaxDeadline(), properties.documentDeadline(40L * 1024 * 1024, 500));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.QuotaProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    
+    @Test
+    void testUnknownClientIdsShareTheDefaultClient() {
+        QuotaProperties properties = new QuotaProperties();
+        properties.getUpload().setBurst(3);
+        properties.getUpload().setRatePerSecond(0.001);
+        properties.getClients().put("partner-a", new QuotaProperties.Client());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry);
+        
+        assertEquals("partner-a", rateLimiter.resolveClient(request(" partner-a ")));
+        assertEquals("anonymous", rateLimiter.resolveClient(request(null)));
+        
+        // Rotating ids does not reset the bucket
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(rateLimiter.resolveClient(request("rotating-" + i)), RateLimiter.Operation.UPLOAD, 1);
+        }
+        assertThrows(RateLimitExceededException.class, () ->
+            rateLimiter.acquire(rateLimiter.resolveClient(request("rotating-3")), RateLimiter.Operation.UPLOAD, 1));
+        rateLimiter.acquire(rateLimiter.resolveClient(request("partner-a")), RateLimiter.Operation.UPLOAD, 1);
+        
+        Set<String> clients = meterRegistry.find("quota.requests").meters().stream()
+            .map(Meter::getId)
+            .map(id -> id.getTag("client"))
+            .collect(Collectors.toSet());
+        assertEquals(Set.of("anonymous", "partner-a"), clients);
+    }
+    
+    private static MockHttpServletRequest request(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.picturetojson.service;
+
+import net.sourceforge.tess4j.TesseractException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TesseractEnginePoolTest {
+    
+    @Test
+    void testUse_neverCreatesMoreEnginesThanTheLimit() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        TesseractEnginePool pool = new TesseractEnginePool(() -> {
+            created.incrementAndGet();
+            return mock(TesseractEngine.class);
+        }, 2);
+        Set<TesseractEngine> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxInUse = new AtomicInteger();
+        
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] calls = new Future<?>[40];
+            for (int i = 0; i < calls.length; i++) {
+                calls[i] = threads.submit(() -> {
+                    start.await();
+                    return pool.use(ProcessingControl.NONE, engine -> {
+                        assertTrue(inUse.add(engine), "an engine is lent to one thread at a time");
+                        maxInUse.accumulateAndGet(inUse.size(), Math::max);
+                        LockSupport.parkNanos(2_000_000);
+                        inUse.remove(engine);
+                        return null;
+                    });
+                });
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        
+        assertEquals(2, created.get());
+        assertEquals(2, pool.created());
+        assertEquals(2, maxInUse.get());
+    }
+    
+    @Test
+    void testUse_waitingStopsAtTheDeadlineAndFailedCallsReturnTheEngine() throws Exception {
+        TesseractEngine engine = mock(TesseractEngine.class);
+        TesseractEnginePool pool = new TesseractEnginePool(() -> engine, 1);
+        
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                pool.use(ProcessingControl.NONE, held -> {
+                    borrowed.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new TesseractException(e);
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        holder.start();
+        assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+        
+        ProcessingControl control = new ProcessingControl(Duration.ofMillis(150), null);
+        ProcessingStoppedException stopped = assertThrows(ProcessingStoppedException.class,
+            () -> pool.use(control, waiting -> null));
+        assertTrue(stopped.getMessage().contains("deadline"), stopped.getMessage());
+        
+        release.countDown();
+        holder.join(5000);
+        assertThrows(TesseractException.class, () -> pool.use(ProcessingControl.NONE, failing -> {
+            throw new TesseractException("recognition failed");
+        }));
+        assertSame(engine, pool.use(ProcessingControl.NONE, free -> free));
+        
+        pool.close();
+        verify(engine).close();
+    }
+}
\ No newline at end of file
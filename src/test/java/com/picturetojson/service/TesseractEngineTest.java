@@ -0,0 +1,28 @@
+package com.picturetojson.service;
+
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TesseractEngineTest {
+    
+    @Test
+    void testBitsPerPixel_matchesTheBufferHandedToTesseract() {
+        for (int type : new int[] {BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_USHORT_GRAY}) {
+            BufferedImage image = new BufferedImage(31, 7, type);
+            
+            int bitsPerPixel = TesseractEngine.bitsPerPixel(image);
+            
+            int bytesPerLine = (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0);
+            assertEquals(bytesPerLine * image.getHeight(), ImageIOHelper.getImageByteBuffer(image).capacity(),
+                "image type " + type);
+        }
+        assertEquals(8, TesseractEngine.bitsPerPixel(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB)));
+        assertEquals(24, TesseractEngine.bitsPerPixel(new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR)));
+    }
+}
\ No newline at end of file
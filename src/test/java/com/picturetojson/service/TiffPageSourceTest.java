@@ -0,0 +1,69 @@
+package com.picturetojson.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.plugins.tiff.TIFFTag;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiffPageSourceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testReadPage_framesOneAtATimeWithFaxAspectCorrected() throws Exception {
+        File file = tempDir.resolve("fax.tif").toFile();
+        writeFax(file, 3, 200, 100);
+        
+        try (PageSource source = PageSource.open(file, PageSource.TIFF)) {
+            assertEquals(3, source.getPageCount());
+            
+            BufferedImage last = source.readPage(2);
+            assertEquals(200, last.getWidth());
+            // 204x98 dpi: rows are doubled to square pixels
+            assertEquals(208, last.getHeight());
+        }
+    }
+    
+    private static void writeFax(File file, int frames, int width, int height) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType("CCITT T.6");
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames; i++) {
+                BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+                IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(frame), param);
+                TIFFDirectory directory = TIFFDirectory.createFromMetadata(metadata);
+                directory.addTIFFField(resolution(BaselineTIFFTagSet.TAG_X_RESOLUTION, 204));
+                directory.addTIFFField(resolution(BaselineTIFFTagSet.TAG_Y_RESOLUTION, 98));
+                writer.writeToSequence(new IIOImage(frame, null, directory.getAsMetadata()), param);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+    
+    private static TIFFField resolution(int tagNumber, long dpi) {
+        TIFFTag tag = BaselineTIFFTagSet.getInstance().getTag(tagNumber);
+        return new TIFFField(tag, TIFFTag.TIFF_RATIONAL, 1, new long[][] {{dpi, 1}});
+    }
+}
\ No newline at end of file
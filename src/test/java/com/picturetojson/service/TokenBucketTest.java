@@ -0,0 +1,45 @@
+package com.picturetojson.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+    
+    @Test
+    void testTryConsume_refillsAtRate() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        
+        assertTrue(bucket.tryConsume(10));
+        assertFalse(bucket.tryConsume(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.nanosUntilAvailable(1));
+        
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(bucket.tryConsume(2));
+        assertFalse(bucket.tryConsume(1));
+        
+        // Refill stops at the capacity
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertTrue(bucket.tryConsume(10));
+        assertFalse(bucket.tryConsume(1));
+    }
+    
+    @Test
+    void testTryConsume_moreThanCapacityLeavesDebt() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 1, now::get);
+        
+        assertTrue(bucket.tryConsume(15));
+        
+        // 5 tokens owed plus the 1 requested
+        assertEquals(TimeUnit.SECONDS.toNanos(6), bucket.nanosUntilAvailable(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertFalse(bucket.tryConsume(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(bucket.tryConsume(1));
+    }
+}
\ No newline at end of file
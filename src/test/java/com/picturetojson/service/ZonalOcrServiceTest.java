@@ -0,0 +1,177 @@
+package com.picturetojson.service;
+
+import com.picturetojson.config.FormProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ZonalOcrServiceTest {
+    
+    private final OcrService ocrService = mock(OcrService.class);
+    private final FormAligner formAligner = mock(FormAligner.class);
+    private final FormProperties properties = new FormProperties();
+    private ZonalOcrService service;
+    
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+    
+    @Test
+    void testRecognize_splitsZonesIntoFourSharesKeptInZoneOrder() throws Exception {
+        FormProperties.Layout layout = layout("intake");
+        for (int i = 0; i < 6; i++) {
+            layout.getFields().put("zone" + i, zone(1, "string", i == 4));
+        }
+        layout.getFields().put("other", zone(2, "string", false));
+        service = new ZonalOcrService(ocrService, formAligner, properties);
+        
+        // Zone i is located at x = i and read as the text "zone i"
+        when(formAligner.locate(any(), eq(layout), eq(1), anyList())).thenAnswer(invocation -> {
+            List<FormProperties.Zone> zones = invocation.getArgument(3);
+            List<Rectangle> regions = new ArrayList<>();
+            for (int i = 0; i < zones.size(); i++) {
+                regions.add(new Rectangle(i, 0, 10, 10));
+            }
+            return regions;
+        });
+        List<List<Integer>> shares = Collections.synchronizedList(new ArrayList<>());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(ocrService.recognizeRegions(any(), anyList(), anyList(), any())).thenAnswer(invocation -> {
+            List<Rectangle> regions = invocation.getArgument(1);
+            List<Boolean> multiline = invocation.getArgument(2);
+            List<Integer> share = regions.stream().map(region -> region.x).toList();
+            shares.add(share);
+            threads.add(Thread.currentThread().getName());
+            // Finish the later shares first; the result must not depend on completion order
+            Thread.sleep(50 - 10L * share.get(0));
+            List<OcrResult.Line> lines = new ArrayList<>();
+            for (int i = 0; i < regions.size(); i++) {
+                assertEquals(share.get(i) == 4, multiline.get(i));
+                lines.add(new OcrResult.Line("zone " + share.get(i), 90f, regions.get(i)));
+            }
+            return lines;
+        });
+        
+        OcrResult result = service.recognize(new BufferedImage(100, 100, BufferedImage.TYPE_BYTE_GRAY), "intake", 1,
+            ProcessingControl.NONE);
+        
+        assertEquals(List.of("zone 0", "zone 1", "zone 2", "zone 3", "zone 4", "zone 5"),
+            result.getLines().stream().map(OcrResult.Line::getText).toList());
+        assertEquals(Set.of(List.of(0), List.of(1, 2), List.of(3), List.of(4, 5)), Set.copyOf(shares));
+        assertEquals(4, shares.size());
+        assertEquals(4, threads.size(), "the caller reads one share, the pool the other three");
+    }
+    
+    @Test
+    void testRecognize_pageWithoutZones() throws Exception {
+        layout("intake").getFields().put("name", zone(1, "string", false));
+        service = new ZonalOcrService(ocrService, formAligner, properties);
+        
+        assertTrue(service.recognize(new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY), "intake", 2,
+            ProcessingControl.NONE).getLines().isEmpty());
+        verifyNoInteractions(formAligner, ocrService);
+    }
+    
+    @Test
+    void testExtractFields_mapsZonesToFieldsSkippingEmptyOnes() {
+        FormProperties.Layout layout = layout("intake");
+        layout.getFields().put("blank", zone(1, "string", false));
+        layout.getFields().put("name", zone(1, "string", false));
+        layout.getFields().put("age", zone(1, "integer", false));
+        layout.getFields().put("unreadable", zone(1, "string", false));
+        layout.getFields().put("address", zone(1, "string", true));
+        layout.getFields().put("phone", zone(1, "phone", false));
+        layout.getFields().put("signature", zone(2, "string", false));
+        service = new ZonalOcrService(ocrService, formAligner, properties);
+        
+        OcrResult page = new OcrResult(List.of(
+            line(""), line("  John \t Smith "), line("Age: 42"), line("   "), line("12 Main St\nSpringfield  IL"),
+            line("(555) 123-4567")), 0);
+        List<ExtractedField> fields = service.extractFields("intake", 1, page);
+        
+        assertEquals(List.of("name", "age", "address", "phone"), fields.stream().map(ExtractedField::getName).toList());
+        assertEquals(List.of("John Smith", 42, "12 Main St\nSpringfield IL", "5551234567"),
+            fields.stream().map(ExtractedField::getValue).toList());
+        assertEquals(List.of("string", "integer", "string", "phone"),
+            fields.stream().map(ExtractedField::getFieldType).toList());
+        
+        // Offsets point into the page text at the stripped value, on the line of its zone
+        String text = page.getText();
+        List<String> values = List.of("John \t Smith", "Age: 42", "12 Main St\nSpringfield  IL", "(555) 123-4567");
+        List<Integer> zoneLines = List.of(1, 2, 4, 5);
+        for (int i = 0; i < fields.size(); i++) {
+            int offset = fields.get(i).getOffset();
+            assertTrue(text.startsWith(values.get(i), offset), fields.get(i).getName());
+            assertSame(page.getLines().get(zoneLines.get(i)), page.lineAt(offset), fields.get(i).getName());
+        }
+    }
+    
+    @Test
+    void testExtractFields_fewerLinesThanZones() {
+        FormProperties.Layout layout = layout("intake");
+        layout.getFields().put("name", zone(1, "string", false));
+        layout.getFields().put("email", zone(1, "email", false));
+        service = new ZonalOcrService(ocrService, formAligner, properties);
+        
+        List<ExtractedField> fields = service.extractFields("intake", 1, new OcrResult(List.of(line("Jane")), 0));
+        
+        assertEquals(1, fields.size());
+        assertEquals(0, fields.get(0).getOffset());
+    }
+    
+    @Test
+    void testTyped() {
+        assertEquals(42, ZonalOcrService.typed("4 2 years", "integer"));
+        assertEquals("forty", ZonalOcrService.typed("forty", "integer"));
+        assertEquals("jane.doe@example.com", ZonalOcrService.typed("jane.doe @ example.com", "email"));
+        assertEquals("+15551234567", ZonalOcrService.typed("+1 (555) 123-4567", "phone"));
+        assertEquals("a b\nc", ZonalOcrService.typed("a \t b\nc", "string"));
+        assertEquals("a b", ZonalOcrService.typed("a  b", "unknown"));
+        
+        assertEquals("1985-03-07", ZonalOcrService.typed("03/07/1985", "date"));
+        assertEquals("1985-03-07", ZonalOcrService.typed("3-7-1985", "date"));
+        assertEquals("1985-03-07", ZonalOcrService.typed("1985-03-07", "date"));
+        assertEquals("1985-03-07", ZonalOcrService.typed("1985 / 3 / 7", "date"));
+        assertEquals("1985-03-07", ZonalOcrService.typed("3.7.85", "date"));
+        int nextYear = (Year.now().getValue() + 1) % 100;
+        assertEquals((Year.now().getValue() + 1 - 100) + "-01-02",
+            ZonalOcrService.typed(String.format("1/2/%02d", nextYear), "date"), "two-digit years are never in the future");
+        assertEquals("13/45/1985", ZonalOcrService.typed("13/45/1985", "date"));
+        assertEquals("March 7", ZonalOcrService.typed("March 7", "date"));
+    }
+    
+    private FormProperties.Layout layout(String formType) {
+        FormProperties.Layout layout = new FormProperties.Layout();
+        properties.getLayouts().put(formType, layout);
+        return layout;
+    }
+    
+    private static FormProperties.Zone zone(int page, String type, boolean multiline) {
+        FormProperties.Zone zone = new FormProperties.Zone();
+        zone.setPage(page);
+        zone.setType(type);
+        zone.setMultiline(multiline);
+        return zone;
+    }
+    
+    private static OcrResult.Line line(String text) {
+        return new OcrResult.Line(text, 90f, new Rectangle(0, 0, 10, 10));
+    }
+}
\ No newline at end of file